@@ -0,0 +1,84 @@
+package com.example.pps.event;
+
+import com.example.pps.entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of one {@link PaymentEvent} with {@link PaymentEventCodec}
+ * against Jackson JSON, configured as Spring Boot configures it (ISO-8601 dates). The
+ * encoded size of each form is printed once per fork, since it does not vary by run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentEventCodecBenchmark {
+
+    private final PaymentEvent event = new PaymentEvent(
+            UUID.randomUUID(),
+            UUID.randomUUID(),
+            Instant.parse("2026-10-17T09:12:31.123456Z"),
+            UUID.randomUUID(),
+            "ord_01J9Z6N4T2",
+            "4099260516",
+            Transaction.PaymentGateway.PAYSTACK,
+            new BigDecimal("2500.00"),
+            Transaction.Currency.NGN,
+            Transaction.Status.PENDING,
+            Transaction.Status.COMPLETED,
+            Instant.parse("2026-10-17T09:12:44.654321Z"));
+
+    private ObjectMapper objectMapper;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        binary = PaymentEventCodec.encode(event);
+        json = objectMapper.writeValueAsBytes(event);
+        System.out.printf("Encoded size: PaymentEventCodec %d bytes, Jackson JSON %d bytes%n", binary.length, json.length);
+    }
+
+    @Benchmark
+    public byte[] codecEncode() {
+        return PaymentEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public PaymentEvent codecDecode() {
+        return PaymentEventCodec.decode(binary);
+    }
+
+    @Benchmark
+    public byte[] jacksonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public PaymentEvent jacksonDecode() throws IOException {
+        return objectMapper.readValue(json, PaymentEvent.class);
+    }
+}
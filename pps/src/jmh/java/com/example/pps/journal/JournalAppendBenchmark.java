@@ -0,0 +1,76 @@
+package com.example.pps.journal;
+
+import com.example.pps.entity.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable appends per second to {@link WebhookJournal}: each operation appends a 1 KB
+ * webhook and waits until it has been forced to disk. A single writer pays one force per
+ * append; concurrent writers share forces through group commit, so their combined rate
+ * should exceed it by roughly the number of appends that queue behind each force.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalAppendBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final String SIGNATURE = "a".repeat(128);
+
+    private final byte[] body = new byte[1024];
+    private Path directory;
+    private WebhookJournal journal;
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new WebhookJournal(directory, SEGMENT_SIZE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteJournal() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void singleWriter() {
+        journal.append(Transaction.PaymentGateway.PAYSTACK, body, SIGNATURE).join();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void concurrentWriters() {
+        journal.append(Transaction.PaymentGateway.PAYSTACK, body, SIGNATURE).join();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.pps.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token verifications per second: with a cold LRU every {@link AccessTokens#verify}
+ * decodes the token and computes its HMAC; with a warm one a repeated token is answered
+ * from the verified-signature cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokensBenchmark {
+
+    private static final Map<String, String> SECRETS = Map.of("k1", "benchmark-access-token-secret-0123456789");
+
+    private AccessTokens cold;
+    private AccessTokens warm;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // A zero-entry LRU evicts every verified token straight away
+        cold = new AccessTokens(SECRETS, "k1", Duration.ofHours(1), 0, Clock.systemUTC());
+        warm = new AccessTokens(SECRETS, "k1", Duration.ofHours(1), 10_000, Clock.systemUTC());
+        token = warm.issue(UUID.randomUUID());
+        if (warm.verify(token).isEmpty() || cold.verify(token).isEmpty()) {
+            throw new IllegalStateException("Benchmark token does not verify");
+        }
+    }
+
+    @Benchmark
+    public Optional<UUID> coldCache() {
+        return cold.verify(token);
+    }
+
+    @Benchmark
+    public Optional<UUID> warmCache() {
+        return warm.verify(token);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.pps.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying one Paystack webhook: the whole {@link WebhookSignatureFilter} pass
+ * (chunked read, streaming HMAC, cached body) against the previous approach of
+ * creating and keying a {@link Mac} per request and hashing the buffered body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookSignatureFilterBenchmark {
+
+    private static final String SECRET = "sk_test_benchmark_secret";
+
+    @Param({"2048", "16384"})
+    int bodySize;
+
+    private WebhookSignatureFilter filter;
+    private byte[] body;
+    private String signature;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        filter = new WebhookSignatureFilter(Map.of(
+                "paystack", WebhookSignatureScheme.hmacHex("x-paystack-signature", "HmacSHA512", SECRET)),
+                64 * 1024);
+        body = new byte[bodySize];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        signature = HexFormat.of().formatHex(perRequestMac(body));
+    }
+
+    @Setup(Level.Invocation)
+    public void newRequest() {
+        request = new MockHttpServletRequest("POST", "/api/v1/webhooks/paystack");
+        request.setContent(body);
+        request.addHeader("x-paystack-signature", signature);
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest();
+    }
+
+    @Benchmark
+    public boolean perRequestMacBaseline() throws Exception {
+        byte[] buffered = request.getInputStream().readAllBytes();
+        return HexFormat.of().formatHex(perRequestMac(buffered)).equals(request.getHeader("x-paystack-signature"));
+    }
+
+    private static byte[] perRequestMac(byte[] data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+        return mac.doFinal(data);
+    }
+}
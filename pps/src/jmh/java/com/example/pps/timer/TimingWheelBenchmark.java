@@ -0,0 +1,112 @@
+package com.example.pps.timer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule-then-cancel cost of {@link HierarchicalTimingWheel} against a
+ * {@link ScheduledThreadPoolExecutor} with {@code removeOnCancel}, each already holding
+ * {@code pending} timers due between 1 second and 1 hour out, the shape of webhook
+ * retries and PENDING expiry. Each operation schedules one timer and cancels one, so the
+ * population stays steady: either the timer just scheduled, or (the {@code Replace}
+ * variants) one scheduled {@code pending} operations ago, as when a webhook settles a
+ * transaction and cancels its long-pending expiry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TimingWheelBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+    private static final int DELAYS = 1 << 16;
+
+    @Param({"10000", "1000000"})
+    int pending;
+
+    private HierarchicalTimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+    private final long[] delaysMillis = new long[DELAYS];
+    private HierarchicalTimingWheel.Timeout[] wheelTimers;
+    private ScheduledFuture<?>[] executorTimers;
+    private int next;
+    private int oldest;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < DELAYS; i++) {
+            delaysMillis[i] = random.nextLong(1_000, 3_600_000);
+        }
+        wheel = new HierarchicalTimingWheel("benchmark-wheel", Duration.ofMillis(10), 8, 4, Runnable::run);
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        wheelTimers = new HierarchicalTimingWheel.Timeout[pending];
+        executorTimers = new ScheduledFuture<?>[pending];
+        for (int i = 0; i < pending; i++) {
+            wheelTimers[i] = wheel.schedule(NOOP, Duration.ofMillis(delaysMillis[i % DELAYS]));
+            executorTimers[i] = executor.schedule(NOOP, delaysMillis[i % DELAYS], TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean wheelScheduleCancel() {
+        return wheel.schedule(NOOP, Duration.ofMillis(nextDelay())).cancel();
+    }
+
+    @Benchmark
+    public boolean executorScheduleCancel() {
+        ScheduledFuture<?> future = executor.schedule(NOOP, nextDelay(), TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+    @Benchmark
+    public boolean wheelReplaceOldest() {
+        int slot = nextSlot();
+        boolean cancelled = wheelTimers[slot].cancel();
+        wheelTimers[slot] = wheel.schedule(NOOP, Duration.ofMillis(nextDelay()));
+        return cancelled;
+    }
+
+    @Benchmark
+    public boolean executorReplaceOldest() {
+        int slot = nextSlot();
+        boolean cancelled = executorTimers[slot].cancel(false);
+        executorTimers[slot] = executor.schedule(NOOP, nextDelay(), TimeUnit.MILLISECONDS);
+        return cancelled;
+    }
+
+    private int nextSlot() {
+        int slot = oldest;
+        oldest = slot + 1 == pending ? 0 : slot + 1;
+        return slot;
+    }
+
+    private long nextDelay() {
+        return delaysMillis[next++ & (DELAYS - 1)];
+    }
+}
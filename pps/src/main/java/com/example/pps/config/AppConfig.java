@@ -1,13 +1,109 @@
 package com.example.pps.config;
 
+import com.example.pps.journal.WebhookJournal;
+import com.example.pps.timer.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
+    /**
+     * Runs the database-side continuation of async gateway calls so that blocking
+     * JDBC work never lands on the HTTP client's event-loop threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor gatewayCompletionExecutor(
+            @Value("${pps.gateway.completion-pool-size:16}") int poolSize,
+            @Value("${pps.gateway.completion-queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gateway-completion-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the per-key lanes of {@code MerchantNotificationListener}; one thread per lane
+     * for each consumer thread, so no lane ever waits for a thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor notificationWorkerExecutor(
+            @Value("${pps.notifications.parallelism:16}") int parallelism,
+            @Value("${pps.notifications.consumer-concurrency:3}") int consumerConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism * consumerConcurrency);
+        executor.setMaxPoolSize(parallelism * consumerConcurrency);
+        executor.setQueueCapacity(parallelism * consumerConcurrency);
+        executor.setThreadNamePrefix("notification-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Shared timing wheel for delayed work: merchant webhook retries and durable timers
+     * such as PENDING expiry. Expired tasks run on {@code timerTaskExecutor}.
+     */
+    @Bean(destroyMethod = "close")
+    public HierarchicalTimingWheel timingWheel(
+            @Qualifier("timerTaskExecutor") ThreadPoolTaskExecutor timerTaskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${pps.timers.tick:PT0.01S}") Duration tick,
+            @Value("${pps.timers.wheel-bits:8}") int wheelBits,
+            @Value("${pps.timers.levels:4}") int levels) {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel("timing-wheel", tick, wheelBits, levels, timerTaskExecutor);
+        meterRegistry.gauge("pps.timers.pending", wheel, HierarchicalTimingWheel::size);
+        return wheel;
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskExecutor timerTaskExecutor(
+            @Value("${pps.timers.pool-size:8}") int poolSize,
+            @Value("${pps.timers.queue-capacity:100000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("timer-task-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs Argon2id password hashes for merchant sign-in. Small and bounded on purpose:
+     * each hash holds its memory cost, and a full queue rejects rather than piling up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor(AuthProperties authProperties) {
+        AuthProperties.Password password = authProperties.getPassword();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(password.getPoolSize());
+        executor.setMaxPoolSize(password.getPoolSize());
+        executor.setQueueCapacity(password.getQueueCapacity());
+        executor.setThreadNamePrefix("password-hash-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(destroyMethod = "close")
+    public WebhookJournal webhookJournal(
+            @Value("${pps.journal.directory:data/webhook-journal}") String directory,
+            @Value("${pps.journal.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        return new WebhookJournal(Path.of(directory), Math.toIntExact(segmentSize.toBytes()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.example.pps.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merchant login settings, bound from {@code pps.auth.*}: the Argon2id cost of password
+ * hashes and the keys that sign access tokens.
+ */
+@ConfigurationProperties(prefix = "pps.auth")
+public class AuthProperties {
+
+    private Password password = new Password();
+    private Tokens tokens = new Tokens();
+
+    public Password getPassword() { return password; }
+    public void setPassword(Password password) { this.password = password; }
+    public Tokens getTokens() { return tokens; }
+    public void setTokens(Tokens tokens) { this.tokens = tokens; }
+
+    public static class Password {
+        /** Argon2id memory cost per hash, in KiB. */
+        private int memoryKib = 19456;
+        private int iterations = 2;
+        private int parallelism = 1;
+        /** Hashes run at once; each holds memoryKib while it runs. */
+        private int poolSize = 2;
+        /** Sign-ins waiting for a hash before new ones are turned away with 503. */
+        private int queueCapacity = 32;
+
+        public int getMemoryKib() { return memoryKib; }
+        public void setMemoryKib(int memoryKib) { this.memoryKib = memoryKib; }
+        public int getIterations() { return iterations; }
+        public void setIterations(int iterations) { this.iterations = iterations; }
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+        public int getPoolSize() { return poolSize; }
+        public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+
+    public static class Tokens {
+        private Duration ttl = Duration.ofMinutes(15);
+        /** Key id that signs new tokens; every key in {@code keys} still verifies. */
+        private String activeKeyId;
+        /** Signing secrets by key id, each at least 32 bytes. */
+        private Map<String, String> keys = new HashMap<>();
+        /** Recently verified tokens remembered so they skip the signature check. */
+        private int verifiedCacheSize = 10000;
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+        public String getActiveKeyId() { return activeKeyId; }
+        public void setActiveKeyId(String activeKeyId) { this.activeKeyId = activeKeyId; }
+        public Map<String, String> getKeys() { return keys; }
+        public void setKeys(Map<String, String> keys) { this.keys = keys; }
+        public int getVerifiedCacheSize() { return verifiedCacheSize; }
+        public void setVerifiedCacheSize(int verifiedCacheSize) { this.verifiedCacheSize = verifiedCacheSize; }
+    }
+}
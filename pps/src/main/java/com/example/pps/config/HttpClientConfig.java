@@ -0,0 +1,83 @@
+package com.example.pps.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * Builds an isolated, pooled HTTP client per outbound destination so that a slow
+ * merchant endpoint can never exhaust the connections used for gateway calls.
+ *
+ * Each client gets its own Reactor Netty {@link ConnectionProvider} (exported to
+ * Micrometer as {@code reactor.netty.connection.provider.*} tagged with the client
+ * name) and its own TLS context so sessions are resumed across pooled connections.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig {
+
+    public static final String PAYSTACK = "paystack";
+    public static final String FLUTTERWAVE = "flutterwave";
+    public static final String MERCHANT_CALLBACKS = "merchant-callbacks";
+
+    private final HttpClientProperties properties;
+
+    public HttpClientConfig(HttpClientProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public WebClient paystackWebClient(WebClient.Builder builder) throws SSLException {
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient(PAYSTACK)))
+                .build();
+    }
+
+    @Bean
+    public WebClient flutterwaveWebClient(WebClient.Builder builder) throws SSLException {
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient(FLUTTERWAVE)))
+                .build();
+    }
+
+    @Bean
+    public WebClient merchantCallbackWebClient(WebClient.Builder builder) throws SSLException {
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient(MERCHANT_CALLBACKS)))
+                .build();
+    }
+
+    private HttpClient httpClient(String name) throws SSLException {
+        HttpClientProperties.Client settings = properties.client(name);
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictInterval())
+                .metrics(true)
+                .build();
+
+        SslContext sslContext = SslContextBuilder.forClient()
+                .sessionCacheSize(settings.getTlsSessionCacheSize())
+                .sessionTimeout(settings.getTlsSessionTimeout().toSeconds())
+                .build();
+
+        return HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(settings.getReadTimeout())
+                .secure(spec -> spec.sslContext(sslContext));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.pps.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection pool and deadline settings for each outbound HTTP client
+ * (one per payment gateway plus one for merchant callbacks), bound from {@code pps.http.clients.*}.
+ */
+@ConfigurationProperties(prefix = "pps.http")
+public class HttpClientProperties {
+
+    private Map<String, Client> clients = new HashMap<>();
+
+    public Map<String, Client> getClients() { return clients; }
+    public void setClients(Map<String, Client> clients) { this.clients = clients; }
+
+    /**
+     * Settings for the named client, falling back to defaults when it is not configured.
+     */
+    public Client client(String name) {
+        return clients.getOrDefault(name, new Client());
+    }
+
+    public static class Client {
+        /** Max open connections per remote host. */
+        private int maxConnections = 50;
+        /** Max callers queued for a connection before failing fast. */
+        private int pendingAcquireMaxCount = 200;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        /** Idle connections older than this are evicted. */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInterval = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /** Max gap between response reads. */
+        private Duration readTimeout = Duration.ofSeconds(10);
+        /** Deadline for the whole exchange, including pool acquisition and body. */
+        private Duration totalTimeout = Duration.ofSeconds(15);
+        private int tlsSessionCacheSize = 256;
+        private Duration tlsSessionTimeout = Duration.ofHours(1);
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+        public Duration getMaxLifeTime() { return maxLifeTime; }
+        public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+        public Duration getEvictInterval() { return evictInterval; }
+        public void setEvictInterval(Duration evictInterval) { this.evictInterval = evictInterval; }
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+        public Duration getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+        public Duration getTotalTimeout() { return totalTimeout; }
+        public void setTotalTimeout(Duration totalTimeout) { this.totalTimeout = totalTimeout; }
+        public int getTlsSessionCacheSize() { return tlsSessionCacheSize; }
+        public void setTlsSessionCacheSize(int tlsSessionCacheSize) { this.tlsSessionCacheSize = tlsSessionCacheSize; }
+        public Duration getTlsSessionTimeout() { return tlsSessionTimeout; }
+        public void setTlsSessionTimeout(Duration tlsSessionTimeout) { this.tlsSessionTimeout = tlsSessionTimeout; }
+    }
+}
@@ -1,30 +1,206 @@
 package com.example.pps.config;
 
+import com.example.pps.consumer.InboundWebhookConsumer;
+import com.example.pps.event.PaymentEvent;
+import com.example.pps.event.PaymentEventDeserializer;
+import com.example.pps.kafka.MerchantNotificationListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${pps.webhooks.inbound-topic:webhooks-inbound}")
+    private String inboundWebhookTopic;
+
+    @Value("${pps.notifications.topic:merchant-notifications}")
+    private String notificationsTopic;
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public KafkaAdmin kafkaAdmin() {
+        return new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+    }
+
+    // Partitions bound the consumer parallelism; ordering is per partition, i.e. per reference
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public NewTopic inboundWebhookTopic(@Value("${pps.webhooks.inbound-partitions:12}") int partitions) {
+        return TopicBuilder.name(inboundWebhookTopic).partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic inboundWebhookDeadLetterTopic(@Value("${pps.webhooks.inbound-partitions:12}") int partitions) {
+        return TopicBuilder.name(inboundWebhookTopic + ".DLT").partitions(partitions).build();
+    }
+
+    // Keyed by merchant id: ordering is per merchant
+    @Bean
+    public NewTopic notificationsTopic(@Value("${pps.notifications.partitions:12}") int partitions) {
+        return TopicBuilder.name(notificationsTopic).partitions(partitions).build();
+    }
+
+    /**
+     * Raw webhook bodies are sent as bytes: acks=all with idempotence so an acknowledged
+     * webhook survives a broker failure, and a short linger so bursts share requests.
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> webhookKafkaTemplate() {
         Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 1);
+        // Fail fast when the broker is unreachable so the webhook falls back to the local journal
+        configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
     }
 
+    /**
+     * Producer for {@link com.example.pps.outbox.OutboxRelay}: idempotent with acks=all so
+     * a retried batch cannot duplicate or reorder records within a partition, and
+     * compressed, since the relay sends in large batches.
+     */
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate(
+            @Value("${pps.outbox.compression:lz4}") String compression,
+            @Value("${pps.outbox.producer-linger:PT0.005S}") Duration linger) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+    }
+
+    /**
+     * Consumes the inbound webhook topic with one thread per assigned partition (up to
+     * {@code pps.webhooks.consumer-concurrency}). Offsets are committed per record after
+     * it is applied. Failures are retried with backoff and then parked on the DLT;
+     * malformed webhooks and unknown references go straight to the DLT.
+     */
+    @Bean
+    public ConcurrentMessageListenerContainer<String, byte[]> inboundWebhookListenerContainer(
+            InboundWebhookConsumer inboundWebhookConsumer,
+            @Qualifier("webhookKafkaTemplate") KafkaTemplate<String, byte[]> webhookKafkaTemplate,
+            @Value("${pps.webhooks.consumer-group:pps-webhook-processor}") String groupId,
+            @Value("${pps.webhooks.consumer-concurrency:4}") int concurrency) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        ContainerProperties containerProperties = new ContainerProperties(inboundWebhookTopic);
+        containerProperties.setMessageListener(inboundWebhookConsumer);
+        containerProperties.setAckMode(ContainerProperties.AckMode.RECORD);
+
+        ExponentialBackOff backOff = new ExponentialBackOff(200, 2.0);
+        backOff.setMaxElapsedTime(30_000);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new DeadLetterPublishingRecoverer(webhookKafkaTemplate), backOff);
+        errorHandler.addNotRetryableExceptions(IllegalArgumentException.class);
+
+        ConcurrentMessageListenerContainer<String, byte[]> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory(configProps), containerProperties);
+        container.setConcurrency(concurrency);
+        container.setCommonErrorHandler(errorHandler);
+        return container;
+    }
+
+    /**
+     * Delivers {@code merchant-notifications} to merchants in its own consumer group.
+     */
+    @Bean
+    public ConcurrentMessageListenerContainer<String, PaymentEvent> merchantNotificationListenerContainer(
+            MerchantNotificationListener merchantNotificationListener,
+            @Value("${pps.notifications.delivery-group:pps-merchant-notifier}") String groupId,
+            @Value("${pps.notifications.consumer-concurrency:3}") int concurrency,
+            @Value("${pps.notifications.max-poll-records:500}") int maxPollRecords) {
+        return paymentEventBatchContainer(merchantNotificationListener, groupId, concurrency, maxPollRecords);
+    }
+
+    /**
+     * Batch container over {@code merchant-notifications}: offsets are committed once the
+     * listener has returned for the whole poll (BATCH ack mode). A failed batch is
+     * redelivered with backoff until it succeeds. Undecodable records reach the listener
+     * as null values instead of failing the poll.
+     */
+    private ConcurrentMessageListenerContainer<String, PaymentEvent> paymentEventBatchContainer(
+            BatchMessageListener<String, PaymentEvent> listener, String groupId, int concurrency, int maxPollRecords) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        configProps.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, PaymentEventDeserializer.class);
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        ContainerProperties containerProperties = new ContainerProperties(notificationsTopic);
+        containerProperties.setMessageListener(listener);
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+
+        ExponentialBackOff backOff = new ExponentialBackOff(500, 2.0);
+        backOff.setMaxInterval(30_000);
+
+        ConcurrentMessageListenerContainer<String, PaymentEvent> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory(configProps), containerProperties);
+        container.setConcurrency(concurrency);
+        container.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return container;
+    }
+
+    /**
+     * Consumer factory whose clients publish their metrics to Micrometer, including
+     * per-partition lag ({@code kafka.consumer.fetch.manager.records.lag}).
+     */
+    private <V> DefaultKafkaConsumerFactory<String, V> consumerFactory(Map<String, Object> configProps) {
+        DefaultKafkaConsumerFactory<String, V> factory = new DefaultKafkaConsumerFactory<>(configProps);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.example.pps.config;
+
+import com.example.pps.ratelimit.RateLimitPolicies;
+import com.example.pps.ratelimit.RateLimitPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * API rate limits, bound from {@code pps.rate-limit.*}: how tokens are leased from Redis,
+ * and a policy per route class and merchant tier under
+ * {@code pps.rate-limit.policies.<route>.<tier>}.
+ */
+@ConfigurationProperties(prefix = "pps.rate-limit")
+public class RateLimitProperties {
+
+    /** Tokens leased from Redis per round trip and spent locally; 1 = strict. */
+    private long leaseSize = 5;
+    /** Unspent leased tokens are handed back after this long. */
+    private Duration leaseTtl = Duration.ofSeconds(1);
+    /** While Redis is unreachable each instance allows this share of every limit locally. */
+    private int fallbackInstances = 4;
+    private Duration fallbackRetry = Duration.ofSeconds(5);
+    private Map<String, Map<String, Policy>> policies = new HashMap<>();
+
+    public long getLeaseSize() { return leaseSize; }
+    public void setLeaseSize(long leaseSize) { this.leaseSize = leaseSize; }
+    public Duration getLeaseTtl() { return leaseTtl; }
+    public void setLeaseTtl(Duration leaseTtl) { this.leaseTtl = leaseTtl; }
+    public int getFallbackInstances() { return fallbackInstances; }
+    public void setFallbackInstances(int fallbackInstances) { this.fallbackInstances = fallbackInstances; }
+    public Duration getFallbackRetry() { return fallbackRetry; }
+    public void setFallbackRetry(Duration fallbackRetry) { this.fallbackRetry = fallbackRetry; }
+    public Map<String, Map<String, Policy>> getPolicies() { return policies; }
+    public void setPolicies(Map<String, Map<String, Policy>> policies) { this.policies = policies; }
+
+    /**
+     * The configured policies, each named {@code <route>.<tier>}.
+     */
+    public RateLimitPolicies toPolicies() {
+        Map<String, Map<String, RateLimitPolicy>> byRoute = new HashMap<>();
+        policies.forEach((route, tiers) -> {
+            Map<String, RateLimitPolicy> byTier = new HashMap<>();
+            tiers.forEach((tier, policy) -> byTier.put(tier, new RateLimitPolicy(route + "." + tier,
+                    policy.getLimit(), policy.getPeriod(), policy.getBurst() > 0 ? policy.getBurst() : policy.getLimit())));
+            byRoute.put(route, byTier);
+        });
+        return new RateLimitPolicies(byRoute);
+    }
+
+    public static class Policy {
+        /** Requests allowed per period at the sustained rate. */
+        private long limit = 10;
+        private Duration period = Duration.ofMinutes(1);
+        /** Requests allowed back to back; defaults to the limit. */
+        private long burst;
+
+        public long getLimit() { return limit; }
+        public void setLimit(long limit) { this.limit = limit; }
+        public Duration getPeriod() { return period; }
+        public void setPeriod(Duration period) { this.period = period; }
+        public long getBurst() { return burst; }
+        public void setBurst(long burst) { this.burst = burst; }
+    }
+}
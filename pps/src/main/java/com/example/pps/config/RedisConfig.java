@@ -1,20 +1,39 @@
 package com.example.pps.config;
 
+import io.lettuce.core.ClientOptions;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TimeoutOptions;
 import io.lettuce.core.api.StatefulRedisConnection;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
     @Bean(destroyMethod = "shutdown")
-    public RedisClient redisClient() {
-        return RedisClient.create("redis://localhost:6379");
+    public RedisClient redisClient(@Value("${spring.data.redis.host:localhost}") String host,
+                                   @Value("${spring.data.redis.port:6379}") int port,
+                                   @Value("${spring.data.redis.password:}") String password,
+                                   @Value("${pps.redis.command-timeout:PT0.5S}") Duration commandTimeout) {
+        RedisURI.Builder uri = RedisURI.builder().withHost(host).withPort(port);
+        if (!password.isBlank()) {
+            uri.withPassword(password.toCharArray());
+        }
+        RedisClient client = RedisClient.create(uri.build());
+        // Redis sits on the request path (idempotency, rate limiting); never let a stalled
+        // command hold a request thread for the 60s default.
+        client.setOptions(ClientOptions.builder()
+                .timeoutOptions(TimeoutOptions.enabled(commandTimeout))
+                .build());
+        return client;
     }
 
     @Bean(destroyMethod = "close")
     public StatefulRedisConnection<String, String> connection(RedisClient redisClient) {
         return redisClient.connect();
     }
-}
\ No newline at end of file
+}
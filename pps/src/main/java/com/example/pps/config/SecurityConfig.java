@@ -1,13 +1,22 @@
 package com.example.pps.config;
 
+import com.example.pps.ratelimit.HybridRateLimiter;
+import com.example.pps.ratelimit.RateLimitPolicies;
+import com.example.pps.ratelimit.RedisTokenStore;
+import com.example.pps.security.AccessTokenAuthFilter;
+import com.example.pps.security.AccessTokens;
 import com.example.pps.security.ApiKeyAuthFilter;
+import com.example.pps.security.MerchantApiKeyCache;
 import com.example.pps.security.RateLimitFilter;
 import com.example.pps.security.WebhookSignatureFilter;
+import com.example.pps.security.WebhookSignatureScheme;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.Ordered;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -16,28 +25,39 @@ import org.springframework.security.config.annotation.web.configurers.HeadersCon
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Clock;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({RateLimitProperties.class, AuthProperties.class})
 public class SecurityConfig {
 
-    @Value("${redis.url:redis://localhost:6379}")
-    private String redisUrl;
-
     @Value("${paystack.secret-key:mock-paystack-key}")
     private String paystackSecretKey;
 
+    @Value("${flutterwave.secret-hash:mock-flutterwave-hash}")
+    private String flutterwaveSecretHash;
+
+    @Value("${pps.webhooks.max-body-size:64KB}")
+    private DataSize webhookMaxBodySize;
+
     @Value("${allowed.origins:http://localhost:3000,http://localhost:63342}")
     private String[] allowedOrigins;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter redisRateLimitFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   HybridRateLimiter apiRateLimiter,
+                                                   RateLimitProperties rateLimitProperties,
+                                                   AccessTokens accessTokens,
+                                                   MerchantApiKeyCache merchantApiKeyCache) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -52,7 +72,11 @@ public class SecurityConfig {
                         .contentSecurityPolicy(csp -> csp.policyDirectives("default-src 'self'; frame-ancestors 'none'"))
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // Async controller results (CompletableFuture) are written on an ASYNC
+                        // dispatch; the original REQUEST dispatch has already been authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/**").authenticated()
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/v1/webhooks/**").permitAll()
                         .requestMatchers("/api/v1/transactions/**").authenticated()
@@ -61,29 +85,53 @@ public class SecurityConfig {
                 )
 
                 // Webhook signature validation first
-                .addFilterBefore(new WebhookSignatureFilter(paystackSecretKey), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(webhookSignatureFilter(), UsernamePasswordAuthenticationFilter.class)
+
+                // API Key authentication second, from the cache
+                .addFilterBefore(new ApiKeyAuthFilter("x-api-key", merchantApiKeyCache), UsernamePasswordAuthenticationFilter.class)
 
-                // Redis-backed rate limiting second
-                .addFilterBefore(redisRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
+                // Otherwise a bearer access token, verified in memory
+                .addFilterAfter(new AccessTokenAuthFilter(accessTokens, merchantApiKeyCache), ApiKeyAuthFilter.class)
 
-                // API Key authentication after rate limiting
-                .addFilterAfter(new ApiKeyAuthFilter("x-api-key"), RateLimitFilter.class);
+                // Redis-backed rate limiting once the merchant (and so its tier) is known
+                .addFilterAfter(new RateLimitFilter(apiRateLimiter, rateLimitProperties.toPolicies()), AccessTokenAuthFilter.class);
 
         return http.build();
     }
 
-    @Bean(name = "redisRateLimitFilter")
-    public RateLimitFilter redisRateLimitFilter() {
-        return new RateLimitFilter(redisUrl);
+    /**
+     * API rate limiter over Redis GCRA state, leasing tokens in batches of
+     * {@code pps.rate-limit.lease-size} (1 = strict, one Redis call per request).
+     */
+    @Bean
+    public HybridRateLimiter apiRateLimiter(StatefulRedisConnection<String, String> connection,
+                                            MeterRegistry meterRegistry,
+                                            RateLimitProperties properties) {
+        return new HybridRateLimiter(new RedisTokenStore(connection), properties.getLeaseSize(),
+                properties.getLeaseTtl(), properties.getFallbackInstances(), properties.getFallbackRetry(),
+                meterRegistry, System::nanoTime);
     }
 
+    /**
+     * Signs access tokens with {@code pps.auth.tokens.active-key-id}; every key under
+     * {@code pps.auth.tokens.keys} verifies, which is how signing keys rotate.
+     */
     @Bean
-    public FilterRegistrationBean<WebhookSignatureFilter> webhookSignatureFilterRegistration() {
-        FilterRegistrationBean<WebhookSignatureFilter> registrationBean = new FilterRegistrationBean<>();
-        registrationBean.setFilter(new WebhookSignatureFilter(paystackSecretKey));
-        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE);
-        registrationBean.addUrlPatterns("/api/v1/webhooks/*");
-        return registrationBean;
+    public AccessTokens accessTokens(AuthProperties properties) {
+        AuthProperties.Tokens tokens = properties.getTokens();
+        return new AccessTokens(tokens.getKeys(), tokens.getActiveKeyId(), tokens.getTtl(),
+                tokens.getVerifiedCacheSize(), Clock.systemUTC());
+    }
+
+    /**
+     * Only ever added to the security chain, never as a bean, so the servlet container
+     * does not register it a second time.
+     */
+    private WebhookSignatureFilter webhookSignatureFilter() {
+        return new WebhookSignatureFilter(Map.of(
+                "paystack", WebhookSignatureScheme.hmacHex("x-paystack-signature", "HmacSHA512", paystackSecretKey),
+                "flutterwave", WebhookSignatureScheme.sharedSecret("verif-hash", flutterwaveSecretHash)),
+                Math.toIntExact(webhookMaxBodySize.toBytes()));
     }
 
     @Bean
@@ -0,0 +1,46 @@
+package com.example.pps.consumer;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.service.WebhookIngestionService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies webhooks from the inbound topic. Each partition is consumed by a single
+ * thread of the container (see {@code KafkaConfig#inboundWebhookListenerContainer}),
+ * so webhooks for the same transaction reference are applied one at a time, in order.
+ */
+@Component
+public class InboundWebhookConsumer implements MessageListener<String, byte[]> {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboundWebhookConsumer.class);
+
+    private final WebhookIngestionService webhookIngestionService;
+
+    public InboundWebhookConsumer(WebhookIngestionService webhookIngestionService) {
+        this.webhookIngestionService = webhookIngestionService;
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, byte[]> record) {
+        String gatewayName = header(record, WebhookIngestionService.GATEWAY_HEADER);
+        if (gatewayName == null) {
+            throw new IllegalArgumentException("Inbound webhook at offset " + record.offset() + " has no gateway header");
+        }
+        Transaction.PaymentGateway gateway = Transaction.PaymentGateway.valueOf(gatewayName);
+        logger.debug("Applying {} webhook | Reference={} | Partition={} | Offset={}",
+                gateway, record.key(), record.partition(), record.offset());
+        webhookIngestionService.apply(gateway, record.value());
+    }
+
+    private static String header(ConsumerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.pps.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Processes a polled batch in parallel across keys while keeping records with the same
+ * key in offset order.
+ *
+ * Records are sharded by key into {@code lanes}; each lane runs its records one after
+ * another as a single task on the executor, and lanes run concurrently. {@link #process}
+ * returns only when every lane has finished, so a container in BATCH ack mode commits
+ * the batch's offsets only after all of it was handled. When a record fails, the
+ * remaining records with the same key are skipped (they must not overtake it) and the
+ * failure is rethrown once the other lanes are done, so the container's error handler
+ * redelivers the batch. Handlers must therefore be idempotent.
+ */
+public class KeyOrderedBatchProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedBatchProcessor.class);
+
+    private final int lanes;
+    private final Executor executor;
+
+    public KeyOrderedBatchProcessor(int lanes, Executor executor) {
+        this.lanes = lanes;
+        this.executor = executor;
+    }
+
+    public <K, V> void process(List<ConsumerRecord<K, V>> records, Consumer<ConsumerRecord<K, V>> handler) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<List<ConsumerRecord<K, V>>> shards = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (ConsumerRecord<K, V> record : records) {
+            shards.get(Math.floorMod(Objects.hashCode(record.key()), lanes)).add(record);
+        }
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(lanes);
+        for (List<ConsumerRecord<K, V>> shard : shards) {
+            if (!shard.isEmpty()) {
+                running.add(CompletableFuture.runAsync(() -> runLane(shard, handler), executor));
+            }
+        }
+        try {
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <K, V> void runLane(List<ConsumerRecord<K, V>> shard, Consumer<ConsumerRecord<K, V>> handler) {
+        Set<K> failedKeys = new HashSet<>();
+        RuntimeException firstFailure = null;
+        for (ConsumerRecord<K, V> record : shard) {
+            if (failedKeys.contains(record.key())) {
+                continue;
+            }
+            try {
+                handler.accept(record);
+            } catch (RuntimeException e) {
+                log.warn("Record failed, holding back the rest of its key | Key={} | Partition={} | Offset={} | Error={}",
+                        record.key(), record.partition(), record.offset(), e.getMessage());
+                failedKeys.add(record.key());
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.pps.controller;
 import com.example.pps.dto.AuthResponse;
 import com.example.pps.dto.LoginRequest;
 import com.example.pps.dto.RegisterRequest;
+import com.example.pps.dto.RegisterResponse;
 import com.example.pps.service.AuthService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,9 +12,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * REST controller for handling merchant authentication requests (login and registration).
- * This controller's paths are permitted access in SecurityConfig.
+ * This controller's paths are permitted access in SecurityConfig. Both complete
+ * asynchronously, once the password hash has run.
  */
 @RestController
 @RequestMapping("/api/v1/auth")
@@ -30,11 +34,9 @@ public class AuthController {
      * Maps to POST /api/v1/auth/register
      */
     @PostMapping("/register")
-    public ResponseEntity<RegisterRequest> register(@RequestBody RegisterRequest request) {
-        // Calls the mock service to simulate account creation
-        authService.register(request);
-        // Returns the request object back for simplicity and to match mock flow
-        return ResponseEntity.status(HttpStatus.CREATED).body(request);
+    public CompletableFuture<ResponseEntity<RegisterResponse>> register(@RequestBody RegisterRequest request) {
+        return authService.register(request)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
     }
 
     /**
@@ -42,9 +44,7 @@ public class AuthController {
      * Maps to POST /api/v1/auth/login
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
-        // Calls the mock service to validate credentials and get the token/ID
-        AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@RequestBody LoginRequest request) {
+        return authService.login(request).thenApply(ResponseEntity::ok);
     }
 }
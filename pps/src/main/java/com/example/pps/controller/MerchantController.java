@@ -0,0 +1,37 @@
+package com.example.pps.controller;
+
+import com.example.pps.delivery.MerchantWebhookSigner;
+import com.example.pps.dto.WebhookSecretResponse;
+import com.example.pps.entity.Merchant;
+import com.example.pps.exception.InvalidMerchantKeyException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Endpoints about the authenticated merchant itself.
+ */
+@RestController
+@RequestMapping("/api/v1/merchants")
+public class MerchantController {
+
+    private final MerchantWebhookSigner webhookSigner;
+
+    public MerchantController(MerchantWebhookSigner webhookSigner) {
+        this.webhookSigner = webhookSigner;
+    }
+
+    /**
+     * Returns the secret for verifying webhook signatures, the same one given at registration.
+     * Maps to GET /api/v1/merchants/me/webhook-secret
+     */
+    @GetMapping("/me/webhook-secret")
+    public ResponseEntity<WebhookSecretResponse> webhookSecret(@AuthenticationPrincipal Merchant merchant) {
+        if (merchant == null) {
+            throw new InvalidMerchantKeyException("Invalid Merchant API key.");
+        }
+        return ResponseEntity.ok(new WebhookSecretResponse(merchant.getId().toString(), webhookSigner.secretFor(merchant.getId())));
+    }
+}
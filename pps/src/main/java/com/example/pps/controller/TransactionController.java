@@ -1,14 +1,29 @@
 package com.example.pps.controller;
 
+import com.example.pps.dto.BatchInitiatePaymentRequest;
+import com.example.pps.dto.BatchPaymentResult;
 import com.example.pps.dto.InitiatePaymentRequest;
 import com.example.pps.dto.InitiatePaymentResponse;
+import com.example.pps.dto.TransactionPage;
+import com.example.pps.dto.TransactionQuery;
+import com.example.pps.entity.Merchant;
+import com.example.pps.entity.Transaction;
+import com.example.pps.exception.InvalidMerchantKeyException;
+import com.example.pps.service.TransactionQueryService;
 import com.example.pps.service.TransactionService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/transactions")
@@ -17,28 +32,78 @@ public class TransactionController {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
     private final TransactionService transactionService;
+    private final TransactionQueryService transactionQueryService;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, TransactionQueryService transactionQueryService) {
         this.transactionService = transactionService;
+        this.transactionQueryService = transactionQueryService;
+    }
+
+    /**
+     * Lists the authenticated merchant's transactions, newest first. Pass the returned
+     * {@code nextCursor} as {@code cursor} to fetch the following page.
+     */
+    @GetMapping
+    public ResponseEntity<TransactionPage> listTransactions(
+            @RequestParam(required = false) Transaction.Status status,
+            @RequestParam(required = false) Transaction.PaymentGateway gateway,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal Merchant merchant) {
+
+        if (merchant == null) {
+            throw new InvalidMerchantKeyException("Invalid Merchant API key.");
+        }
+
+        TransactionQuery query = new TransactionQuery(status, gateway, from, to);
+        return ResponseEntity.ok(transactionQueryService.list(merchant.getId(), query, cursor, limit));
     }
 
+    /**
+     * Returns a future so the servlet thread is released while the gateway call is in flight;
+     * Spring MVC completes the response through an async dispatch.
+     */
     @PostMapping("/initiate")
-    public ResponseEntity<InitiatePaymentResponse> initiatePayment(
+    public CompletableFuture<ResponseEntity<InitiatePaymentResponse>> initiatePayment(
             @Valid @RequestBody InitiatePaymentRequest request,
-            @RequestHeader("Idempotency-Key") String idempotencyKey) {
+            @RequestHeader("Idempotency-Key") String idempotencyKey,
+            @AuthenticationPrincipal Merchant merchant) {
 
         logger.debug("Received payment initiation request: {}", request);
         logger.debug("Idempotency-Key: {}", idempotencyKey);
 
-        InitiatePaymentResponse response =
-                transactionService.initiatePayment(request, idempotencyKey, request.getMerchantApiKey());
+        if (merchant == null) {
+            throw new InvalidMerchantKeyException("Invalid Merchant API key.");
+        }
+
+        return transactionService.initiatePayment(request, idempotencyKey, merchant)
+                .thenApply(response -> {
+                    logger.debug("Payment initiation response: {}", response);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Streams one NDJSON line per payment as each gateway call completes, so large
+     * batches do not wait for their slowest item before the client sees progress.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchPaymentResult> initiateBatch(@Valid @RequestBody BatchInitiatePaymentRequest request,
+                                                  @AuthenticationPrincipal Merchant merchant) {
+
+        logger.debug("Received batch initiation request with {} payments", request.getPayments().size());
+
+        if (merchant == null) {
+            throw new InvalidMerchantKeyException("Invalid Merchant API key.");
+        }
 
-        logger.debug("Payment initiation response: {}", response);
-        return ResponseEntity.ok(response);
+        return transactionService.initiateBatch(request.getPayments(), merchant);
     }
 
     @GetMapping("/test")
     public ResponseEntity<String> testEndpoint() {
         return ResponseEntity.ok("✅ Transaction API is reachable and secured");
     }
-}
\ No newline at end of file
+}
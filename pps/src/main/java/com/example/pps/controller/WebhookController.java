@@ -1,33 +1,39 @@
 package com.example.pps.controller;
 
-import com.example.pps.dto.FlutterwaveWebhookPayload;
-import com.example.pps.dto.PaystackWebhookPayload;
-import com.example.pps.service.WebhookService;
+import com.example.pps.entity.Transaction;
+import com.example.pps.service.WebhookIngestionService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Gateway webhooks arrive here after {@code WebhookSignatureFilter} has verified them.
+ * The raw body is handed to {@link WebhookIngestionService}, which acknowledges as soon
+ * as the webhook is durable rather than after it has been applied.
+ */
 @RestController
 @RequestMapping("/api/v1/webhooks")
 public class WebhookController {
-    private final WebhookService webhookService;
+    private final WebhookIngestionService webhookIngestionService;
 
-    public WebhookController(WebhookService webhookService) {
-        this.webhookService = webhookService;
+    public WebhookController(WebhookIngestionService webhookIngestionService) {
+        this.webhookIngestionService = webhookIngestionService;
     }
 
     @PostMapping("/paystack")
-    public ResponseEntity<Void> handlePaystackWebhook(
-            @RequestBody PaystackWebhookPayload payload,
+    public CompletableFuture<ResponseEntity<Void>> handlePaystackWebhook(
+            @RequestBody byte[] body,
             @RequestHeader("x-paystack-signature") String signature) {
-        webhookService.processPaystackWebhook(payload, signature);
-        return ResponseEntity.ok().build();
+        return webhookIngestionService.ingest(Transaction.PaymentGateway.PAYSTACK, body, signature)
+                .thenApply(ignored -> ResponseEntity.ok().build());
     }
 
     @PostMapping("/flutterwave")
-    public ResponseEntity<Void> handleFlutterwaveWebhook(
-            @RequestBody FlutterwaveWebhookPayload payload,
+    public CompletableFuture<ResponseEntity<Void>> handleFlutterwaveWebhook(
+            @RequestBody byte[] body,
             @RequestHeader("verif-hash") String signature) {
-        webhookService.processFlutterwaveWebhook(payload, signature);
-        return ResponseEntity.ok().build();
+        return webhookIngestionService.ingest(Transaction.PaymentGateway.FLUTTERWAVE, body, signature)
+                .thenApply(ignored -> ResponseEntity.ok().build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,383 @@
+package com.example.pps.delivery;
+
+import com.example.pps.entity.Merchant;
+import com.example.pps.entity.MerchantWebhookDeadLetter;
+import com.example.pps.event.PaymentEvent;
+import com.example.pps.repository.MerchantWebhookDeadLetterRepository;
+import com.example.pps.timer.HierarchicalTimingWheel;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers payment events to merchants' webhook URLs without blocking the Kafka consumer.
+ *
+ * <ul>
+ *   <li>Each merchant has its own bounded queue ({@code pps.delivery.queue-capacity}) and
+ *       at most one delivery in flight, so its events arrive in order and a slow or failing
+ *       merchant only ever delays itself.</li>
+ *   <li>At most {@code pps.delivery.max-concurrency-per-host} deliveries run against one
+ *       host at a time, across all merchants using it.</li>
+ *   <li>Timeouts, connection errors, 408, 429 and 5xx are retried with exponential backoff
+ *       and jitter up to {@code pps.delivery.max-attempts}, waiting on the shared
+ *       {@link HierarchicalTimingWheel}; other responses, exhausted retries and events
+ *       that find the merchant's queue full go to {@code merchant_webhook_dead_letters}.</li>
+ *   <li>Bodies are signed by {@link MerchantWebhookSigner}.</li>
+ * </ul>
+ * Queued events live in memory and their Kafka offsets are committed once queued, so on
+ * shutdown every event still queued or waiting out a retry is written to
+ * {@code merchant_webhook_dead_letters} for redelivery. A delivery in flight at that
+ * moment may be both delivered and dead-lettered; merchants deduplicate on
+ * {@value #EVENT_ID_HEADER}.
+ *
+ * Metrics, tagged by merchant: {@code pps.delivery.latency},
+ * {@code pps.delivery.attempts{outcome=success|retry|failed}},
+ * {@code pps.delivery.dead_letters} and {@code pps.delivery.backlog}.
+ */
+@Component
+public class MerchantWebhookDispatcher implements DisposableBean {
+
+    public static final String EVENT_ID_HEADER = "X-PPS-Event-Id";
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantWebhookDispatcher.class);
+    private static final String UNDELIVERED_AT_SHUTDOWN = "Undelivered at shutdown";
+
+    private final WebClient webClient;
+    private final MerchantWebhookSigner signer;
+    private final MerchantWebhookDeadLetterRepository deadLetterRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final int queueCapacity;
+    private final int maxConcurrencyPerHost;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration requestTimeout;
+
+    private final ConcurrentHashMap<UUID, MerchantQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+    // Waits out retry backoff and runs dead-letter writes, keeping both off the HTTP event loop
+    private final HierarchicalTimingWheel timingWheel;
+    private volatile boolean closed;
+
+    public MerchantWebhookDispatcher(@Qualifier("merchantCallbackWebClient") WebClient webClient,
+                                     MerchantWebhookSigner signer,
+                                     MerchantWebhookDeadLetterRepository deadLetterRepository,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     HierarchicalTimingWheel timingWheel,
+                                     @Value("${pps.delivery.queue-capacity:1000}") int queueCapacity,
+                                     @Value("${pps.delivery.max-concurrency-per-host:8}") int maxConcurrencyPerHost,
+                                     @Value("${pps.delivery.max-attempts:8}") int maxAttempts,
+                                     @Value("${pps.delivery.initial-backoff:PT1S}") Duration initialBackoff,
+                                     @Value("${pps.delivery.max-backoff:PT10M}") Duration maxBackoff,
+                                     @Value("${pps.delivery.request-timeout:PT10S}") Duration requestTimeout) {
+        this.webClient = webClient;
+        this.signer = signer;
+        this.deadLetterRepository = deadLetterRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.timingWheel = timingWheel;
+        this.queueCapacity = queueCapacity;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Queues {@code event} for delivery to the merchant's current webhook URL. Never waits
+     * on a full queue: the caller is a consumer lane shared with other merchants, so the
+     * event is dead-lettered at once instead. After shutdown has begun the event is
+     * dead-lettered at once too.
+     */
+    public void enqueue(Merchant merchant, PaymentEvent event) {
+        Delivery delivery = new Delivery(merchant.getId(), event.eventId(), event.transactionId(),
+                merchant.getWebhookUrl(), serialize(event));
+        MerchantQueue queue = queues.computeIfAbsent(merchant.getId(), this::newQueue);
+        if (closed) {
+            deadLetter(queue, delivery, null, UNDELIVERED_AT_SHUTDOWN);
+            return;
+        }
+        if (!queue.deliveries.offer(delivery)) {
+            log.warn("Merchant webhook backlog full, dead-lettering | MerchantID={} | TxnID={}", merchant.getId(), event.transactionId());
+            deadLetter(queue, delivery, null, "Backlog of " + queueCapacity + " full");
+            return;
+        }
+        // Shutdown may have swept the queues between the check above and the offer
+        if (closed && queue.deliveries.remove(delivery)) {
+            deadLetter(queue, delivery, null, UNDELIVERED_AT_SHUTDOWN);
+            return;
+        }
+        drain(queue);
+    }
+
+    private void drain(MerchantQueue queue) {
+        if (closed || !queue.inFlight.compareAndSet(false, true)) {
+            return;
+        }
+        Delivery delivery = queue.deliveries.peek();
+        if (delivery == null) {
+            queue.inFlight.set(false);
+            // An enqueue may have slipped in between peek and release
+            if (!queue.deliveries.isEmpty()) {
+                drain(queue);
+            }
+            return;
+        }
+        HostLimiter host = hosts.computeIfAbsent(hostOf(delivery.url()), ignored -> new HostLimiter(maxConcurrencyPerHost));
+        host.acquire(() -> attempt(queue, delivery, host));
+    }
+
+    private void attempt(MerchantQueue queue, Delivery delivery, HostLimiter host) {
+        delivery.attempts++;
+        long started = System.nanoTime();
+        try {
+            webClient.post()
+                    .uri(delivery.url())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(MerchantWebhookSigner.SIGNATURE_HEADER,
+                            signer.sign(delivery.merchantId(), Instant.now().getEpochSecond(), delivery.body()))
+                    .header(EVENT_ID_HEADER, String.valueOf(delivery.eventId()))
+                    .bodyValue(delivery.body())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(requestTimeout)
+                    .subscribe(
+                            response -> completed(queue, delivery, host, started, null),
+                            error -> completed(queue, delivery, host, started, error));
+        } catch (RuntimeException e) {
+            // e.g. an invalid URL, rejected before any request is made
+            completed(queue, delivery, host, started, e);
+        }
+    }
+
+    private void completed(MerchantQueue queue, Delivery delivery, HostLimiter host, long started, Throwable error) {
+        host.release();
+        queue.latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (closed) {
+            // The queue, this delivery included, has already been dead-lettered
+            return;
+        }
+
+        if (error == null) {
+            queue.succeeded.increment();
+            queue.deliveries.poll();
+            queue.inFlight.set(false);
+            drain(queue);
+            return;
+        }
+
+        Integer status = error instanceof WebClientResponseException response ? response.getStatusCode().value() : null;
+        if (isRetryable(status) && delivery.attempts < maxAttempts) {
+            queue.retried.increment();
+            Duration backoff = backoff(delivery.attempts);
+            log.debug("Merchant webhook failed, retrying in {} | MerchantID={} | Attempt={} | Error={}",
+                    backoff, delivery.merchantId(), delivery.attempts, error.getMessage());
+            // The delivery stays at the head of the queue, so later events wait behind it
+            timingWheel.schedule(() -> {
+                queue.inFlight.set(false);
+                drain(queue);
+            }, backoff);
+            return;
+        }
+
+        queue.failed.increment();
+        timingWheel.schedule(() -> {
+            if (closed) {
+                return;
+            }
+            deadLetter(queue, delivery, status, error.getMessage());
+            queue.deliveries.poll();
+            queue.inFlight.set(false);
+            drain(queue);
+        }, Duration.ZERO);
+    }
+
+    private static boolean isRetryable(Integer status) {
+        return status == null || status == 408 || status == 429 || status >= 500;
+    }
+
+    // Exponential with "equal jitter": half the step is fixed, half random
+    private Duration backoff(int attempt) {
+        long step = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 30));
+        return Duration.ofMillis(step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1));
+    }
+
+    private void deadLetter(MerchantQueue queue, Delivery delivery, Integer status, String error) {
+        MerchantWebhookDeadLetter deadLetter = new MerchantWebhookDeadLetter();
+        deadLetter.setMerchantId(delivery.merchantId());
+        deadLetter.setEventId(delivery.eventId());
+        deadLetter.setTransactionId(delivery.transactionId());
+        deadLetter.setUrl(delivery.url());
+        deadLetter.setPayload(delivery.body());
+        deadLetter.setAttempts(delivery.attempts);
+        deadLetter.setLastStatus(status);
+        deadLetter.setLastError(error);
+        try {
+            deadLetterRepository.save(deadLetter);
+            queue.deadLettered.increment();
+            log.warn("Merchant webhook dead-lettered | MerchantID={} | TxnID={} | Attempts={} | Status={} | Error={}",
+                    delivery.merchantId(), delivery.transactionId(), delivery.attempts, status, error);
+        } catch (RuntimeException e) {
+            log.error("Failed to dead-letter merchant webhook, it is lost | MerchantID={} | TxnID={} | Error={}",
+                    delivery.merchantId(), delivery.transactionId(), e.getMessage());
+        }
+    }
+
+    private byte[] serialize(PaymentEvent event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize payment event " + event.eventId(), e);
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.getHost() + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private MerchantQueue newQueue(UUID merchantId) {
+        String merchant = merchantId.toString();
+        MerchantQueue queue = new MerchantQueue(
+                new LinkedBlockingQueue<>(queueCapacity),
+                Timer.builder("pps.delivery.latency").tag("merchant", merchant).register(meterRegistry),
+                Counter.builder("pps.delivery.attempts").tag("merchant", merchant).tag("outcome", "success").register(meterRegistry),
+                Counter.builder("pps.delivery.attempts").tag("merchant", merchant).tag("outcome", "retry").register(meterRegistry),
+                Counter.builder("pps.delivery.attempts").tag("merchant", merchant).tag("outcome", "failed").register(meterRegistry),
+                Counter.builder("pps.delivery.dead_letters").tag("merchant", merchant).register(meterRegistry));
+        Gauge.builder("pps.delivery.backlog", queue.deliveries, Queue::size).tag("merchant", merchant).register(meterRegistry);
+        return queue;
+    }
+
+    /**
+     * Dead-letters everything still queued, including deliveries waiting out a retry
+     * backoff, so events whose offsets were committed at enqueue can be redelivered.
+     * Runs after the listener containers have stopped feeding {@link #enqueue}.
+     */
+    @Override
+    public void destroy() {
+        closed = true;
+        int undelivered = 0;
+        for (MerchantQueue queue : queues.values()) {
+            List<Delivery> pending = new ArrayList<>();
+            queue.deliveries.drainTo(pending);
+            for (Delivery delivery : pending) {
+                deadLetter(queue, delivery, null, UNDELIVERED_AT_SHUTDOWN);
+            }
+            undelivered += pending.size();
+        }
+        if (undelivered > 0) {
+            log.warn("Shutting down, dead-lettered {} undelivered merchant webhook(s) for redelivery", undelivered);
+        }
+    }
+
+    private record MerchantQueue(LinkedBlockingQueue<Delivery> deliveries,
+                                 Timer latency,
+                                 Counter succeeded,
+                                 Counter retried,
+                                 Counter failed,
+                                 Counter deadLettered,
+                                 AtomicBoolean inFlight) {
+        MerchantQueue(LinkedBlockingQueue<Delivery> deliveries, Timer latency, Counter succeeded, Counter retried,
+                      Counter failed, Counter deadLettered) {
+            this(deliveries, latency, succeeded, retried, failed, deadLettered, new AtomicBoolean());
+        }
+    }
+
+    private static final class Delivery {
+        private final UUID merchantId;
+        private final UUID eventId;
+        private final UUID transactionId;
+        private final String url;
+        private final byte[] body;
+        // Only touched by whoever holds the merchant's in-flight slot
+        private int attempts;
+
+        Delivery(UUID merchantId, UUID eventId, UUID transactionId, String url, byte[] body) {
+            this.merchantId = merchantId;
+            this.eventId = eventId;
+            this.transactionId = transactionId;
+            this.url = url;
+            this.body = body;
+        }
+
+        UUID merchantId() { return merchantId; }
+        UUID eventId() { return eventId; }
+        UUID transactionId() { return transactionId; }
+        String url() { return url; }
+        byte[] body() { return body; }
+    }
+
+    /**
+     * Caps concurrent deliveries to one host. Deliveries over the cap wait in FIFO order
+     * and are started by the release of an earlier one, so nothing blocks or polls.
+     */
+    static final class HostLimiter {
+        private final int maxConcurrency;
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int active;
+
+        HostLimiter(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        void acquire(Runnable task) {
+            synchronized (this) {
+                if (active >= maxConcurrency) {
+                    waiting.add(task);
+                    return;
+                }
+                active++;
+            }
+            task.run();
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    active--;
+                }
+            }
+            // The permit passes straight to the next waiter
+            if (next != null) {
+                next.run();
+            }
+        }
+    }
+}
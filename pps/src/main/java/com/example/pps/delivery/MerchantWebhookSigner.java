@@ -0,0 +1,69 @@
+package com.example.pps.delivery;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Signs outbound merchant webhooks.
+ *
+ * Each merchant has its own secret, the hex of {@code HMAC-SHA256(signingKey, merchantId)},
+ * so nothing per merchant has to be stored and rotating {@code pps.delivery.signing-key}
+ * rotates every secret. Merchants receive it at registration and from
+ * {@code GET /api/v1/merchants/me/webhook-secret}. The {@value #SIGNATURE_HEADER} header is
+ * {@code t=<unix seconds>,v1=<hex HMAC-SHA256(secret, t + "." + body)>}, keyed with the
+ * secret string's ASCII bytes; binding the timestamp lets merchants reject replays.
+ */
+@Component
+public class MerchantWebhookSigner {
+
+    public static final String SIGNATURE_HEADER = "X-PPS-Signature";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_SHA256 + " unavailable", e);
+        }
+    });
+
+    private final SecretKeySpec signingKey;
+
+    public MerchantWebhookSigner(@Value("${pps.delivery.signing-key:mock-delivery-signing-key}") String signingKey) {
+        this.signingKey = new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
+    }
+
+    /**
+     * @return the secret to share with the merchant for verifying signatures
+     */
+    public String secretFor(UUID merchantId) {
+        byte[] secret = init(signingKey).doFinal(merchantId.toString().getBytes(StandardCharsets.US_ASCII));
+        return HexFormat.of().formatHex(secret);
+    }
+
+    public String sign(UUID merchantId, long timestampSeconds, byte[] body) {
+        byte[] secret = secretFor(merchantId).getBytes(StandardCharsets.US_ASCII);
+        Mac mac = init(new SecretKeySpec(secret, HMAC_SHA256));
+        mac.update(Long.toString(timestampSeconds).getBytes(StandardCharsets.US_ASCII));
+        mac.update((byte) '.');
+        mac.update(body);
+        return "t=" + timestampSeconds + ",v1=" + HexFormat.of().formatHex(mac.doFinal());
+    }
+
+    private static Mac init(SecretKeySpec key) {
+        Mac mac = MACS.get();
+        try {
+            mac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise webhook signing key", e);
+        }
+        return mac;
+    }
+}
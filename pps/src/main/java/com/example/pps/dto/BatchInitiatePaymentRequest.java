@@ -0,0 +1,14 @@
+package com.example.pps.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchInitiatePaymentRequest {
+
+    @NotEmpty(message = "At least one payment is required")
+    private List<@Valid BatchPaymentItem> payments;
+}
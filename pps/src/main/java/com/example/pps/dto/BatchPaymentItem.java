@@ -0,0 +1,19 @@
+package com.example.pps.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * One payment of a batch initiation; carries its own Idempotency-Key so items can
+ * be retried individually or resubmitted as part of a later batch.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class BatchPaymentItem extends InitiatePaymentRequest {
+
+    @NotBlank(message = "Idempotency key is required")
+    private String idempotencyKey;
+}
@@ -0,0 +1,29 @@
+package com.example.pps.dto;
+
+/**
+ * Outcome of one batch item, streamed as a single NDJSON line.
+ * {@code index} is the item's position in the submitted batch, since results
+ * arrive in completion order.
+ */
+public record BatchPaymentResult(int index,
+                                 String idempotencyKey,
+                                 Outcome outcome,
+                                 InitiatePaymentResponse response,
+                                 String error) {
+
+    public enum Outcome {
+        INITIATED, REPLAYED, FAILED
+    }
+
+    public static BatchPaymentResult initiated(int index, String idempotencyKey, InitiatePaymentResponse response) {
+        return new BatchPaymentResult(index, idempotencyKey, Outcome.INITIATED, response, null);
+    }
+
+    public static BatchPaymentResult replayed(int index, String idempotencyKey, InitiatePaymentResponse response) {
+        return new BatchPaymentResult(index, idempotencyKey, Outcome.REPLAYED, response, null);
+    }
+
+    public static BatchPaymentResult failed(int index, String idempotencyKey, String error) {
+        return new BatchPaymentResult(index, idempotencyKey, Outcome.FAILED, null, error);
+    }
+}
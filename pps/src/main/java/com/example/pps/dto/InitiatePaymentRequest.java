@@ -27,7 +27,4 @@ public class InitiatePaymentRequest {
 
     @NotBlank(message = "Payment gateway is required")
     private String paymentGateway;
-
-    @NotBlank(message = "Merchant API key is required")
-    private String merchantApiKey;
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.pps.dto;
+
+/**
+ * The API key is only ever returned here; the server keeps just its hash. The webhook
+ * secret verifies the {@code X-PPS-Signature} header on deliveries and can be fetched
+ * again from {@code GET /api/v1/merchants/me/webhook-secret}.
+ */
+public record RegisterResponse(String merchantId, String name, String email, String apiKey, String webhookSecret) {
+}
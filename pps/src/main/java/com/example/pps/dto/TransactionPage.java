@@ -0,0 +1,10 @@
+package com.example.pps.dto;
+
+import java.util.List;
+
+/**
+ * One page of transactions; pass {@code nextCursor} back as {@code cursor} to fetch
+ * the next page. It is null on the last page.
+ */
+public record TransactionPage(List<TransactionView> items, String nextCursor) {
+}
@@ -0,0 +1,15 @@
+package com.example.pps.dto;
+
+import com.example.pps.entity.Transaction;
+
+import java.time.Instant;
+
+/**
+ * Optional filters for the transaction listing; null fields are not applied.
+ * {@code from} is inclusive and {@code to} exclusive.
+ */
+public record TransactionQuery(Transaction.Status status,
+                               Transaction.PaymentGateway gateway,
+                               Instant from,
+                               Instant to) {
+}
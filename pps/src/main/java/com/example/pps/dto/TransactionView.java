@@ -0,0 +1,33 @@
+package com.example.pps.dto;
+
+import com.example.pps.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record TransactionView(UUID id,
+                              String merchantRef,
+                              BigDecimal amount,
+                              Transaction.Currency currency,
+                              Transaction.Status status,
+                              Transaction.PaymentGateway paymentGateway,
+                              String pgTransactionRef,
+                              String customerEmail,
+                              Instant createdAt,
+                              Instant updatedAt) {
+
+    public static TransactionView from(Transaction transaction) {
+        return new TransactionView(
+                transaction.getId(),
+                transaction.getMerchantRef(),
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getStatus(),
+                transaction.getPaymentGateway(),
+                transaction.getPgTransactionRef(),
+                transaction.getCustomerEmail(),
+                transaction.getCreatedAt(),
+                transaction.getUpdatedAt());
+    }
+}
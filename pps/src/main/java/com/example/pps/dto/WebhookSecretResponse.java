@@ -0,0 +1,7 @@
+package com.example.pps.dto;
+
+/**
+ * The secret a merchant uses to verify the {@code X-PPS-Signature} header on webhooks.
+ */
+public record WebhookSecretResponse(String merchantId, String webhookSecret) {
+}
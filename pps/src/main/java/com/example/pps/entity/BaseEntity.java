@@ -5,6 +5,7 @@ import jakarta.persistence.MappedSuperclass;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Base entity class for common auditing fields.
@@ -21,8 +22,10 @@ public abstract class BaseEntity {
 
     @PrePersist
     protected void onCreate() {
-        // Use Instant.now() to ensure UTC timestamp is saved immediately before insertion
-        Instant now = Instant.now();
+        // Use Instant.now() to ensure UTC timestamp is saved immediately before insertion.
+        // Truncated to the column's microsecond precision so the in-memory value equals the
+        // stored one and can be used to address the row's partition.
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
         createdAt = now;
         updatedAt = now;
     }
@@ -30,7 +33,7 @@ public abstract class BaseEntity {
     @PreUpdate
     protected void onUpdate() {
         // Update the timestamp whenever the entity is modified
-        updatedAt = Instant.now();
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     // Getters and Setters
@@ -5,13 +5,15 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "merchants")
+@EntityListeners(MerchantChangeListener.class)
 public class Merchant extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @Column(nullable = false, unique = true)
-    private String apiKey;
+    // SHA-256 of the API key; the plaintext key is never stored
+    @Column(name = "api_key_hash", nullable = false, unique = true, length = 64)
+    private String apiKeyHash;
 
     @Column(nullable = false)
     private String name;
@@ -19,13 +21,37 @@ public class Merchant extends BaseEntity {
     @Column
     private String webhookUrl; // For merchant notifications
 
+    // Login email, stored lower-cased; null for merchants that only use an API key
+    @Column(unique = true)
+    private String email;
+
+    // Argon2id hash of the login password
+    @Column(name = "password_hash")
+    private String passwordHash;
+
+    // Opt-in: route to a healthy alternative gateway while the requested one's circuit is open
+    @Column(name = "gateway_failover_enabled", nullable = false, columnDefinition = "boolean default false")
+    private boolean gatewayFailoverEnabled;
+
+    // Selects the merchant's rate-limit policies (pps.rate-limit.policies.<route>.<tier>)
+    @Column(name = "rate_limit_tier", nullable = false, length = 32, columnDefinition = "varchar(32) default 'standard'")
+    private String rateLimitTier = "standard";
+
     // Getters and Setters
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
-    public String getApiKey() { return apiKey; }
-    public void setApiKey(String apiKey) { this.apiKey = apiKey; }
+    public String getApiKeyHash() { return apiKeyHash; }
+    public void setApiKeyHash(String apiKeyHash) { this.apiKeyHash = apiKeyHash; }
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     public String getWebhookUrl() { return webhookUrl; }
     public void setWebhookUrl(String webhookUrl) { this.webhookUrl = webhookUrl; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getPasswordHash() { return passwordHash; }
+    public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+    public boolean isGatewayFailoverEnabled() { return gatewayFailoverEnabled; }
+    public void setGatewayFailoverEnabled(boolean gatewayFailoverEnabled) { this.gatewayFailoverEnabled = gatewayFailoverEnabled; }
+    public String getRateLimitTier() { return rateLimitTier; }
+    public void setRateLimitTier(String rateLimitTier) { this.rateLimitTier = rateLimitTier; }
 }
\ No newline at end of file
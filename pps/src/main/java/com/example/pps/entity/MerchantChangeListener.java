@@ -0,0 +1,41 @@
+package com.example.pps.entity;
+
+import com.example.pps.security.MerchantCacheInvalidator;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Broadcasts merchant changes so every instance drops its cached API-key lookups.
+ * Publishing waits for commit, otherwise a peer could reload and cache the old row.
+ */
+@Component
+public class MerchantChangeListener {
+
+    // Resolved lazily: Hibernate instantiates listeners while the EntityManagerFactory is still being built
+    private final ObjectProvider<MerchantCacheInvalidator> invalidator;
+
+    public MerchantChangeListener(ObjectProvider<MerchantCacheInvalidator> invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Merchant merchant) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidator.getObject().publish(merchant.getId(), merchant.getApiKeyHash());
+                }
+            });
+        } else {
+            invalidator.getObject().publish(merchant.getId(), merchant.getApiKeyHash());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.pps.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * A merchant notification that could not be delivered, kept with the exact signed body
+ * so it can be inspected and redelivered.
+ */
+@Entity
+@Table(
+        name = "merchant_webhook_dead_letters",
+        indexes = {
+                @Index(name = "idx_merchant_webhook_dead_letters_merchant", columnList = "merchant_id, created_at")
+        })
+public class MerchantWebhookDeadLetter {
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "merchant_id", nullable = false)
+    private UUID merchantId;
+
+    @Column(name = "event_id")
+    private UUID eventId;
+
+    @Column(name = "transaction_id")
+    private UUID transactionId;
+
+    @Column(nullable = false, length = 2048)
+    private String url;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_status")
+    private Integer lastStatus;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public UUID getMerchantId() { return merchantId; }
+    public void setMerchantId(UUID merchantId) { this.merchantId = merchantId; }
+    public UUID getEventId() { return eventId; }
+    public void setEventId(UUID eventId) { this.eventId = eventId; }
+    public UUID getTransactionId() { return transactionId; }
+    public void setTransactionId(UUID transactionId) { this.transactionId = transactionId; }
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public Integer getLastStatus() { return lastStatus; }
+    public void setLastStatus(Integer lastStatus) { this.lastStatus = lastStatus; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    @PrePersist
+    protected void onPrePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+}
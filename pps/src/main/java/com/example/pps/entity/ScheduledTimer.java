@@ -0,0 +1,64 @@
+package com.example.pps.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * A durable timer; see {@link com.example.pps.timer.DurableTimers}. {@code kind} selects
+ * the {@link com.example.pps.timer.TimerHandler} and {@code (kind, timerKey)} is unique,
+ * so scheduling the same key again moves the existing timer.
+ */
+@Entity
+@Table(name = "scheduled_timers")
+public class ScheduledTimer {
+    @Id
+    private UUID id;
+
+    @Column(nullable = false, length = 64)
+    private String kind;
+
+    @Column(name = "timer_key", nullable = false)
+    private String timerKey;
+
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "due_at", nullable = false)
+    private Instant dueAt;
+
+    @Column(length = 64)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public String getKind() { return kind; }
+    public void setKind(String kind) { this.kind = kind; }
+    public String getTimerKey() { return timerKey; }
+    public void setTimerKey(String timerKey) { this.timerKey = timerKey; }
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    public Instant getDueAt() { return dueAt; }
+    public void setDueAt(Instant dueAt) { this.dueAt = dueAt; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    @PrePersist
+    protected void onPrePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
+}
@@ -3,14 +3,30 @@ package com.example.pps.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(
+        name = "transactions",
+        uniqueConstraints = {
+                // Idempotency keys are scoped per merchant. On Postgres the table is partitioned and this is
+                // enforced through transaction_idempotency_keys instead (see V1__partitioned_schema.sql).
+                @UniqueConstraint(name = "uk_transactions_merchant_idempotency_key", columnNames = {"merchant_id", "idempotency_key"})
+        },
+        indexes = {
+                // Keyset pagination of a merchant's transactions, newest first
+                @Index(name = "idx_transactions_merchant_created", columnList = "merchant_id, created_at, id"),
+                @Index(name = "idx_transactions_merchant_status_created", columnList = "merchant_id, status, created_at, id"),
+                // Webhook lookups
+                @Index(name = "idx_transactions_merchant_ref", columnList = "merchant_ref"),
+                @Index(name = "idx_transactions_pg_ref", columnList = "pg_transaction_ref, payment_gateway")
+        })
 @Data
 public class Transaction extends BaseEntity {
     @Id
-    @GeneratedValue
+    @UuidV7
     @Column(name = "id", updatable = false, nullable = false)
     private UUID id;
 
@@ -23,6 +39,10 @@ public class Transaction extends BaseEntity {
     @Column(name = "idempotency_key", nullable = false)
     private String idempotencyKey;
 
+    // SHA-256 of the initiating request body, to reject a key replayed with a different body
+    @Column(name = "request_fingerprint", length = 64)
+    private String requestFingerprint;
+
     @Column(name = "pg_transaction_ref")
     private String pgTransactionRef;
 
@@ -45,7 +65,7 @@ public class Transaction extends BaseEntity {
     private PaymentGateway paymentGateway;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "status", nullable = false)
+    @Column(name = "status", nullable = false, columnDefinition = "varchar(255)")
     private Status status;
 
     @Column(name = "metadata", columnDefinition = "TEXT")
@@ -59,8 +79,38 @@ public class Transaction extends BaseEntity {
         PAYSTACK, FLUTTERWAVE
     }
 
+    /**
+     * INITIATING marks a row that has been reserved but whose gateway call has not
+     * been finalized yet. Rows left in this state by a crash are failed by
+     * {@link com.example.pps.service.InitiationRecoveryJob}.
+     *
+     * Legal transitions:
+     * <pre>
+     * INITIATING -> PENDING | FAILED     (owned by the initiating request and its recovery)
+     * PENDING    -> COMPLETED | FAILED   (settlement, e.g. by webhook)
+     * </pre>
+     * COMPLETED and FAILED are terminal. Transitions are applied with a conditional
+     * update on the current status (see {@code TransactionRepository#transitionStatus}),
+     * never by read-modify-write.
+     */
     public enum Status {
-        PENDING, COMPLETED, FAILED
+        INITIATING, PENDING, COMPLETED, FAILED;
+
+        /**
+         * @return the states from which a transaction may move to this one
+         */
+        public Set<Status> predecessors() {
+            return switch (this) {
+                case INITIATING -> EnumSet.noneOf(Status.class);
+                case PENDING -> EnumSet.of(INITIATING);
+                case COMPLETED -> EnumSet.of(PENDING);
+                case FAILED -> EnumSet.of(INITIATING, PENDING);
+            };
+        }
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED;
+        }
     }
 
     public enum Currency {
@@ -1,5 +1,6 @@
 package com.example.pps.entity;
 
+import com.example.pps.webhook.WebhookPayloadCodec;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
@@ -7,16 +8,33 @@ import java.util.UUID;
 @Entity
 @Table(
         name = "webhook_events",
-        uniqueConstraints = {
-                @UniqueConstraint(columnNames = {"transaction_id", "paymentGateway"})
+        // Not unique: webhook_events is partitioned by created_at, which a unique index would have to include
+        indexes = {
+                @Index(name = "idx_webhook_events_transaction_gateway", columnList = "transaction_id, payment_gateway"),
+                @Index(name = "idx_webhook_events_reference", columnList = "reference, payment_gateway")
         })
 public class WebhookEvent extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @Column(nullable = false, columnDefinition = "TEXT") // Set columnDefinition for potentially large payloads
-    private String payload;
+    /** Raw body as received, encoded by {@link WebhookPayloadCodec}. */
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] payload;
+
+    /** Size of the raw body before compression. */
+    @Column(name = "payload_size")
+    private Integer payloadSize;
+
+    // Extracted from the payload at ingest so events can be searched without decoding them
+    @Column(name = "event_type", length = 64)
+    private String eventType;
+
+    @Column(length = 255)
+    private String reference;
+
+    @Column(length = 64)
+    private String status;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -36,8 +54,16 @@ public class WebhookEvent extends BaseEntity {
     // Getters and Setters
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
-    public String getPayload() { return payload; }
-    public void setPayload(String payload) { this.payload = payload; }
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+    public Integer getPayloadSize() { return payloadSize; }
+    public void setPayloadSize(Integer payloadSize) { this.payloadSize = payloadSize; }
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
     public PaymentGateway getPaymentGateway() { return paymentGateway; }
     public void setPaymentGateway(PaymentGateway paymentGateway) { this.paymentGateway = paymentGateway; }
     public Instant getReceivedAt() { return receivedAt; }
@@ -45,6 +71,22 @@ public class WebhookEvent extends BaseEntity {
     public Transaction getTransaction() { return transaction; }
     public void setTransaction(Transaction transaction) { this.transaction = transaction; }
 
+    /**
+     * Stores {@code rawBody} compressed, exactly as the gateway sent it.
+     */
+    public void setRawPayload(byte[] rawBody) {
+        this.payload = WebhookPayloadCodec.encode(rawBody);
+        this.payloadSize = rawBody.length;
+    }
+
+    /**
+     * @return the body as received, or the legacy text rendering for rows stored
+     *         before raw payloads were kept (see {@link WebhookPayloadCodec#isReplayable})
+     */
+    public byte[] decodePayload() {
+        return WebhookPayloadCodec.decode(payload);
+    }
+
     /**
      * Set the receivedAt field before persisting.
      * Note: createdAt and updatedAt are handled by BaseEntity.
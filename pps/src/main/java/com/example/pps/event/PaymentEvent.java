@@ -0,0 +1,31 @@
+package com.example.pps.event;
+
+import com.example.pps.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A change of a transaction's status, as published on {@code merchant-notifications}.
+ * Encoded with {@link PaymentEventCodec}; deliberately carries no merchant secrets and
+ * no entity types.
+ *
+ * @param eventId              unique per event, for consumer-side deduplication
+ * @param transactionCreatedAt with {@code transactionId}, addresses the transaction's partition
+ * @param pgTransactionRef     may be null
+ * @param previousStatus       may be null when unknown
+ */
+public record PaymentEvent(UUID eventId,
+                           UUID transactionId,
+                           Instant transactionCreatedAt,
+                           UUID merchantId,
+                           String merchantRef,
+                           String pgTransactionRef,
+                           Transaction.PaymentGateway paymentGateway,
+                           BigDecimal amount,
+                           Transaction.Currency currency,
+                           Transaction.Status previousStatus,
+                           Transaction.Status status,
+                           Instant occurredAt) {
+}
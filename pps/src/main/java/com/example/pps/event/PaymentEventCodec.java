@@ -0,0 +1,295 @@
+package com.example.pps.event;
+
+import com.example.pps.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of {@link PaymentEvent}.
+ *
+ * A version byte ({@value #VERSION}) is followed by protobuf-style tagged fields:
+ * each field is a varint key {@code (fieldNumber << 3) | wireType} and a value that is
+ * a varint (wire type 0) or length-prefixed bytes (wire type 2). Absent (null) fields
+ * are simply not written. This keeps the schema evolvable without a registry:
+ * <ul>
+ *   <li>readers skip field numbers they do not know, so new fields can be added;</li>
+ *   <li>readers leave fields missing from older writers null;</li>
+ *   <li>enum values are written as the fixed codes below, not ordinals or names, and a
+ *       code a reader does not know decodes as null.</li>
+ * </ul>
+ * Never reuse or renumber a field or enum code; append new ones. Bump {@link #VERSION}
+ * only for an incompatible change.
+ */
+public final class PaymentEventCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int VARINT = 0;
+    private static final int BYTES = 2;
+
+    private static final int EVENT_ID = 1;
+    private static final int TRANSACTION_ID = 2;
+    private static final int TRANSACTION_CREATED_AT = 3;
+    private static final int MERCHANT_ID = 4;
+    private static final int MERCHANT_REF = 5;
+    private static final int PG_TRANSACTION_REF = 6;
+    private static final int PAYMENT_GATEWAY = 7;
+    private static final int AMOUNT_UNSCALED = 8;
+    private static final int AMOUNT_SCALE = 9;
+    private static final int CURRENCY = 10;
+    private static final int PREVIOUS_STATUS = 11;
+    private static final int STATUS = 12;
+    private static final int OCCURRED_AT = 13;
+
+    // Index = wire code; 0 is reserved for "absent"
+    private static final Transaction.PaymentGateway[] GATEWAYS = {null, Transaction.PaymentGateway.PAYSTACK, Transaction.PaymentGateway.FLUTTERWAVE};
+    private static final Transaction.Currency[] CURRENCIES = {null, Transaction.Currency.NGN, Transaction.Currency.USD, Transaction.Currency.EUR};
+    private static final Transaction.Status[] STATUSES = {null, Transaction.Status.INITIATING, Transaction.Status.PENDING,
+            Transaction.Status.COMPLETED, Transaction.Status.FAILED};
+
+    private PaymentEventCodec() {
+    }
+
+    public static byte[] encode(PaymentEvent event) {
+        Writer out = new Writer();
+        out.buffer[out.length++] = VERSION;
+        out.uuid(EVENT_ID, event.eventId());
+        out.uuid(TRANSACTION_ID, event.transactionId());
+        out.instant(TRANSACTION_CREATED_AT, event.transactionCreatedAt());
+        out.uuid(MERCHANT_ID, event.merchantId());
+        out.string(MERCHANT_REF, event.merchantRef());
+        out.string(PG_TRANSACTION_REF, event.pgTransactionRef());
+        out.code(PAYMENT_GATEWAY, GATEWAYS, event.paymentGateway());
+        if (event.amount() != null) {
+            BigDecimal amount = event.amount();
+            out.field(AMOUNT_UNSCALED, VARINT);
+            // Throws for unscaled amounts beyond a long, i.e. above ~9.2e16 major units at scale 2
+            out.varint(zigZag(amount.unscaledValue().longValueExact()));
+            out.field(AMOUNT_SCALE, VARINT);
+            out.varint(zigZag(amount.scale()));
+        }
+        out.code(CURRENCY, CURRENCIES, event.currency());
+        out.code(PREVIOUS_STATUS, STATUSES, event.previousStatus());
+        out.code(STATUS, STATUSES, event.status());
+        out.instant(OCCURRED_AT, event.occurredAt());
+        return Arrays.copyOf(out.buffer, out.length);
+    }
+
+    public static PaymentEvent decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            throw new IllegalArgumentException("Empty payment event");
+        }
+        if (bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported payment event version: " + bytes[0]);
+        }
+
+        UUID eventId = null, transactionId = null, merchantId = null;
+        Instant transactionCreatedAt = null, occurredAt = null;
+        String merchantRef = null, pgTransactionRef = null;
+        Transaction.PaymentGateway gateway = null;
+        Transaction.Currency currency = null;
+        Transaction.Status previousStatus = null, status = null;
+        Long amountUnscaled = null;
+        int amountScale = 0;
+
+        Reader in = new Reader(bytes, 1);
+        while (in.position < bytes.length) {
+            long key = in.varint();
+            int fieldNumber = (int) (key >>> 3);
+            int wireType = (int) (key & 7);
+            switch (fieldNumber) {
+                case EVENT_ID -> eventId = in.uuid(wireType);
+                case TRANSACTION_ID -> transactionId = in.uuid(wireType);
+                case TRANSACTION_CREATED_AT -> transactionCreatedAt = in.instant(wireType);
+                case MERCHANT_ID -> merchantId = in.uuid(wireType);
+                case MERCHANT_REF -> merchantRef = in.string(wireType);
+                case PG_TRANSACTION_REF -> pgTransactionRef = in.string(wireType);
+                case PAYMENT_GATEWAY -> gateway = in.code(wireType, GATEWAYS);
+                case AMOUNT_UNSCALED -> amountUnscaled = unZigZag(in.expectVarint(wireType));
+                case AMOUNT_SCALE -> amountScale = (int) unZigZag(in.expectVarint(wireType));
+                case CURRENCY -> currency = in.code(wireType, CURRENCIES);
+                case PREVIOUS_STATUS -> previousStatus = in.code(wireType, STATUSES);
+                case STATUS -> status = in.code(wireType, STATUSES);
+                case OCCURRED_AT -> occurredAt = in.instant(wireType);
+                default -> in.skip(wireType);
+            }
+        }
+
+        BigDecimal amount = amountUnscaled == null ? null : BigDecimal.valueOf(amountUnscaled, amountScale);
+        return new PaymentEvent(eventId, transactionId, transactionCreatedAt, merchantId, merchantRef, pgTransactionRef,
+                gateway, amount, currency, previousStatus, status, occurredAt);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int length;
+
+        void field(int number, int wireType) {
+            varint(((long) number << 3) | wireType);
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void bytes(int number, byte[] value) {
+            field(number, BYTES);
+            varint(value.length);
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, length, value.length);
+            length += value.length;
+        }
+
+        void uuid(int number, UUID value) {
+            if (value == null) {
+                return;
+            }
+            field(number, BYTES);
+            varint(16);
+            ensure(16);
+            putLong(value.getMostSignificantBits());
+            putLong(value.getLeastSignificantBits());
+        }
+
+        void string(int number, String value) {
+            if (value != null) {
+                bytes(number, value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void instant(int number, Instant value) {
+            if (value != null) {
+                field(number, VARINT);
+                varint(zigZag(ChronoUnit.MICROS.between(Instant.EPOCH, value)));
+            }
+        }
+
+        <E> void code(int number, E[] codes, E value) {
+            if (value == null) {
+                return;
+            }
+            for (int code = 1; code < codes.length; code++) {
+                if (codes[code] == value) {
+                    field(number, VARINT);
+                    varint(code);
+                    return;
+                }
+            }
+            throw new IllegalArgumentException("No wire code for " + value);
+        }
+
+        private void putLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in payment event");
+        }
+
+        long expectVarint(int wireType) {
+            if (wireType != VARINT) {
+                throw new IllegalArgumentException("Unexpected wire type " + wireType + " in payment event");
+            }
+            return varint();
+        }
+
+        byte[] bytes(int wireType) {
+            if (wireType != BYTES) {
+                throw new IllegalArgumentException("Unexpected wire type " + wireType + " in payment event");
+            }
+            int length = (int) varint();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated payment event");
+            }
+            byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return value;
+        }
+
+        UUID uuid(int wireType) {
+            byte[] value = bytes(wireType);
+            if (value.length != 16) {
+                throw new IllegalArgumentException("Malformed UUID in payment event");
+            }
+            long most = 0, least = 0;
+            for (int i = 0; i < 8; i++) {
+                most = (most << 8) | (value[i] & 0xFF);
+                least = (least << 8) | (value[i + 8] & 0xFF);
+            }
+            return new UUID(most, least);
+        }
+
+        String string(int wireType) {
+            return new String(bytes(wireType), StandardCharsets.UTF_8);
+        }
+
+        Instant instant(int wireType) {
+            return Instant.EPOCH.plus(unZigZag(expectVarint(wireType)), ChronoUnit.MICROS);
+        }
+
+        <E> E code(int wireType, E[] codes) {
+            long code = expectVarint(wireType);
+            // Unknown codes come from newer writers; leave the field unset
+            return code > 0 && code < codes.length ? codes[(int) code] : null;
+        }
+
+        void skip(int wireType) {
+            switch (wireType) {
+                case VARINT -> varint();
+                case BYTES -> bytes(wireType);
+                default -> throw new IllegalArgumentException("Unsupported wire type " + wireType + " in payment event");
+            }
+        }
+
+        private byte next() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated payment event");
+            }
+            return bytes[position++];
+        }
+    }
+}
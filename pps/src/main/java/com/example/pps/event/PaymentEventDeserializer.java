@@ -0,0 +1,14 @@
+package com.example.pps.event;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka deserializer for {@link PaymentEvent}, see {@link PaymentEventCodec}.
+ */
+public class PaymentEventDeserializer implements Deserializer<PaymentEvent> {
+
+    @Override
+    public PaymentEvent deserialize(String topic, byte[] data) {
+        return data == null ? null : PaymentEventCodec.decode(data);
+    }
+}
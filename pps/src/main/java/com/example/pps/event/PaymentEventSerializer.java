@@ -0,0 +1,14 @@
+package com.example.pps.event;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer for {@link PaymentEvent}, see {@link PaymentEventCodec}.
+ */
+public class PaymentEventSerializer implements Serializer<PaymentEvent> {
+
+    @Override
+    public byte[] serialize(String topic, PaymentEvent event) {
+        return event == null ? null : PaymentEventCodec.encode(event);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.pps.exception;
+
+public class GatewayUnavailableException extends RuntimeException {
+
+    public GatewayUnavailableException(String message) {
+        super(message);
+    }
+}
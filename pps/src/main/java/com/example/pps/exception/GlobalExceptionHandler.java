@@ -1,10 +1,13 @@
 package com.example.pps.exception;
 
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +31,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
 
+    // Handle query parameters that do not convert (unknown status, malformed timestamp)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Invalid value for parameter '" + ex.getName() + "'"));
+    }
+
     // Handle invalid merchant keys
     @ExceptionHandler(InvalidMerchantKeyException.class)
     public ResponseEntity<Map<String, String>> handleInvalidMerchantKey(InvalidMerchantKeyException ex) {
@@ -38,6 +47,69 @@ public class GlobalExceptionHandler {
                 ));
     }
 
+    // Handle an Idempotency-Key reused with a different request body
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        return ResponseEntity.unprocessableEntity()
+                .body(Map.of(
+                        "error", "Idempotency Key Reused",
+                        "message", ex.getMessage()
+                ));
+    }
+
+    // Handle a duplicate of a request still being processed on another instance
+    @ExceptionHandler(IdempotentRequestInProgressException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotentRequestInProgress(IdempotentRequestInProgressException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "error", "Request In Progress",
+                        "message", ex.getMessage()
+                ));
+    }
+
+    // Handle gateways whose circuit breaker is open
+    @ExceptionHandler(GatewayUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleGatewayUnavailable(GatewayUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of(
+                        "error", "Payment Gateway Unavailable",
+                        "message", ex.getMessage()
+                ));
+    }
+
+    // Handle webhooks that could not be made durable; gateways retry on non-2xx
+    @ExceptionHandler(WebhookIngestionException.class)
+    public ResponseEntity<Map<String, String>> handleWebhookIngestion(WebhookIngestionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of(
+                        "error", "Webhook Not Accepted",
+                        "message", ex.getMessage()
+                ));
+    }
+
+    // Handle failed logins; the message never says whether the email exists
+    @ExceptionHandler(InvalidCredentialsException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCredentials(InvalidCredentialsException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of(
+                        "error", "Invalid Credentials",
+                        "message", ex.getMessage()
+                ));
+    }
+
+    // Handle work shed by a full bounded executor (e.g. password hashing)
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleTaskRejected(TaskRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "error", "Server Busy",
+                        "message", "Too many concurrent requests. Try again shortly."
+                ));
+    }
+
     // Fallback handler for all other exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneric(Exception ex) {
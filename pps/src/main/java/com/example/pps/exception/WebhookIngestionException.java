@@ -0,0 +1,11 @@
+package com.example.pps.exception;
+
+/**
+ * A verified webhook could not be durably accepted; the gateway should retry it.
+ */
+public class WebhookIngestionException extends RuntimeException {
+
+    public WebhookIngestionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
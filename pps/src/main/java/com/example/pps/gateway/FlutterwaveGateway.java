@@ -1,49 +1,112 @@
 package com.example.pps.gateway;
 
+import com.example.pps.config.HttpClientConfig;
+import com.example.pps.config.HttpClientProperties;
 import com.example.pps.dto.InitiatePaymentRequest;
 import com.example.pps.dto.InitiatePaymentResponse;
 import com.example.pps.entity.Transaction;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class FlutterwaveGateway implements GatewayProvider {
-    private final String secretKey;
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE = new ParameterizedTypeReference<>() {};
 
-    public FlutterwaveGateway(@Value("${flutterwave.secret-key:mock-flutterwave-key}") String secretKey) {
-        this.secretKey = secretKey;
+    private final String redirectUrl;
+    private final WebClient webClient;
+    private final Duration totalTimeout;
+
+    public FlutterwaveGateway(@Value("${flutterwave.secret-key:mock-flutterwave-key}") String secretKey,
+                              @Value("${flutterwave.api-url:https://api.flutterwave.com/v3}") String apiUrl,
+                              @Value("${flutterwave.redirect-url:http://localhost:8080/payments/complete}") String redirectUrl,
+                              @Qualifier("flutterwaveWebClient") WebClient webClient,
+                              HttpClientProperties httpClientProperties) {
+        this.redirectUrl = redirectUrl;
+        this.totalTimeout = httpClientProperties.client(HttpClientConfig.FLUTTERWAVE).getTotalTimeout();
+        this.webClient = webClient.mutate()
+                .baseUrl(apiUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + secretKey)
+                .build();
     }
 
     @Override
-    public InitiatePaymentResponse initiatePayment(InitiatePaymentRequest request, Transaction transaction) {
-        InitiatePaymentResponse response = new InitiatePaymentResponse();
-        response.setTransactionId(UUID.randomUUID());
-        response.setStatus("PENDING");
-        response.setAuthorizationUrl("https://mock.flutterwave.com/v3/" + UUID.randomUUID());
-        return response;
+    public CompletableFuture<InitiatePaymentResponse> initiatePaymentAsync(InitiatePaymentRequest request, Transaction transaction) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("tx_ref", transaction.getMerchantRef());
+        body.put("amount", transaction.getAmount());
+        body.put("currency", transaction.getCurrency().toString());
+        body.put("redirect_url", redirectUrl);
+        body.put("customer", Map.of("email", transaction.getCustomerEmail()));
+
+        return webClient.post()
+                .uri("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .timeout(totalTimeout)
+                .map(response -> toInitiatePaymentResponse(response, transaction))
+                .toFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private InitiatePaymentResponse toInitiatePaymentResponse(Map<String, Object> response, Transaction transaction) {
+        if (response == null || !"success".equals(response.get("status"))) {
+            throw new RuntimeException("Failed to initialize payment with Flutterwave: " +
+                    (response != null ? response.get("message") : "No response"));
+        }
+
+        Map<String, Object> data = (Map<String, Object>) response.get("data");
+        if (data == null || data.get("link") == null) {
+            throw new RuntimeException("Flutterwave response missing 'data.link' field");
+        }
+
+        // Flutterwave only assigns its own id once the customer pays, so the hosted link is all we get here
+        InitiatePaymentResponse result = new InitiatePaymentResponse();
+        result.setTransactionId(UUID.randomUUID());
+        result.setStatus("PENDING");
+        result.setAuthorizationUrl((String) data.get("link"));
+        result.setAmount(transaction.getAmount());
+        return result;
     }
 
     @Override
-    public void verifyWebhookSignature(String payload, String signature) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(keySpec);
-            byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            String computedSignature = Base64.getEncoder().encodeToString(hash);
-            if (!computedSignature.equals(signature)) {
-                throw new SecurityException("Invalid Flutterwave webhook signature");
-            }
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("Signature verification failed", e);
+    public CompletableFuture<GatewayVerification> verifyTransactionAsync(String merchantRef) {
+        return webClient.get()
+                .uri(uri -> uri.path("/transactions/verify_by_reference").queryParam("tx_ref", merchantRef).build())
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .timeout(totalTimeout)
+                .map(this::toGatewayVerification)
+                .toFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private GatewayVerification toGatewayVerification(Map<String, Object> response) {
+        if (response == null || !"success".equals(response.get("status"))) {
+            throw new RuntimeException("Failed to verify transaction with Flutterwave: " +
+                    (response != null ? response.get("message") : "No response"));
+        }
+        Map<String, Object> data = (Map<String, Object>) response.get("data");
+        if (data == null || data.get("status") == null) {
+            throw new RuntimeException("Flutterwave response missing 'data.status' field");
         }
+        String status = data.get("status").toString();
+        return new GatewayVerification(switch (status.toLowerCase()) {
+            case "successful" -> Transaction.Status.COMPLETED;
+            case "failed" -> Transaction.Status.FAILED;
+            default -> Transaction.Status.PENDING;
+        }, status);
     }
-}
\ No newline at end of file
+}
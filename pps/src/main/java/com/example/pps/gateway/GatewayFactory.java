@@ -3,14 +3,23 @@ package com.example.pps.gateway;
 import com.example.pps.entity.Transaction;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @Component
 public class GatewayFactory {
     private final PaystackGateway paystackGateway;
     private final FlutterwaveGateway flutterwaveGateway;
+    private final GatewayRouter gatewayRouter;
+    private final Map<Transaction.PaymentGateway, GatewayProvider> monitoredGateways = new EnumMap<>(Transaction.PaymentGateway.class);
 
-    public GatewayFactory(PaystackGateway paystackGateway, FlutterwaveGateway flutterwaveGateway) {
+    public GatewayFactory(PaystackGateway paystackGateway, FlutterwaveGateway flutterwaveGateway, GatewayRouter gatewayRouter) {
         this.paystackGateway = paystackGateway;
         this.flutterwaveGateway = flutterwaveGateway;
+        this.gatewayRouter = gatewayRouter;
+        for (Transaction.PaymentGateway gateway : Transaction.PaymentGateway.values()) {
+            monitoredGateways.put(gateway, new MonitoredGatewayProvider(gateway, getGateway(gateway), gatewayRouter.health(gateway)));
+        }
     }
 
     public GatewayProvider getGateway(Transaction.PaymentGateway gateway) {
@@ -19,4 +28,23 @@ public class GatewayFactory {
             case FLUTTERWAVE -> flutterwaveGateway;
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the gateway behind its circuit breaker, for calls that must reach this
+     *         particular gateway (e.g. verifying a transaction it owns)
+     */
+    public GatewayProvider monitoredGateway(Transaction.PaymentGateway gateway) {
+        return monitoredGateways.get(gateway);
+    }
+
+    /**
+     * Routes a payment to the requested gateway, or to a healthy alternative when the
+     * requested gateway's circuit is open and the merchant allows failover.
+     *
+     * @throws com.example.pps.exception.GatewayUnavailableException if no permitted gateway is available
+     */
+    public GatewayRoute route(Transaction.PaymentGateway requested, boolean failoverAllowed) {
+        Transaction.PaymentGateway chosen = gatewayRouter.select(requested, failoverAllowed);
+        return new GatewayRoute(chosen, monitoredGateways.get(chosen));
+    }
+}
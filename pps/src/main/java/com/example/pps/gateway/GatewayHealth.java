@@ -0,0 +1,136 @@
+package com.example.pps.gateway;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free health tracker and circuit breaker for a single payment gateway.
+ *
+ * Latency and error rate are exponentially weighted moving averages kept as
+ * double bits in {@link AtomicLong}s and updated with CAS loops, so recording an
+ * outcome from many I/O threads never blocks. Calls slower than the slow-call
+ * threshold count as failures, which lets a brownout (slow but not erroring)
+ * open the circuit as well as a hard outage.
+ */
+public class GatewayHealth {
+
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double alpha;
+    private final double failureRateThreshold;
+    private final long minimumCalls;
+    private final long slowCallThresholdNanos;
+    private final long openDurationNanos;
+
+    private final AtomicLong ewmaLatencyNanos = new AtomicLong(Double.doubleToLongBits(0d));
+    private final AtomicLong ewmaErrorRate = new AtomicLong(Double.doubleToLongBits(0d));
+    private final AtomicLong callsSinceClosed = new AtomicLong();
+    private final AtomicInteger state = new AtomicInteger(CircuitState.CLOSED.ordinal());
+    private final AtomicLong openedAtNanos = new AtomicLong();
+    private final LongAdder totalCalls = new LongAdder();
+    private final LongAdder totalFailures = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    public GatewayHealth(double alpha,
+                         double failureRateThreshold,
+                         long minimumCalls,
+                         Duration slowCallThreshold,
+                         Duration openDuration) {
+        this.alpha = alpha;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.slowCallThresholdNanos = slowCallThreshold.toNanos();
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Whether a call may be sent now. Once the open period has elapsed exactly one
+     * caller wins the transition to HALF_OPEN and is let through as the probe.
+     */
+    public boolean tryAcquirePermission() {
+        CircuitState current = state();
+        if (current == CircuitState.CLOSED) {
+            return true;
+        }
+        if (current == CircuitState.OPEN
+                && System.nanoTime() - openedAtNanos.get() >= openDurationNanos
+                && state.compareAndSet(CircuitState.OPEN.ordinal(), CircuitState.HALF_OPEN.ordinal())) {
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Non-mutating variant of {@link #tryAcquirePermission()} used when choosing a route.
+     */
+    public boolean isCallPermitted() {
+        CircuitState current = state();
+        return current == CircuitState.CLOSED
+                || (current == CircuitState.OPEN && System.nanoTime() - openedAtNanos.get() >= openDurationNanos);
+    }
+
+    public void record(long latencyNanos, boolean success) {
+        boolean failure = !success || latencyNanos >= slowCallThresholdNanos;
+        totalCalls.increment();
+        if (failure) {
+            totalFailures.increment();
+        }
+        updateEwma(ewmaLatencyNanos, latencyNanos, true);
+        double errorRate = updateEwma(ewmaErrorRate, failure ? 1d : 0d, false);
+
+        if (state() == CircuitState.HALF_OPEN) {
+            if (failure) {
+                open(CircuitState.HALF_OPEN);
+            } else if (state.compareAndSet(CircuitState.HALF_OPEN.ordinal(), CircuitState.CLOSED.ordinal())) {
+                callsSinceClosed.set(0);
+                ewmaErrorRate.set(Double.doubleToLongBits(0d));
+            }
+            return;
+        }
+
+        long calls = callsSinceClosed.incrementAndGet();
+        if (calls >= minimumCalls && errorRate >= failureRateThreshold) {
+            open(CircuitState.CLOSED);
+        }
+    }
+
+    private void open(CircuitState from) {
+        if (state.compareAndSet(from.ordinal(), CircuitState.OPEN.ordinal())) {
+            openedAtNanos.set(System.nanoTime());
+        }
+    }
+
+    private double updateEwma(AtomicLong target, double sample, boolean seedWithFirstSample) {
+        while (true) {
+            long currentBits = target.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double next = seedWithFirstSample && current == 0d
+                    ? sample
+                    : current + alpha * (sample - current);
+            if (target.compareAndSet(currentBits, Double.doubleToLongBits(next))) {
+                return next;
+            }
+        }
+    }
+
+    public CircuitState state() {
+        return CircuitState.values()[state.get()];
+    }
+
+    public double ewmaLatencyMillis() {
+        return Double.longBitsToDouble(ewmaLatencyNanos.get()) / 1_000_000d;
+    }
+
+    public double errorRate() {
+        return Double.longBitsToDouble(ewmaErrorRate.get());
+    }
+
+    public long totalCalls() { return totalCalls.sum(); }
+    public long totalFailures() { return totalFailures.sum(); }
+    public long rejectedCalls() { return rejectedCalls.sum(); }
+}
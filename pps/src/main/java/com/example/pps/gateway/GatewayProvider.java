@@ -4,8 +4,35 @@ import com.example.pps.dto.InitiatePaymentRequest;
 import com.example.pps.dto.InitiatePaymentResponse;
 import com.example.pps.entity.Transaction;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 public interface GatewayProvider {
-    InitiatePaymentResponse initiatePayment(InitiatePaymentRequest request, Transaction transaction);
-    void verifyWebhookSignature(String payload, String signature);  // For security
-    // Add more methods as needed (e.g., verifyTransaction)
-}
\ No newline at end of file
+    /**
+     * Initiates the payment without blocking the calling thread. The returned future
+     * completes on the HTTP client's I/O thread, so callers must not block or touch
+     * the database in dependent stages without switching executors.
+     */
+    CompletableFuture<InitiatePaymentResponse> initiatePaymentAsync(InitiatePaymentRequest request, Transaction transaction);
+
+    /**
+     * Blocking bridge over {@link #initiatePaymentAsync} for callers that are not async-aware.
+     */
+    default InitiatePaymentResponse initiatePayment(InitiatePaymentRequest request, Transaction transaction) {
+        try {
+            return initiatePaymentAsync(request, transaction).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asks the gateway for the current status of the transaction it knows by
+     * {@code merchantRef}. Like {@link #initiatePaymentAsync}, the future completes on
+     * the HTTP client's I/O thread.
+     */
+    CompletableFuture<GatewayVerification> verifyTransactionAsync(String merchantRef);
+}
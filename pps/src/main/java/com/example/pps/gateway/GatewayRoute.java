@@ -0,0 +1,9 @@
+package com.example.pps.gateway;
+
+import com.example.pps.entity.Transaction;
+
+/**
+ * Result of routing a payment: the gateway actually chosen and its circuit-guarded provider.
+ */
+public record GatewayRoute(Transaction.PaymentGateway gateway, GatewayProvider provider) {
+}
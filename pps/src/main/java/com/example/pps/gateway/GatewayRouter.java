@@ -0,0 +1,64 @@
+package com.example.pps.gateway;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.exception.GatewayUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Picks the gateway a transaction is sent to based on the live {@link GatewayHealth}
+ * of each provider. The requested gateway is used while its circuit is closed;
+ * when it is open, merchants that opted into failover are moved to the healthy
+ * gateway with the lowest EWMA latency and everyone else fails fast.
+ */
+@Component
+public class GatewayRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayRouter.class);
+
+    private final Map<Transaction.PaymentGateway, GatewayHealth> health = new EnumMap<>(Transaction.PaymentGateway.class);
+
+    public GatewayRouter(@Value("${pps.gateway.routing.ewma-alpha:0.2}") double ewmaAlpha,
+                         @Value("${pps.gateway.routing.failure-rate-threshold:0.5}") double failureRateThreshold,
+                         @Value("${pps.gateway.routing.minimum-calls:20}") long minimumCalls,
+                         @Value("${pps.gateway.routing.slow-call-threshold:PT5S}") Duration slowCallThreshold,
+                         @Value("${pps.gateway.routing.open-duration:PT30S}") Duration openDuration) {
+        for (Transaction.PaymentGateway gateway : Transaction.PaymentGateway.values()) {
+            health.put(gateway, new GatewayHealth(ewmaAlpha, failureRateThreshold, minimumCalls, slowCallThreshold, openDuration));
+        }
+    }
+
+    public Transaction.PaymentGateway select(Transaction.PaymentGateway requested, boolean failoverAllowed) {
+        if (health(requested).isCallPermitted()) {
+            return requested;
+        }
+        if (failoverAllowed) {
+            Optional<Transaction.PaymentGateway> fallback = Stream.of(Transaction.PaymentGateway.values())
+                    .filter(candidate -> candidate != requested)
+                    .filter(candidate -> health(candidate).isCallPermitted())
+                    .min(Comparator.comparingDouble(candidate -> health(candidate).ewmaLatencyMillis()));
+            if (fallback.isPresent()) {
+                log.warn("Gateway {} circuit is {}, failing over to {}", requested, health(requested).state(), fallback.get());
+                return fallback.get();
+            }
+        }
+        throw new GatewayUnavailableException("Payment gateway " + requested + " is temporarily unavailable");
+    }
+
+    public GatewayHealth health(Transaction.PaymentGateway gateway) {
+        return health.get(gateway);
+    }
+
+    public Map<Transaction.PaymentGateway, GatewayHealth> healthByGateway() {
+        return health;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.pps.gateway;
+
+import com.example.pps.entity.Transaction;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes circuit state and live latency/error statistics per gateway at {@code /actuator/gateways}.
+ */
+@Component
+@Endpoint(id = "gateways")
+public class GatewayRoutingEndpoint {
+
+    private final GatewayRouter gatewayRouter;
+
+    public GatewayRoutingEndpoint(GatewayRouter gatewayRouter) {
+        this.gatewayRouter = gatewayRouter;
+    }
+
+    @ReadOperation
+    public Map<Transaction.PaymentGateway, Map<String, Object>> gateways() {
+        Map<Transaction.PaymentGateway, Map<String, Object>> result = new LinkedHashMap<>();
+        gatewayRouter.healthByGateway().forEach((gateway, health) -> {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("circuit", health.state());
+            details.put("ewmaLatencyMs", health.ewmaLatencyMillis());
+            details.put("errorRate", health.errorRate());
+            details.put("calls", health.totalCalls());
+            details.put("failures", health.totalFailures());
+            details.put("rejected", health.rejectedCalls());
+            result.put(gateway, details);
+        });
+        return result;
+    }
+}
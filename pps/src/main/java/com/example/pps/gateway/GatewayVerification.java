@@ -0,0 +1,12 @@
+package com.example.pps.gateway;
+
+import com.example.pps.entity.Transaction;
+
+/**
+ * A gateway's current view of a transaction.
+ *
+ * @param status        the gateway status mapped onto ours; PENDING while the gateway has no outcome yet
+ * @param gatewayStatus the status exactly as the gateway reported it
+ */
+public record GatewayVerification(Transaction.Status status, String gatewayStatus) {
+}
@@ -0,0 +1,58 @@
+package com.example.pps.gateway;
+
+import com.example.pps.dto.InitiatePaymentRequest;
+import com.example.pps.dto.InitiatePaymentResponse;
+import com.example.pps.entity.Transaction;
+import com.example.pps.exception.GatewayUnavailableException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorates a provider so every call is gated by, and reported to, the gateway's circuit breaker.
+ */
+class MonitoredGatewayProvider implements GatewayProvider {
+
+    private final Transaction.PaymentGateway gateway;
+    private final GatewayProvider delegate;
+    private final GatewayHealth health;
+
+    MonitoredGatewayProvider(Transaction.PaymentGateway gateway, GatewayProvider delegate, GatewayHealth health) {
+        this.gateway = gateway;
+        this.delegate = delegate;
+        this.health = health;
+    }
+
+    @Override
+    public CompletableFuture<InitiatePaymentResponse> initiatePaymentAsync(InitiatePaymentRequest request, Transaction transaction) {
+        if (!health.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("Payment gateway " + gateway + " is temporarily unavailable"));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<InitiatePaymentResponse> call;
+        try {
+            call = delegate.initiatePaymentAsync(request, transaction);
+        } catch (RuntimeException e) {
+            health.record(System.nanoTime() - start, false);
+            return CompletableFuture.failedFuture(e);
+        }
+        return call.whenComplete((response, error) -> health.record(System.nanoTime() - start, error == null));
+    }
+
+    @Override
+    public CompletableFuture<GatewayVerification> verifyTransactionAsync(String merchantRef) {
+        if (!health.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(
+                    new GatewayUnavailableException("Payment gateway " + gateway + " is temporarily unavailable"));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<GatewayVerification> call;
+        try {
+            call = delegate.verifyTransactionAsync(merchantRef);
+        } catch (RuntimeException e) {
+            health.record(System.nanoTime() - start, false);
+            return CompletableFuture.failedFuture(e);
+        }
+        return call.whenComplete((verification, error) -> health.record(System.nanoTime() - start, error == null));
+    }
+}
@@ -1,55 +1,63 @@
 package com.example.pps.gateway;
 
+import com.example.pps.config.HttpClientConfig;
+import com.example.pps.config.HttpClientProperties;
 import com.example.pps.dto.InitiatePaymentRequest;
 import com.example.pps.dto.InitiatePaymentResponse;
 import com.example.pps.entity.Transaction;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class PaystackGateway implements GatewayProvider {
-    private final String secretKey;
-    private final RestTemplate restTemplate;
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE = new ParameterizedTypeReference<>() {};
 
-    public PaystackGateway(@Value("${paystack.secret-key:mock-paystack-key}") String secretKey, RestTemplate restTemplate) {
-        this.secretKey = secretKey;
-        this.restTemplate = restTemplate;
+    private final WebClient webClient;
+    private final Duration totalTimeout;
+
+    public PaystackGateway(@Value("${paystack.secret-key:mock-paystack-key}") String secretKey,
+                           @Value("${paystack.api-url:https://api.paystack.co}") String apiUrl,
+                           @Qualifier("paystackWebClient") WebClient webClient,
+                           HttpClientProperties httpClientProperties) {
+        this.totalTimeout = httpClientProperties.client(HttpClientConfig.PAYSTACK).getTotalTimeout();
+        this.webClient = webClient.mutate()
+                .baseUrl(apiUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + secretKey)
+                .build();
     }
 
     @Override
-    public InitiatePaymentResponse initiatePayment(InitiatePaymentRequest request, Transaction transaction) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Authorization", "Bearer " + secretKey);
-
+    public CompletableFuture<InitiatePaymentResponse> initiatePaymentAsync(InitiatePaymentRequest request, Transaction transaction) {
         Map<String, Object> body = new HashMap<>();
         body.put("amount", transaction.getAmount().multiply(BigDecimal.valueOf(100)).longValue()); // Convert to kobo
         body.put("currency", transaction.getCurrency().toString());
         body.put("email", transaction.getCustomerEmail());
         body.put("reference", transaction.getMerchantRef());
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-
-        Map<String, Object> response = restTemplate.postForObject(
-                "https://api.paystack.co/transaction/initialize",
-                entity,
-                Map.class
-        );
+        return webClient.post()
+                .uri("/transaction/initialize")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .timeout(totalTimeout)
+                .map(response -> toInitiatePaymentResponse(response, transaction))
+                .toFuture();
+    }
 
+    @SuppressWarnings("unchecked")
+    private InitiatePaymentResponse toInitiatePaymentResponse(Map<String, Object> response, Transaction transaction) {
         if (response == null || !Boolean.TRUE.equals(response.get("status"))) {
             throw new RuntimeException("Failed to initialize payment with Paystack: " +
                     (response != null ? response.get("message") : "No response"));
@@ -73,18 +81,31 @@ public class PaystackGateway implements GatewayProvider {
     }
 
     @Override
-    public void verifyWebhookSignature(String payload, String signature) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA512");
-            SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-            mac.init(keySpec);
-            byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            String computedSignature = Base64.getEncoder().encodeToString(hash);
-            if (!computedSignature.equals(signature)) {
-                throw new SecurityException("Invalid Paystack webhook signature");
-            }
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("Signature verification failed", e);
+    public CompletableFuture<GatewayVerification> verifyTransactionAsync(String merchantRef) {
+        return webClient.get()
+                .uri("/transaction/verify/{reference}", merchantRef)
+                .retrieve()
+                .bodyToMono(RESPONSE_TYPE)
+                .timeout(totalTimeout)
+                .map(this::toGatewayVerification)
+                .toFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private GatewayVerification toGatewayVerification(Map<String, Object> response) {
+        if (response == null || !Boolean.TRUE.equals(response.get("status"))) {
+            throw new RuntimeException("Failed to verify transaction with Paystack: " +
+                    (response != null ? response.get("message") : "No response"));
+        }
+        Map<String, Object> data = (Map<String, Object>) response.get("data");
+        if (data == null || data.get("status") == null) {
+            throw new RuntimeException("Paystack response missing 'data.status' field");
         }
+        String status = data.get("status").toString();
+        return new GatewayVerification(switch (status.toLowerCase()) {
+            case "success" -> Transaction.Status.COMPLETED;
+            case "failed" -> Transaction.Status.FAILED;
+            default -> Transaction.Status.PENDING;  // ongoing, pending, abandoned, queued...
+        }, status);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.example.pps.idempotency;
+
+import java.util.UUID;
+
+/**
+ * An Idempotency-Key header value scoped to the merchant that sent it, so two
+ * merchants can never collide on the same key.
+ */
+public record IdempotencyKey(UUID merchantId, String key) {
+
+    String redisKey() {
+        return "idem:" + merchantId + ":" + key;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.pps.idempotency;
+
+import com.example.pps.dto.InitiatePaymentResponse;
+
+/**
+ * What the idempotency store knows about a key: either a request is still running
+ * somewhere, or it completed with the stored response.
+ */
+public record IdempotencyRecord(Status status, String fingerprint, InitiatePaymentResponse response) {
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+
+    static IdempotencyRecord inProgress(String fingerprint) {
+        return new IdempotencyRecord(Status.IN_PROGRESS, fingerprint, null);
+    }
+
+    static IdempotencyRecord completed(String fingerprint, InitiatePaymentResponse response) {
+        return new IdempotencyRecord(Status.COMPLETED, fingerprint, response);
+    }
+}
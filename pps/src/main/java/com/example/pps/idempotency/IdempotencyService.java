@@ -0,0 +1,214 @@
+package com.example.pps.idempotency;
+
+import com.example.pps.dto.InitiatePaymentRequest;
+import com.example.pps.dto.InitiatePaymentResponse;
+import com.example.pps.exception.IdempotencyKeyMismatchException;
+import com.example.pps.exception.IdempotentRequestInProgressException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Runs an initiate call at most once per (merchant, Idempotency-Key).
+ *
+ * Concurrent duplicates on this instance are coalesced onto the first request's
+ * future; duplicates on other instances see the Redis claim and get a 409 until
+ * the first one finishes. Completed responses are replayed from the store without
+ * touching Postgres, and a replay whose body differs from the original is rejected.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyStore store;
+    private final Map<IdempotencyKey, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    public CompletableFuture<InitiatePaymentResponse> execute(IdempotencyKey key,
+                                                              String fingerprint,
+                                                              Supplier<CompletableFuture<InitiatePaymentResponse>> action) {
+        Claim claim = claim(key, fingerprint);
+        if (!claim.owned()) {
+            return claim.result();
+        }
+
+        // The key is ours from here on: release it if the action fails so the client can retry
+        CompletableFuture<InitiatePaymentResponse> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((response, error) -> {
+            if (error == null) {
+                complete(claim, response);
+            } else {
+                fail(claim, error);
+            }
+        });
+        return claim.result();
+    }
+
+    /**
+     * Claims {@code key} for a caller that runs the initiation itself, as the batch path
+     * does. If the claim is {@link Claim#owned() owned} the caller must settle it with
+     * {@link #complete} or {@link #fail}; otherwise its result is the coalesced, replayed
+     * or rejected outcome of the request that got there first.
+     */
+    public Claim claim(IdempotencyKey key, String fingerprint) {
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            verifyFingerprint(key, existing.fingerprint(), fingerprint);
+            log.info("Coalescing duplicate in-flight request | Key={}", key);
+            return new Claim(key, existing, false);
+        }
+
+        InitiatePaymentResponse replayed;
+        try {
+            Optional<IdempotencyRecord> known = store.find(key).or(() -> store.claim(key, fingerprint));
+            if (known.isEmpty()) {
+                return new Claim(key, mine, true);
+            }
+            replayed = replay(key, known.get(), fingerprint);
+        } catch (RuntimeException e) {
+            return settled(key, mine, null, e);
+        }
+        return settled(key, mine, replayed, null);
+    }
+
+    /**
+     * Stores {@code response} for replay and hands it to coalesced duplicates. Only the
+     * first of {@code complete} and {@link #fail} settles a claim; later calls are ignored.
+     */
+    public void complete(Claim claim, InitiatePaymentResponse response) {
+        if (claim.settling()) {
+            store.complete(claim.key(), IdempotencyRecord.completed(claim.inFlight().fingerprint(), response));
+            claim.settle(response, null);
+        }
+    }
+
+    /**
+     * Releases the key so the client can retry and fails coalesced duplicates with
+     * {@code error}.
+     */
+    public void fail(Claim claim, Throwable error) {
+        if (claim.settling()) {
+            store.release(claim.key());
+            claim.settle(null, error);
+        }
+    }
+
+    /**
+     * SHA-256 over the business fields of the request, used to detect a key being
+     * replayed with a different body.
+     */
+    public static String fingerprint(InitiatePaymentRequest request) {
+        String canonical = String.join("\u0000",
+                String.valueOf(request.getAmount()),
+                String.valueOf(request.getCurrency()),
+                String.valueOf(request.getMerchantRef()),
+                String.valueOf(request.getCustomerEmail()),
+                String.valueOf(request.getPaymentMethod()),
+                String.valueOf(request.getPaymentGateway()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private InitiatePaymentResponse replay(IdempotencyKey key, IdempotencyRecord record, String fingerprint) {
+        verifyFingerprint(key, record.fingerprint(), fingerprint);
+        if (record.status() == IdempotencyRecord.Status.IN_PROGRESS) {
+            throw new IdempotentRequestInProgressException(
+                    "A request with Idempotency-Key '" + key.key() + "' is still being processed");
+        }
+        log.info("Idempotent replay served from store | Key={} | TransactionID={}", key, record.response().getTransactionId());
+        return record.response();
+    }
+
+    private void verifyFingerprint(IdempotencyKey key, String expected, String actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException(
+                    "Idempotency-Key '" + key.key() + "' was already used with a different request body");
+        }
+    }
+
+    private Claim settled(IdempotencyKey key, InFlight mine, InitiatePaymentResponse response, Throwable error) {
+        Claim claim = new Claim(key, mine, false);
+        claim.settle(response, error);
+        return claim;
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<InitiatePaymentResponse> future) {
+    }
+
+    /**
+     * One caller's hold on an idempotency key, from {@link #claim}.
+     */
+    public final class Claim {
+        private final IdempotencyKey key;
+        private final InFlight inFlight;
+        private final boolean owned;
+        private final AtomicBoolean settled;
+
+        private Claim(IdempotencyKey key, InFlight inFlight, boolean owned) {
+            this.key = key;
+            this.inFlight = inFlight;
+            this.owned = owned;
+            this.settled = new AtomicBoolean(!owned);
+        }
+
+        /**
+         * Whether this caller must run the initiation and settle the claim.
+         */
+        public boolean owned() {
+            return owned;
+        }
+
+        /**
+         * The outcome, shared with every duplicate coalesced onto this key.
+         */
+        public CompletableFuture<InitiatePaymentResponse> result() {
+            return inFlight.future().thenApply(response -> response);
+        }
+
+        IdempotencyKey key() {
+            return key;
+        }
+
+        InFlight inFlight() {
+            return inFlight;
+        }
+
+        boolean settling() {
+            return settled.compareAndSet(false, true);
+        }
+
+        void settle(InitiatePaymentResponse response, Throwable error) {
+            IdempotencyService.this.inFlight.remove(key, inFlight);
+            if (error != null) {
+                inFlight.future().completeExceptionally(error);
+            } else {
+                inFlight.future().complete(response);
+            }
+        }
+    }
+}
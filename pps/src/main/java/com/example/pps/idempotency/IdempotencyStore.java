@@ -0,0 +1,143 @@
+package com.example.pps.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Two-tier store of idempotency records: a bounded in-process LRU in front of Redis.
+ *
+ * Redis is also the cross-instance lock: a request claims its key with
+ * {@code SET NX PX} before calling the gateway. If Redis is unreachable the store
+ * degrades to local-only and the unique (merchant_id, idempotency_key) constraint
+ * on {@code transactions} remains the last line of defence.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final StatefulRedisConnection<String, String> redis;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inProgressTtl;
+    private final Map<IdempotencyKey, LocalEntry> local;
+
+    public IdempotencyStore(StatefulRedisConnection<String, String> redis,
+                            ObjectMapper objectMapper,
+                            @Value("${pps.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${pps.idempotency.in-progress-ttl:PT1M}") Duration inProgressTtl,
+                            @Value("${pps.idempotency.local-cache-size:10000}") int localCacheSize) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inProgressTtl = inProgressTtl;
+        this.local = Collections.synchronizedMap(new LinkedHashMap<>(localCacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyKey, LocalEntry> eldest) {
+                return size() > localCacheSize;
+            }
+        });
+    }
+
+    /**
+     * Looks the key up in the local LRU, then Redis.
+     */
+    public Optional<IdempotencyRecord> find(IdempotencyKey key) {
+        LocalEntry entry = local.get(key);
+        if (entry != null) {
+            if (entry.expiresAtMillis() > System.currentTimeMillis()) {
+                return Optional.of(entry.record());
+            }
+            local.remove(key);
+        }
+        try {
+            Optional<IdempotencyRecord> record = Optional.ofNullable(redis.sync().get(key.redisKey())).map(this::deserialize);
+            record.filter(r -> r.status() == IdempotencyRecord.Status.COMPLETED).ifPresent(r -> cacheLocally(key, r));
+            return record;
+        } catch (RedisException e) {
+            log.warn("Idempotency lookup in Redis failed, continuing with local tier only | Key={} | Error={}",
+                    key.redisKey(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Claims the key for this request across all instances.
+     *
+     * @return empty if the claim was won, otherwise the record currently holding the key
+     */
+    public Optional<IdempotencyRecord> claim(IdempotencyKey key, String fingerprint) {
+        String redisKey = key.redisKey();
+        try {
+            String result = redis.sync().set(redisKey, serialize(IdempotencyRecord.inProgress(fingerprint)),
+                    SetArgs.Builder.nx().px(inProgressTtl.toMillis()));
+            if ("OK".equals(result)) {
+                return Optional.empty();
+            }
+            String current = redis.sync().get(redisKey);
+            // The holder may have released the key between our SET and GET; treat that as a lost race
+            return Optional.of(current != null ? deserialize(current) : IdempotencyRecord.inProgress(fingerprint));
+        } catch (RedisException e) {
+            log.warn("Idempotency claim in Redis failed, relying on the database constraint | Key={} | Error={}",
+                    redisKey, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void complete(IdempotencyKey key, IdempotencyRecord record) {
+        cacheLocally(key, record);
+        try {
+            redis.sync().set(key.redisKey(), serialize(record), SetArgs.Builder.px(ttl.toMillis()));
+        } catch (RedisException e) {
+            log.warn("Failed to store idempotent response in Redis | Key={} | Error={}", key.redisKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * Drops an in-progress claim so the client can retry with the same key.
+     */
+    public void release(IdempotencyKey key) {
+        try {
+            redis.sync().del(key.redisKey());
+        } catch (RedisException e) {
+            log.warn("Failed to release idempotency claim, it will expire in {} | Key={} | Error={}",
+                    inProgressTtl, key.redisKey(), e.getMessage());
+        }
+    }
+
+    private void cacheLocally(IdempotencyKey key, IdempotencyRecord record) {
+        local.put(key, new LocalEntry(record, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    private String serialize(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotency record", e);
+        }
+    }
+
+    private IdempotencyRecord deserialize(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize idempotency record", e);
+        }
+    }
+
+    private record LocalEntry(IdempotencyRecord record, long expiresAtMillis) {
+    }
+}
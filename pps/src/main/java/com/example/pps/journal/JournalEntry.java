@@ -0,0 +1,9 @@
+package com.example.pps.journal;
+
+import com.example.pps.entity.Transaction;
+
+/**
+ * A verified webhook as it was appended to the {@link WebhookJournal}.
+ */
+public record JournalEntry(Transaction.PaymentGateway gateway, byte[] body, String signature) {
+}
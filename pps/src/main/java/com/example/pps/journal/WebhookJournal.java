@@ -0,0 +1,417 @@
+package com.example.pps.journal;
+
+import com.example.pps.entity.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Local append-only journal for verified webhooks that could not be handed to Kafka or
+ * Postgres, so they can still be acknowledged and are applied once the dependency is back.
+ *
+ * The journal is a directory of fixed-size, memory-mapped segment files. Each record is
+ * {@code [int length][int crc32c][byte flags][payload]}; the length is written last, and
+ * on recovery the first record with a zero length or a bad CRC marks the end of the
+ * segment, so a write torn by a crash is discarded rather than replayed.
+ *
+ * Appends return a future that completes once the record has been forced to disk. A
+ * single flusher thread forces the active segment whenever there are unsynced records,
+ * so every append that arrived while the previous force was running shares the next one
+ * (group commit).
+ *
+ * {@link #drain} hands records to a handler in append order, flags each one consumed
+ * and deletes a segment once it is sealed and fully consumed. Consumed flags are not
+ * forced, so a crash may replay a few records: delivery is at least once.
+ */
+public class WebhookJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookJournal.class);
+
+    static final int HEADER_SIZE = 9;
+    private static final int FLAGS_OFFSET = 8;
+    private static final byte CONSUMED = 1;
+    private static final String SEGMENT_PREFIX = "webhooks-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final AtomicLong groupSyncs = new AtomicLong();
+    private final Object appendLock = new Object();
+    private final Object drainLock = new Object();
+    private final Thread flusher;
+
+    // Guarded by appendLock
+    private final ArrayDeque<PendingSync> unsynced = new ArrayDeque<>();
+    private Segment active;
+    private long writtenPosition;
+    private boolean closed;
+
+    // Logical positions are (segment id << 32 | offset), monotonic across segments
+    private volatile long durablePosition;
+
+    public WebhookJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        recover();
+        this.flusher = new Thread(this::flushLoop, "webhook-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends a webhook; the future completes once it is durable on disk.
+     *
+     * @throws IllegalArgumentException if the record cannot fit in a segment
+     */
+    public CompletableFuture<Void> append(Transaction.PaymentGateway gateway, byte[] body, String signature) {
+        byte[] gatewayName = gateway.name().getBytes(StandardCharsets.US_ASCII);
+        byte[] signatureBytes = signature == null ? new byte[0] : signature.getBytes(StandardCharsets.UTF_8);
+        int payloadLength = 1 + gatewayName.length + 2 + signatureBytes.length + body.length;
+        if (HEADER_SIZE + payloadLength > segmentSize) {
+            throw new IllegalArgumentException("Webhook of " + body.length + " bytes does not fit in a journal segment");
+        }
+
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        List<PendingSync> sealed = List.of();
+        synchronized (appendLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Webhook journal is closed"));
+            }
+            if (active.writeOffset + HEADER_SIZE + payloadLength > active.buffer.capacity()) {
+                sealed = roll();
+            }
+
+            int offset = active.writeOffset;
+            ByteBuffer payload = active.buffer.slice(offset + HEADER_SIZE, payloadLength);
+            payload.put((byte) gatewayName.length).put(gatewayName)
+                    .putShort((short) signatureBytes.length).put(signatureBytes)
+                    .put(body);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.flip());
+
+            active.buffer.putInt(offset + 4, (int) crc.getValue());
+            active.buffer.put(offset + FLAGS_OFFSET, (byte) 0);
+            active.buffer.putInt(offset, payloadLength);
+            active.writeOffset = offset + HEADER_SIZE + payloadLength;
+
+            writtenPosition = position(active.id, active.writeOffset);
+            pendingRecords.incrementAndGet();
+            unsynced.addLast(new PendingSync(writtenPosition, durable));
+            appendLock.notifyAll();
+        }
+        complete(sealed, null);
+        return durable;
+    }
+
+    /**
+     * Whether appended records are still waiting to be drained. While this is true new
+     * webhooks should be appended too, so they are not applied ahead of older ones.
+     */
+    public boolean hasPending() {
+        return pendingRecords.get() > 0;
+    }
+
+    // Forces issued by the flusher; with group commit, far fewer than appends
+    long groupSyncs() {
+        return groupSyncs.get();
+    }
+
+    /**
+     * Hands durable, unconsumed records to {@code handler} in append order. Stops and
+     * rethrows at the first record the handler fails on; that record is retried first on
+     * the next call.
+     *
+     * @return number of records handed to the handler successfully
+     */
+    public int drain(Consumer<JournalEntry> handler) {
+        synchronized (drainLock) {
+            int drained = 0;
+            for (Segment segment : segments.values()) {
+                int limit = segment.sealed ? segment.writeOffset : durableOffsetIn(segment);
+                while (segment.readOffset < limit) {
+                    int offset = segment.readOffset;
+                    int length = segment.buffer.getInt(offset);
+                    if ((segment.buffer.get(offset + FLAGS_OFFSET) & CONSUMED) == 0) {
+                        JournalEntry entry = decode(segment, offset, length);
+                        if (entry != null) {
+                            handler.accept(entry);
+                            drained++;
+                        }
+                        segment.buffer.put(offset + FLAGS_OFFSET, CONSUMED);
+                        pendingRecords.decrementAndGet();
+                    }
+                    segment.readOffset = offset + HEADER_SIZE + length;
+                }
+                if (!segment.sealed) {
+                    break;
+                }
+                delete(segment);
+            }
+            return drained;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            closed = true;
+            appendLock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------
+
+    private void flushLoop() {
+        while (true) {
+            Segment segment;
+            long target;
+            synchronized (appendLock) {
+                while (!closed && writtenPosition == durablePosition) {
+                    try {
+                        appendLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (writtenPosition == durablePosition) {
+                    return;
+                }
+                segment = active;
+                target = writtenPosition;
+            }
+
+            // Forced outside the lock: appends arriving meanwhile join the next batch
+            Throwable failure = null;
+            try {
+                groupSyncs.incrementAndGet();
+                segment.buffer.force();
+            } catch (UncheckedIOException e) {
+                failure = e;
+                log.error("Failed to sync webhook journal segment {}: {}", segment.path, e.getMessage());
+            }
+            List<PendingSync> done;
+            synchronized (appendLock) {
+                done = markDurable(target);
+            }
+            complete(done, failure);
+        }
+    }
+
+    // Seals the active segment and starts the next one; called with appendLock held
+    private List<PendingSync> roll() {
+        Segment previous = active;
+        previous.buffer.force();
+        try {
+            active = Segment.create(directory, previous.id + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create webhook journal segment", e);
+        }
+        segments.put(active.id, active);
+        previous.sealed = true;
+        return markDurable(position(previous.id, previous.writeOffset));
+    }
+
+    // Advances the durable position even after a failed sync (the waiters are failed
+    // instead), so a broken disk cannot spin the flusher; called with appendLock held
+    private List<PendingSync> markDurable(long target) {
+        if (target > durablePosition) {
+            durablePosition = target;
+        }
+        List<PendingSync> done = new ArrayList<>();
+        while (!unsynced.isEmpty() && unsynced.peekFirst().position() <= target) {
+            done.add(unsynced.pollFirst());
+        }
+        return done;
+    }
+
+    // Never called with appendLock held: completing runs the callers' continuations
+    private static void complete(List<PendingSync> done, Throwable failure) {
+        for (PendingSync sync : done) {
+            if (failure == null) {
+                sync.durable().complete(null);
+            } else {
+                sync.durable().completeExceptionally(failure);
+            }
+        }
+    }
+
+    private int durableOffsetIn(Segment segment) {
+        long durable = durablePosition;
+        long durableSegment = durable >>> 32;
+        if (durableSegment > segment.id) {
+            return segment.writeOffset;
+        }
+        return durableSegment == segment.id ? (int) durable : 0;
+    }
+
+    private JournalEntry decode(Segment segment, int offset, int length) {
+        ByteBuffer payload = segment.buffer.slice(offset + HEADER_SIZE, length);
+        try {
+            byte[] gatewayName = new byte[payload.get()];
+            payload.get(gatewayName);
+            byte[] signature = new byte[Short.toUnsignedInt(payload.getShort())];
+            payload.get(signature);
+            byte[] body = new byte[payload.remaining()];
+            payload.get(body);
+            return new JournalEntry(
+                    Transaction.PaymentGateway.valueOf(new String(gatewayName, StandardCharsets.US_ASCII)),
+                    body,
+                    signature.length == 0 ? null : new String(signature, StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            log.error("Skipping undecodable webhook journal record at {}:{}: {}", segment.path, offset, e.getMessage());
+            return null;
+        }
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.id);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            log.info("Webhook journal segment {} drained and deleted", segment.path.getFileName());
+        } catch (IOException e) {
+            log.warn("Failed to delete drained webhook journal segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+
+        long pending = 0;
+        for (Path file : files) {
+            Segment segment = Segment.open(file, idOf(file));
+            pending += scan(segment);
+            segments.put(segment.id, segment);
+        }
+
+        if (segments.isEmpty()) {
+            active = Segment.create(directory, 0, segmentSize);
+            segments.put(active.id, active);
+        } else {
+            active = segments.lastEntry().getValue();
+            // Erase whatever a crash left past the last valid record
+            ByteBuffer tail = active.buffer.slice(active.writeOffset, active.buffer.capacity() - active.writeOffset);
+            while (tail.hasRemaining()) {
+                tail.put((byte) 0);
+            }
+            active.buffer.force();
+            for (Segment segment : List.copyOf(segments.headMap(active.id).values())) {
+                segment.sealed = true;
+            }
+        }
+
+        pendingRecords.set(pending);
+        writtenPosition = position(active.id, active.writeOffset);
+        durablePosition = writtenPosition;
+        if (pending > 0) {
+            log.warn("Recovered {} undrained webhook(s) from journal {}", pending, directory);
+        }
+    }
+
+    // Finds the end of the valid records in a segment; returns how many are unconsumed
+    private long scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        long unconsumed = 0;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(offset + HEADER_SIZE, length));
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.warn("Discarding torn webhook journal record at {}:{}", segment.path, offset);
+                break;
+            }
+            if ((buffer.get(offset + FLAGS_OFFSET) & CONSUMED) == 0) {
+                unconsumed++;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        segment.writeOffset = offset;
+        return unconsumed;
+    }
+
+    private static long position(long segmentId, int offset) {
+        return segmentId << 32 | offset;
+    }
+
+    private static long idOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record PendingSync(long position, CompletableFuture<Void> durable) {
+    }
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writeOffset;
+        volatile boolean sealed;
+        int readOffset; // guarded by drainLock
+
+        private Segment(long id, Path path, FileChannel channel) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+
+        static Segment create(Path directory, long id, int size) throws IOException {
+            Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            channel.force(true);
+            return new Segment(id, path, channel);
+        }
+
+        static Segment open(Path path, long id) throws IOException {
+            return new Segment(id, path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.pps.journal;
+
+import com.example.pps.service.WebhookIngestionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays journaled webhooks through the normal ingestion path, oldest first. A failed
+ * replay pauses draining until the next run, so later webhooks never overtake it.
+ */
+@Component
+public class WebhookJournalDrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookJournalDrainer.class);
+
+    private final WebhookJournal webhookJournal;
+    private final WebhookIngestionService webhookIngestionService;
+
+    public WebhookJournalDrainer(WebhookJournal webhookJournal, WebhookIngestionService webhookIngestionService) {
+        this.webhookJournal = webhookJournal;
+        this.webhookIngestionService = webhookIngestionService;
+    }
+
+    @Scheduled(fixedDelayString = "${pps.journal.drain-interval:PT1S}")
+    public void drain() {
+        if (!webhookJournal.hasPending()) {
+            return;
+        }
+        try {
+            int replayed = webhookJournal.drain(entry ->
+                    webhookIngestionService.redeliver(entry.gateway(), entry.body(), entry.signature()));
+            if (replayed > 0) {
+                log.info("Replayed {} journaled webhook(s)", replayed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Webhook journal replay paused, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -1,31 +1,68 @@
 package com.example.pps.kafka;
 
-import com.example.pps.entity.Transaction;
+import com.example.pps.consumer.KeyOrderedBatchProcessor;
+import com.example.pps.delivery.MerchantWebhookDispatcher;
+import com.example.pps.entity.Merchant;
+import com.example.pps.event.PaymentEvent;
 import com.example.pps.repository.MerchantRepository;
-import org.springframework.kafka.annotation.KafkaListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Hands payment events to the {@link MerchantWebhookDispatcher}, which delivers them to
+ * merchants' webhook URLs. Events are keyed by merchant, so the
+ * {@link KeyOrderedBatchProcessor} queues each merchant's events in order; a lane never
+ * waits on delivery, since events beyond a full backlog are dead-lettered. Merchants are
+ * loaded once per batch.
+ */
 @Component
-public class MerchantNotificationListener {
-    private final RestTemplate restTemplate;
+public class MerchantNotificationListener implements BatchMessageListener<String, PaymentEvent> {
+    private final MerchantWebhookDispatcher dispatcher;
     private final MerchantRepository merchantRepository;
+    private final KeyOrderedBatchProcessor processor;
 
-    public MerchantNotificationListener(RestTemplate restTemplate, MerchantRepository merchantRepository) {
-        this.restTemplate = restTemplate;
+    public MerchantNotificationListener(MerchantWebhookDispatcher dispatcher,
+                                        MerchantRepository merchantRepository,
+                                        @Qualifier("notificationWorkerExecutor") ThreadPoolTaskExecutor notificationWorkerExecutor,
+                                        @Value("${pps.notifications.parallelism:16}") int parallelism) {
+        this.dispatcher = dispatcher;
         this.merchantRepository = merchantRepository;
+        this.processor = new KeyOrderedBatchProcessor(parallelism, notificationWorkerExecutor);
+    }
+
+    @Override
+    public void onMessage(List<ConsumerRecord<String, PaymentEvent>> records) {
+        List<UUID> merchantIds = records.stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .map(PaymentEvent::merchantId)
+                .distinct()
+                .toList();
+        Map<UUID, Merchant> merchants = merchantRepository.findAllById(merchantIds).stream()
+                .collect(Collectors.toMap(Merchant::getId, Function.identity()));
+
+        processor.process(records, record -> handleNotification(record.value(), merchants));
     }
 
-    @KafkaListener(topics = "merchant-notifications", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleNotification(Transaction transaction) {
-        merchantRepository.findById(transaction.getMerchantId())
-                .ifPresent(merchant -> {
-                    String webhookUrl = merchant.getWebhookUrl();
-                    try {
-                        restTemplate.postForObject(webhookUrl, transaction, String.class);
-                    } catch (Exception e) {
-                        System.err.println("Failed to send notification to " + webhookUrl + ": " + e.getMessage());
-                    }
-                });
+    private void handleNotification(PaymentEvent event, Map<UUID, Merchant> merchants) {
+        if (event == null) {
+            return;
+        }
+        Merchant merchant = merchants.get(event.merchantId());
+        if (merchant == null || merchant.getWebhookUrl() == null) {
+            return;
+        }
+        dispatcher.enqueue(merchant, event);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.example.pps.outbox;
+
+import com.example.pps.entity.OutboxEvent;
+import com.example.pps.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues Kafka records as part of the caller's database transaction. The record is
+ * published by {@link OutboxRelay} after commit and is discarded with the transaction
+ * on rollback, so callers never wait on, or leak events to, the broker.
+ */
+@Component
+public class Outbox {
+    private final OutboxEventRepository outboxEventRepository;
+
+    public Outbox(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    /**
+     * @param payload the record value, already serialized in the topic's format
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, byte[] payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTopic(topic);
+        event.setMessageKey(key);
+        event.setPayload(payload);
+        outboxEventRepository.save(event);
+    }
+}
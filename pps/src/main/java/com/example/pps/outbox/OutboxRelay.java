@@ -0,0 +1,125 @@
+package com.example.pps.outbox;
+
+import com.example.pps.entity.OutboxEvent;
+import com.example.pps.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes {@code outbox_events} to Kafka.
+ *
+ * Every {@code pps.outbox.linger} the relay locks up to {@code pps.outbox.batch-size}
+ * of the oldest rows with {@code FOR UPDATE SKIP LOCKED}, sends them all, waits for the
+ * broker to acknowledge the whole batch and deletes them in the same transaction; it
+ * keeps going while batches come back full. Instances skip each other's locked rows,
+ * so any number can run. A failed send rolls the batch back and it is retried on the
+ * next run, so delivery is at-least-once; records carry their outbox id in the
+ * {@value #OUTBOX_ID_HEADER} header for consumers that need to deduplicate.
+ *
+ * Metrics: {@code pps.outbox.pending}, {@code pps.outbox.lag} (seconds since the oldest
+ * unpublished event was written), {@code pps.outbox.published}, {@code pps.outbox.failures}.
+ */
+@Component
+public class OutboxRelay {
+
+    public static final String OUTBOX_ID_HEADER = "pps-outbox-id";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter published;
+    private final Counter failures;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${pps.outbox.batch-size:500}") int batchSize,
+                       @Value("${pps.outbox.send-timeout:PT10S}") Duration sendTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.published = meterRegistry.counter("pps.outbox.published");
+        this.failures = meterRegistry.counter("pps.outbox.failures");
+        meterRegistry.gauge("pps.outbox.pending", pending);
+        meterRegistry.gauge("pps.outbox.lag", lagMillis, millis -> millis.get() / 1000.0);
+    }
+
+    @Scheduled(fixedDelayString = "${pps.outbox.linger:PT0.2S}")
+    public void relay() {
+        try {
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == batchSize);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Outbox relay failed, batch will be retried | Error={}", e.getMessage());
+        } finally {
+            refreshLag();
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+            record.headers().add(OUTBOX_ID_HEADER, event.getId().toString().getBytes(StandardCharsets.UTF_8));
+            sends.add(outboxKafkaTemplate.send(record));
+        }
+        outboxKafkaTemplate.flush();
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Kafka did not acknowledge outbox batch of " + batch.size(), e);
+        }
+
+        outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+        published.increment(batch.size());
+        log.debug("Relayed {} outbox event(s)", batch.size());
+        return batch.size();
+    }
+
+    private void refreshLag() {
+        try {
+            pending.set(outboxEventRepository.count());
+            lagMillis.set(outboxEventRepository.findOldestCreatedAt()
+                    .map(oldest -> Math.max(0, Duration.between(oldest, Instant.now()).toMillis()))
+                    .orElse(0L));
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh outbox lag | Error={}", e.getMessage());
+        }
+    }
+}
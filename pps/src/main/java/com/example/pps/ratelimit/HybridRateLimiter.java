@@ -0,0 +1,238 @@
+package com.example.pps.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key rate limiter that spends tokens leased from a shared {@link TokenStore}.
+ * Each request names its {@link RateLimitPolicy}; a key is limited separately under
+ * every policy it is used with.
+ *
+ * Instead of one store round trip per request, an instance leases up to
+ * {@code leaseSize} tokens (never more than the policy's burst) for a key and hands them out locally with a CAS on an
+ * {@link AtomicLong}; only the request that finds the lease empty goes back to the
+ * store. Tokens are debited from the shared bucket when leased, so the instances
+ * together never admit more than the bucket allows. Tokens still unspent after
+ * {@code leaseTtl} are returned with the next lease or by {@link #returnExpiredLeases},
+ * so an idle instance does not keep another one waiting for long. When the bucket is
+ * empty, the key is denied locally until the store says the next token is due.
+ * With {@code leaseSize} 1 every request goes to the store (strict mode).
+ *
+ * If the store fails, the limiter switches to local-only buckets for
+ * {@code fallbackRetry}. Each of those allows {@code 1/fallbackInstances} of the limit
+ * and burst, so a fleet of that size stays within them while Redis is down.
+ *
+ * Metrics: {@code pps.ratelimit.decisions{policy, result=allowed|denied}},
+ * {@code pps.ratelimit.store.calls}, {@code pps.ratelimit.store.failures} and
+ * {@code pps.ratelimit.fallback} (1 while limiting locally).
+ */
+public class HybridRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridRateLimiter.class);
+
+    private final TokenStore store;
+    private final long leaseSize;
+    private final long leaseTtlNanos;
+    private final long fallbackRetryNanos;
+    private final int fallbackInstances;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, KeyLease> leases = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> fallbackBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong fallbackUntil;
+    private final AtomicLong inFallback = new AtomicLong();
+
+    private final Map<String, Counter[]> decisions = new ConcurrentHashMap<>();
+    private final Counter storeCalls;
+    private final Counter storeFailures;
+
+    public HybridRateLimiter(TokenStore store,
+                             long leaseSize,
+                             Duration leaseTtl,
+                             int fallbackInstances,
+                             Duration fallbackRetry,
+                             MeterRegistry meterRegistry,
+                             LongSupplier nanoClock) {
+        if (leaseSize < 1) {
+            throw new IllegalArgumentException("leaseSize must be positive: " + leaseSize);
+        }
+        this.store = store;
+        this.leaseSize = leaseSize;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.fallbackRetryNanos = fallbackRetry.toNanos();
+        this.fallbackInstances = Math.max(1, fallbackInstances);
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        this.fallbackUntil = new AtomicLong(nanoClock.getAsLong());
+        this.storeCalls = meterRegistry.counter("pps.ratelimit.store.calls");
+        this.storeFailures = meterRegistry.counter("pps.ratelimit.store.failures");
+        meterRegistry.gauge("pps.ratelimit.fallback", inFallback);
+    }
+
+    /**
+     * @return 0 if the request may proceed, otherwise how many milliseconds the caller
+     *         should wait before trying again (at least 1)
+     */
+    public long tryAcquire(String key, RateLimitPolicy policy) {
+        long retryAfter = decide(policy.name() + ":" + key, key, policy);
+        Counter[] counters = decisions.computeIfAbsent(policy.name(), name -> new Counter[]{
+                meterRegistry.counter("pps.ratelimit.decisions", "policy", name, "result", "allowed"),
+                meterRegistry.counter("pps.ratelimit.decisions", "policy", name, "result", "denied")});
+        counters[retryAfter == 0 ? 0 : 1].increment();
+        return retryAfter;
+    }
+
+    private long decide(String leaseKey, String key, RateLimitPolicy policy) {
+        long now = nanoClock.getAsLong();
+        if (now - fallbackUntil.get() < 0) {
+            return tryFallback(leaseKey, policy);
+        }
+        KeyLease lease = leases.computeIfAbsent(leaseKey, ignored -> new KeyLease(key, policy, now));
+        lease.lastUsed = now;
+        if (lease.trySpend(now)) {
+            return 0;
+        }
+        synchronized (lease) {
+            if (lease.retired) {
+                return decide(leaseKey, key, policy);
+            }
+            // Another thread may have refilled the lease while we waited
+            if (lease.trySpend(now)) {
+                return 0;
+            }
+            if (now - lease.deniedUntil < 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(lease.deniedUntil - now));
+            }
+            long unspent = lease.tokens.getAndSet(0);
+            TokenStore.Lease granted;
+            try {
+                storeCalls.increment();
+                granted = store.lease(key, policy, Math.min(leaseSize, policy.burst()), unspent);
+            } catch (RuntimeException e) {
+                storeFailures.increment();
+                enterFallback(now, e);
+                return tryFallback(leaseKey, policy);
+            }
+            if (granted.granted() == 0) {
+                lease.deniedUntil = now + TimeUnit.MILLISECONDS.toNanos(granted.retryAfterMillis());
+                return Math.max(1, granted.retryAfterMillis());
+            }
+            lease.expiresAt = now + leaseTtlNanos;
+            // Keep one token for this request; publish the rest last so spenders see a live expiry
+            lease.tokens.set(granted.granted() - 1);
+            return 0;
+        }
+    }
+
+    private long tryFallback(String leaseKey, RateLimitPolicy policy) {
+        Bucket bucket = fallbackBuckets.computeIfAbsent(leaseKey, ignored -> Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(Math.max(1, policy.burst() / fallbackInstances))
+                        .refillGreedy(Math.max(1, policy.limit() / fallbackInstances), policy.period())
+                        .build())
+                .build());
+        var probe = bucket.tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed() ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()));
+    }
+
+    private void enterFallback(long now, RuntimeException cause) {
+        long previous = fallbackUntil.getAndSet(now + fallbackRetryNanos);
+        if (now - previous >= 0) {
+            inFallback.set(1);
+            log.warn("Rate limit store unavailable, limiting locally for {} ms | Error={}",
+                    TimeUnit.NANOSECONDS.toMillis(fallbackRetryNanos), cause.getMessage());
+        }
+    }
+
+    /**
+     * Returns expired leases to the store in one batch and forgets keys that have gone idle.
+     */
+    @Scheduled(fixedDelayString = "${pps.rate-limit.lease-ttl:PT1S}")
+    public void returnExpiredLeases() {
+        long now = nanoClock.getAsLong();
+        if (now - fallbackUntil.get() >= 0) {
+            inFallback.set(0);
+        }
+        List<TokenStore.Refund> refunds = new ArrayList<>();
+        leases.forEach((leaseKey, lease) -> {
+            if (now - lease.expiresAt >= 0 && lease.tokens.get() > 0) {
+                synchronized (lease) {
+                    long unspent = lease.tokens.getAndSet(0);
+                    if (unspent > 0) {
+                        refunds.add(new TokenStore.Refund(lease.key, lease.policy, unspent));
+                    }
+                }
+            }
+            long idleEviction = Math.max(lease.policy.period().toNanos(), leaseTtlNanos);
+            if (now - lease.lastUsed > idleEviction) {
+                synchronized (lease) {
+                    if (lease.tokens.get() == 0) {
+                        lease.retired = true;
+                        leases.remove(leaseKey, lease);
+                    }
+                }
+            }
+        });
+        if (!refunds.isEmpty()) {
+            try {
+                storeCalls.increment(refunds.size());
+                store.refund(refunds);
+            } catch (RuntimeException e) {
+                // Unreturned tokens only make the limit stricter until they would have been due
+                storeFailures.increment();
+            }
+        }
+        if (now - fallbackUntil.get() >= 0) {
+            fallbackBuckets.clear();
+        }
+    }
+
+    /**
+     * Tokens leased for one key on this instance.
+     */
+    private static final class KeyLease {
+        private final String key;
+        private final RateLimitPolicy policy;
+        private final AtomicLong tokens = new AtomicLong();
+        private volatile long expiresAt;
+        private volatile long deniedUntil;
+        private volatile long lastUsed;
+        // Set once evicted, under the lock; a request still holding it starts over
+        private boolean retired;
+
+        KeyLease(String key, RateLimitPolicy policy, long now) {
+            this.key = key;
+            this.policy = policy;
+            this.expiresAt = now;
+            this.deniedUntil = now;
+            this.lastUsed = now;
+        }
+
+        boolean trySpend(long now) {
+            if (now - expiresAt >= 0) {
+                return false;
+            }
+            for (long left = tokens.get(); left > 0; left = tokens.get()) {
+                if (tokens.compareAndSet(left, left - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.pps.ratelimit;
+
+import java.util.Map;
+
+/**
+ * The policy for each route class and merchant tier. A tier without its own policy
+ * for a route gets the route's {@link #DEFAULT_TIER} policy.
+ */
+public class RateLimitPolicies {
+
+    public static final String DEFAULT_TIER = "standard";
+
+    private final Map<String, Map<String, RateLimitPolicy>> byRoute;
+
+    public RateLimitPolicies(Map<String, Map<String, RateLimitPolicy>> byRoute) {
+        byRoute.forEach((route, tiers) -> {
+            if (!tiers.containsKey(DEFAULT_TIER)) {
+                throw new IllegalArgumentException("No " + DEFAULT_TIER + " rate limit policy for route " + route);
+            }
+        });
+        this.byRoute = Map.copyOf(byRoute);
+    }
+
+    public RateLimitPolicy resolve(String route, String tier) {
+        Map<String, RateLimitPolicy> tiers = byRoute.get(route);
+        if (tiers == null) {
+            throw new IllegalArgumentException("No rate limit policies for route " + route);
+        }
+        RateLimitPolicy policy = tier != null ? tiers.get(tier) : null;
+        return policy != null ? policy : tiers.get(DEFAULT_TIER);
+    }
+}
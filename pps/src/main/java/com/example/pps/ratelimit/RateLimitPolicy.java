@@ -0,0 +1,34 @@
+package com.example.pps.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A GCRA limit: {@code limit} requests per {@code period}, of which up to {@code burst}
+ * may arrive back to back. The name identifies the policy in Redis keys and metrics.
+ */
+public record RateLimitPolicy(String name, long limit, Duration period, long burst) {
+
+    public RateLimitPolicy {
+        if (limit < 1 || burst < 1) {
+            throw new IllegalArgumentException("limit and burst must be positive: " + name);
+        }
+        if (period.toNanos() / limit < TimeUnit.MICROSECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("more than one request per microsecond: " + name);
+        }
+    }
+
+    /**
+     * Time between two requests at the sustained rate.
+     */
+    public long emissionIntervalMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(period.toNanos()) / limit;
+    }
+
+    /**
+     * How far ahead of the sustained rate a key may run, which is what allows the burst.
+     */
+    public long burstToleranceMicros() {
+        return (burst - 1) * emissionIntervalMicros();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.pps.ratelimit;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link TokenStore} on Redis using GCRA: each key is a single integer, its theoretical
+ * arrival time (TAT) in microseconds on the Redis clock, under
+ * {@code ratelimit:<policy>:<key>}. One Lua script reads, decides and writes it in a
+ * single round trip, so instances never need synchronised clocks, and the key expires
+ * as soon as the TAT is in the past, when it would be equivalent to a fresh key.
+ *
+ * The connection is shared, so concurrent callers' scripts are pipelined on it rather
+ * than each waiting for a connection; {@link #refund} sends all its scripts before
+ * waiting for any reply.
+ */
+public class RedisTokenStore implements TokenStore {
+
+    private static final String LEASE = """
+            local interval = tonumber(ARGV[1])
+            local tolerance = tonumber(ARGV[2])
+            local wanted = tonumber(ARGV[3])
+            local returned = tonumber(ARGV[4])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local tat = tonumber(redis.call('GET', KEYS[1])) or now
+            tat = math.max(tat - returned * interval, now)
+            local granted = math.max(0, math.min(wanted, math.floor((now + tolerance - tat) / interval) + 1))
+            tat = tat + granted * interval
+            if tat > now then
+              redis.call('SET', KEYS[1], string.format('%d', tat), 'PX', math.ceil((tat - now) / 1000) + 1000)
+            else
+              redis.call('DEL', KEYS[1])
+            end
+            local retry_after = 0
+            if granted == 0 and wanted > 0 then
+              retry_after = math.ceil((tat - tolerance - now) / 1000)
+            end
+            return {granted, retry_after}
+            """;
+
+    private static final Duration REFUND_TIMEOUT = Duration.ofSeconds(1);
+
+    private final StatefulRedisConnection<String, String> redis;
+    private final String leaseSha;
+
+    public RedisTokenStore(StatefulRedisConnection<String, String> redis) {
+        this.redis = redis;
+        this.leaseSha = redis.sync().digest(LEASE);
+    }
+
+    @Override
+    public Lease lease(String key, RateLimitPolicy policy, long wanted, long returned) {
+        String[] keys = keys(key, policy);
+        String[] args = args(policy, wanted, returned);
+        List<Long> result;
+        try {
+            result = redis.sync().evalsha(leaseSha, ScriptOutputType.MULTI, keys, args);
+        } catch (RedisNoScriptException e) {
+            // First call, or the script cache was flushed (e.g. Redis restarted); EVAL caches it again
+            result = redis.sync().eval(LEASE, ScriptOutputType.MULTI, keys, args);
+        }
+        return new Lease(result.get(0), result.get(1));
+    }
+
+    @Override
+    public void refund(List<Refund> refunds) {
+        List<RedisFuture<List<Long>>> replies = new ArrayList<>(refunds.size());
+        for (Refund refund : refunds) {
+            replies.add(redis.async().evalsha(leaseSha, ScriptOutputType.MULTI,
+                    keys(refund.key(), refund.policy()), args(refund.policy(), 0, refund.tokens())));
+        }
+        long deadline = System.nanoTime() + REFUND_TIMEOUT.toNanos();
+        List<Refund> unscripted = new ArrayList<>();
+        for (int i = 0; i < replies.size(); i++) {
+            try {
+                replies.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RedisNoScriptException) {
+                    unscripted.add(refunds.get(i));
+                }
+            } catch (TimeoutException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!unscripted.isEmpty()) {
+            // The script cache was flushed; lease() loads it again
+            TokenStore.super.refund(unscripted);
+        }
+    }
+
+    private static String[] keys(String key, RateLimitPolicy policy) {
+        return new String[]{"ratelimit:" + policy.name() + ":" + key};
+    }
+
+    private static String[] args(RateLimitPolicy policy, long wanted, long returned) {
+        return new String[]{
+                Long.toString(policy.emissionIntervalMicros()),
+                Long.toString(policy.burstToleranceMicros()),
+                Long.toString(wanted),
+                Long.toString(returned)};
+    }
+}
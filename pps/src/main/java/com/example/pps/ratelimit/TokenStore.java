@@ -0,0 +1,42 @@
+package com.example.pps.ratelimit;
+
+import java.util.List;
+
+/**
+ * The shared GCRA state that {@link HybridRateLimiter} leases tokens from, one per
+ * policy and key. A token is one request's slot at the policy's sustained rate.
+ */
+public interface TokenStore {
+
+    /**
+     * In one round trip, puts back {@code returned} unused tokens and takes up to
+     * {@code wanted} tokens for {@code key} under {@code policy}.
+     *
+     * @throws RuntimeException if the store is unreachable
+     */
+    Lease lease(String key, RateLimitPolicy policy, long wanted, long returned);
+
+    /**
+     * Puts back unused tokens for several keys at once. Failures are ignored: a token
+     * not returned only makes the limit stricter until it would have been due anyway.
+     */
+    default void refund(List<Refund> refunds) {
+        for (Refund refund : refunds) {
+            try {
+                lease(refund.key(), refund.policy(), 0, refund.tokens());
+            } catch (RuntimeException e) {
+                // See above
+            }
+        }
+    }
+
+    /**
+     * @param granted           tokens taken, between 0 and the number wanted
+     * @param retryAfterMillis  when nothing was granted, how long until the next token
+     */
+    record Lease(long granted, long retryAfterMillis) {
+    }
+
+    record Refund(String key, RateLimitPolicy policy, long tokens) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.pps.reconciliation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spaces calls evenly at no more than {@code callsPerSecond}, without bursts.
+ */
+final class CallBudget {
+
+    private final long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+
+    CallBudget(double callsPerSecond) {
+        if (callsPerSecond <= 0) {
+            throw new IllegalArgumentException("callsPerSecond must be positive: " + callsPerSecond);
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / callsPerSecond);
+    }
+
+    /**
+     * Blocks until the next call is within budget.
+     *
+     * @return nanoseconds spent waiting
+     */
+    long acquire() {
+        long waitNanos = reserve();
+        long deadline = System.nanoTime() + waitNanos;
+        for (long remaining = waitNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+        return waitNanos;
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        long slot = Math.max(now, nextFreeNanos);
+        nextFreeNanos = slot + intervalNanos;
+        return slot - now;
+    }
+}
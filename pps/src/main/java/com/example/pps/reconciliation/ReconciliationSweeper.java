@@ -0,0 +1,270 @@
+package com.example.pps.reconciliation;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.gateway.GatewayFactory;
+import com.example.pps.gateway.GatewayVerification;
+import com.example.pps.repository.TransactionRepository;
+import com.example.pps.service.MerchantNotifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settles PENDING transactions whose webhook never arrived by asking the gateway.
+ *
+ * Transactions are split into {@code pps.reconciliation.shards} shards by a hash of
+ * their id. Every {@code pps.reconciliation.interval} each instance walks the shards,
+ * starting at a random one, and sweeps those it can lease in Redis ({@link ShardLeases}),
+ * so no transaction is ever queried by two instances at once. A sweep scans the shard's
+ * PENDING rows not updated for {@code pps.reconciliation.stale-after} by keyset on
+ * {@code (created_at, id)}, {@code pps.reconciliation.batch-size} at a time. For each
+ * page it verifies every row with its gateway, spacing calls to stay within
+ * {@code pps.reconciliation.calls-per-second} per gateway on this instance, and then
+ * applies every settled outcome in one JDBC batch of conditional PENDING updates, with
+ * the merchant notifications, in one transaction. Rows the gateway still reports as
+ * pending, or that it could not be asked about, are left for the next sweep. The lease
+ * is renewed before every page, and the sweep stops as soon as the lease is lost.
+ *
+ * Metrics: {@code pps.reconciliation.scanned}, {@code pps.reconciliation.settled{status}},
+ * {@code pps.reconciliation.gateway.calls{gateway,outcome=settled|pending|error}},
+ * {@code pps.reconciliation.budget{gateway}} (calls per second allowed),
+ * {@code pps.reconciliation.budget.wait{gateway}} (time spent throttled),
+ * {@code pps.reconciliation.shard.duration} and {@code pps.reconciliation.shards.skipped}.
+ */
+@Component
+public class ReconciliationSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationSweeper.class);
+
+    private static final String STALE_PENDING_PAGE = """
+            select id, created_at, merchant_id, merchant_ref, pg_transaction_ref, payment_gateway, amount, currency
+              from transactions
+             where status = 'PENDING'
+               and updated_at < ?
+               and (hashtext(id::text) & 2147483647) % ? = ?
+               and (created_at, id) > (?, ?)
+             order by created_at, id
+             limit ?
+            """;
+
+    // transitionStatus(PENDING -> ?) as a batchable statement
+    private static final String SETTLE_PENDING = """
+            update transactions
+               set status = ?, updated_at = ?
+             where id = ? and created_at = ? and status = 'PENDING'
+            """;
+
+    private static final RowMapper<PendingTransaction> PENDING_TRANSACTION = (rs, rowNum) -> new PendingTransaction(
+            rs.getObject("id", UUID.class),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getObject("merchant_id", UUID.class),
+            rs.getString("merchant_ref"),
+            rs.getString("pg_transaction_ref"),
+            Transaction.PaymentGateway.valueOf(rs.getString("payment_gateway")),
+            rs.getBigDecimal("amount"),
+            Transaction.Currency.valueOf(rs.getString("currency")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GatewayFactory gatewayFactory;
+    private final MerchantNotifier merchantNotifier;
+    private final ShardLeases shardLeases;
+    private final MeterRegistry meterRegistry;
+    private final int shards;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final Duration callTimeout;
+
+    private final Map<Transaction.PaymentGateway, CallBudget> budgets = new EnumMap<>(Transaction.PaymentGateway.class);
+    private final Map<Transaction.PaymentGateway, Timer> budgetWaits = new EnumMap<>(Transaction.PaymentGateway.class);
+    private final Counter scanned;
+    private final Counter skippedShards;
+    private final Timer shardDuration;
+
+    public ReconciliationSweeper(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 GatewayFactory gatewayFactory,
+                                 MerchantNotifier merchantNotifier,
+                                 ShardLeases shardLeases,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${pps.reconciliation.shards:16}") int shards,
+                                 @Value("${pps.reconciliation.batch-size:100}") int batchSize,
+                                 @Value("${pps.reconciliation.stale-after:PT15M}") Duration staleAfter,
+                                 @Value("${pps.reconciliation.calls-per-second:20}") double callsPerSecond,
+                                 @Value("${pps.reconciliation.call-timeout:PT20S}") Duration callTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.gatewayFactory = gatewayFactory;
+        this.merchantNotifier = merchantNotifier;
+        this.shardLeases = shardLeases;
+        this.meterRegistry = meterRegistry;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.staleAfter = staleAfter;
+        this.callTimeout = callTimeout;
+        for (Transaction.PaymentGateway gateway : Transaction.PaymentGateway.values()) {
+            budgets.put(gateway, new CallBudget(callsPerSecond));
+            budgetWaits.put(gateway, meterRegistry.timer("pps.reconciliation.budget.wait", "gateway", gateway.name()));
+            Gauge.builder("pps.reconciliation.budget", () -> callsPerSecond).tag("gateway", gateway.name()).register(meterRegistry);
+        }
+        this.scanned = meterRegistry.counter("pps.reconciliation.scanned");
+        this.skippedShards = meterRegistry.counter("pps.reconciliation.shards.skipped");
+        this.shardDuration = meterRegistry.timer("pps.reconciliation.shard.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${pps.reconciliation.interval:PT5M}", initialDelayString = "${pps.reconciliation.interval:PT5M}")
+    public void sweep() {
+        int first = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = (first + i) % shards;
+            if (!shardLeases.acquire(shard)) {
+                skippedShards.increment();
+                continue;
+            }
+            try {
+                shardDuration.record(() -> sweepShard(shard));
+            } catch (RuntimeException e) {
+                log.warn("Reconciliation of shard {} failed | Error={}", shard, e.getMessage());
+            } finally {
+                shardLeases.release(shard);
+            }
+        }
+    }
+
+    private void sweepShard(int shard) {
+        Timestamp staleBefore = Timestamp.from(Instant.now().minus(staleAfter));
+        Timestamp afterCreatedAt = new Timestamp(0);
+        UUID afterId = new UUID(0, 0);
+        int settled = 0;
+        List<PendingTransaction> page;
+        do {
+            if (!shardLeases.renew(shard)) {
+                log.warn("Lost reconciliation lease, stopping | Shard={}", shard);
+                return;
+            }
+            page = jdbcTemplate.query(STALE_PENDING_PAGE, PENDING_TRANSACTION,
+                    staleBefore, shards, shard, afterCreatedAt, afterId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            scanned.increment(page.size());
+            settled += reconcile(page);
+            PendingTransaction last = page.get(page.size() - 1);
+            afterCreatedAt = Timestamp.from(last.createdAt());
+            afterId = last.id();
+        } while (page.size() == batchSize);
+        if (settled > 0) {
+            log.info("Reconciled shard {} | Settled={}", shard, settled);
+        }
+    }
+
+    private int reconcile(List<PendingTransaction> page) {
+        List<CompletableFuture<GatewayVerification>> calls = new ArrayList<>(page.size());
+        for (PendingTransaction transaction : page) {
+            Transaction.PaymentGateway gateway = transaction.paymentGateway();
+            budgetWaits.get(gateway).record(budgets.get(gateway).acquire(), TimeUnit.NANOSECONDS);
+            CompletableFuture<GatewayVerification> call;
+            try {
+                call = gatewayFactory.monitoredGateway(gateway).verifyTransactionAsync(transaction.merchantRef());
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            calls.add(call.orTimeout(callTimeout.toMillis(), TimeUnit.MILLISECONDS));
+        }
+
+        List<PendingTransaction> toSettle = new ArrayList<>();
+        List<Transaction.Status> outcomes = new ArrayList<>();
+        for (int i = 0; i < page.size(); i++) {
+            PendingTransaction transaction = page.get(i);
+            GatewayVerification verification;
+            try {
+                verification = calls.get(i).join();
+            } catch (RuntimeException e) {
+                countCall(transaction.paymentGateway(), "error");
+                log.debug("Could not verify transaction | TxnID={} | Gateway={} | Error={}",
+                        transaction.id(), transaction.paymentGateway(), e.getMessage());
+                continue;
+            }
+            if (!verification.status().isTerminal()) {
+                countCall(transaction.paymentGateway(), "pending");
+                continue;
+            }
+            countCall(transaction.paymentGateway(), "settled");
+            toSettle.add(transaction);
+            outcomes.add(verification.status());
+        }
+        if (toSettle.isEmpty()) {
+            return 0;
+        }
+        Integer settled = transactionTemplate.execute(status -> settle(toSettle, outcomes));
+        return settled == null ? 0 : settled;
+    }
+
+    private int settle(List<PendingTransaction> transactions, List<Transaction.Status> outcomes) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> args = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            PendingTransaction transaction = transactions.get(i);
+            args.add(new Object[]{outcomes.get(i).name(), now, transaction.id(), Timestamp.from(transaction.createdAt())});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(SETTLE_PENDING, args);
+
+        int settled = 0;
+        for (int i = 0; i < updated.length; i++) {
+            // 0: settled by a webhook since the scan
+            if (updated[i] > 0) {
+                settled++;
+                Transaction.Status status = outcomes.get(i);
+                meterRegistry.counter("pps.reconciliation.settled", "status", status.name()).increment();
+                merchantNotifier.statusChanged(transactions.get(i), Transaction.Status.PENDING, status);
+                log.info("Transaction reconciled with gateway | TxnID={} | PENDING -> {}", transactions.get(i).id(), status);
+            }
+        }
+        return settled;
+    }
+
+    private void countCall(Transaction.PaymentGateway gateway, String outcome) {
+        meterRegistry.counter("pps.reconciliation.gateway.calls", "gateway", gateway.name(), "outcome", outcome).increment();
+    }
+
+    private record PendingTransaction(UUID id,
+                                      Instant createdAt,
+                                      UUID merchantId,
+                                      String merchantRef,
+                                      String pgTransactionRef,
+                                      Transaction.PaymentGateway paymentGateway,
+                                      BigDecimal amount,
+                                      Transaction.Currency currency) implements TransactionRepository.StatusRef {
+        @Override public UUID getId() { return id; }
+        @Override public Instant getCreatedAt() { return createdAt; }
+        @Override public UUID getMerchantId() { return merchantId; }
+        @Override public String getMerchantRef() { return merchantRef; }
+        @Override public String getPgTransactionRef() { return pgTransactionRef; }
+        @Override public Transaction.PaymentGateway getPaymentGateway() { return paymentGateway; }
+        @Override public BigDecimal getAmount() { return amount; }
+        @Override public Transaction.Currency getCurrency() { return currency; }
+        @Override public Transaction.Status getStatus() { return Transaction.Status.PENDING; }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.pps.reconciliation;
+
+import com.example.pps.entity.UuidV7Generator;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Exclusive, expiring leases on reconciliation shards, held in Redis as
+ * {@code reconciliation:shard:<n> = <owner>}. Renew and release only act while the key
+ * still holds this instance's owner token, so a lease that expired and was taken over
+ * is never extended or deleted by its previous holder. When Redis is unreachable no
+ * lease is granted: skipping a sweep is safe, querying a gateway twice is not.
+ */
+@Component
+public class ShardLeases {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardLeases.class);
+
+    private static final String RENEW = """
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+              return redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return 0
+            """;
+    private static final String RELEASE = """
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+              return redis.call('del', KEYS[1])
+            end
+            return 0
+            """;
+
+    private final StatefulRedisConnection<String, String> redis;
+    private final Duration lease;
+    private final String owner = UuidV7Generator.generate().toString();
+
+    public ShardLeases(StatefulRedisConnection<String, String> redis,
+                       @Value("${pps.reconciliation.lease:PT1M}") Duration lease) {
+        this.redis = redis;
+        this.lease = lease;
+    }
+
+    public boolean acquire(int shard) {
+        try {
+            return "OK".equals(redis.sync().set(key(shard), owner, SetArgs.Builder.nx().px(lease.toMillis())));
+        } catch (RedisException e) {
+            log.warn("Could not acquire reconciliation lease | Shard={} | Error={}", shard, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return false if the lease has been lost, in which case the caller must stop
+     */
+    public boolean renew(int shard) {
+        try {
+            Long renewed = redis.sync().eval(RENEW, ScriptOutputType.INTEGER, new String[]{key(shard)},
+                    owner, Long.toString(lease.toMillis()));
+            return renewed != null && renewed == 1;
+        } catch (RedisException e) {
+            log.warn("Could not renew reconciliation lease | Shard={} | Error={}", shard, e.getMessage());
+            return false;
+        }
+    }
+
+    public void release(int shard) {
+        try {
+            redis.sync().eval(RELEASE, ScriptOutputType.INTEGER, new String[]{key(shard)}, owner);
+        } catch (RedisException e) {
+            log.warn("Could not release reconciliation lease, it expires in {} | Shard={} | Error={}", lease, shard, e.getMessage());
+        }
+    }
+
+    private static String key(int shard) {
+        return "reconciliation:shard:" + shard;
+    }
+}
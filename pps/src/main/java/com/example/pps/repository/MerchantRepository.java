@@ -7,5 +7,9 @@ import java.util.Optional;
 import java.util.UUID;
 
 public interface MerchantRepository extends JpaRepository<Merchant, UUID> {
-    Optional<Merchant> findByApiKey(String apiKey);
+    Optional<Merchant> findByApiKeyHash(String apiKeyHash);
+
+    Optional<Merchant> findByEmail(String email);
+
+    boolean existsByEmail(String email);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.example.pps.repository;
+
+import com.example.pps.entity.MerchantWebhookDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface MerchantWebhookDeadLetterRepository extends JpaRepository<MerchantWebhookDeadLetter, UUID> {
+    List<MerchantWebhookDeadLetter> findByMerchantIdOrderByCreatedAtAsc(UUID merchantId);
+}
@@ -0,0 +1,30 @@
+package com.example.pps.repository;
+
+import com.example.pps.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    /**
+     * Locks the oldest unpublished events for the current transaction. Rows already
+     * locked by another relay instance are skipped rather than waited for, so instances
+     * drain disjoint batches in parallel.
+     */
+    @Query(value = """
+            select * from outbox_events
+             order by id
+             limit :limit
+               for update skip locked
+            """, nativeQuery = true)
+    List<OutboxEvent> lockBatch(@Param("limit") int limit);
+
+    @Query("select min(o.createdAt) from OutboxEvent o")
+    Optional<Instant> findOldestCreatedAt();
+}
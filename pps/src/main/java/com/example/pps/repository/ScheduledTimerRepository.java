@@ -0,0 +1,87 @@
+package com.example.pps.repository;
+
+import com.example.pps.entity.ScheduledTimer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ScheduledTimerRepository extends JpaRepository<ScheduledTimer, UUID> {
+
+    /**
+     * Inserts a timer, or moves the existing timer with the same kind and key. The row
+     * gets a new id and loses its lease, so a copy already loaded by some instance can
+     * no longer fire (see {@link #deleteOwned}).
+     */
+    @Modifying
+    @Query(value = """
+            insert into scheduled_timers (id, kind, timer_key, payload, due_at, created_at)
+            values (:id, :kind, :key, :payload, :dueAt, :now)
+            on conflict (kind, timer_key) do update
+               set id = excluded.id,
+                   payload = excluded.payload,
+                   due_at = excluded.due_at,
+                   owner = null,
+                   lease_until = null
+            """, nativeQuery = true)
+    int upsert(@Param("id") UUID id,
+               @Param("kind") String kind,
+               @Param("key") String key,
+               @Param("payload") String payload,
+               @Param("dueAt") Instant dueAt,
+               @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from ScheduledTimer t where t.kind = :kind and t.timerKey = :key")
+    int deleteByKindAndKey(@Param("kind") String kind, @Param("key") String key);
+
+    /**
+     * Locks unowned (or abandoned) timers due before {@code horizon}, soonest first,
+     * skipping rows another instance is claiming at the same moment.
+     */
+    @Query(value = """
+            select * from scheduled_timers
+             where due_at < :horizon
+               and (lease_until is null or lease_until < :now)
+             order by due_at
+             limit :limit
+               for update skip locked
+            """, nativeQuery = true)
+    List<ScheduledTimer> lockClaimable(@Param("horizon") Instant horizon, @Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update ScheduledTimer t set t.owner = :owner, t.leaseUntil = :leaseUntil where t.id in :ids")
+    int lease(@Param("ids") Collection<UUID> ids, @Param("owner") String owner, @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying
+    @Query("update ScheduledTimer t set t.leaseUntil = :leaseUntil where t.owner = :owner and t.id in :ids")
+    int renewLeases(@Param("ids") Collection<UUID> ids, @Param("owner") String owner, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Deletes a timer that is due, provided this instance still holds it.
+     *
+     * @return 1 if the caller should fire the timer, 0 if it was cancelled, moved or taken over
+     */
+    @Modifying
+    @Query("delete from ScheduledTimer t where t.id = :id and t.owner = :owner")
+    int deleteOwned(@Param("id") UUID id, @Param("owner") String owner);
+
+    /**
+     * Hands a timer whose handler failed back to the pool, due again at {@code dueAt}.
+     */
+    @Modifying
+    @Query("""
+            update ScheduledTimer t
+               set t.dueAt = :dueAt, t.owner = null, t.leaseUntil = null
+             where t.id = :id and t.owner = :owner
+            """)
+    int release(@Param("id") UUID id, @Param("owner") String owner, @Param("dueAt") Instant dueAt);
+
+    @Query("select count(t) from ScheduledTimer t where t.dueAt < :now")
+    long countOverdue(@Param("now") Instant now);
+}
@@ -2,13 +2,134 @@ package com.example.pps.repository;
 
 import com.example.pps.entity.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
-    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+public interface TransactionRepository extends JpaRepository<Transaction, UUID>, JpaSpecificationExecutor<Transaction> {
+    Optional<Transaction> findByMerchantIdAndIdempotencyKey(UUID merchantId, String idempotencyKey);
+    List<Transaction> findByMerchantIdAndIdempotencyKeyIn(UUID merchantId, Collection<String> idempotencyKeys);
     Optional<Transaction> findByMerchantRef(String merchantRef);
+
+    /**
+     * Looks up just what a status transition and its {@code PaymentEvent} need, without
+     * loading the entity or its merchant.
+     */
+    Optional<StatusRef> findStatusRefByMerchantRef(String merchantRef);
+    Optional<StatusRef> findStatusRefByIdAndCreatedAt(UUID id, Instant createdAt);
     Optional<Transaction> findByMerchantRefAndMerchantId(String merchantRef, UUID merchantId);
     Optional<Transaction> findByPgTransactionRefAndPaymentGateway(String pgTransactionRef, Transaction.PaymentGateway paymentGateway);
-}
\ No newline at end of file
+
+    /**
+     * Finalizes a reserved transaction once the gateway has answered.
+     * Only applies while the row is still INITIATING, so a late gateway response
+     * cannot resurrect a row the recovery job has already failed.
+     * {@code createdAt} pins the row's partition so the update touches only one.
+     *
+     * @return number of rows updated (0 or 1)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Transaction t
+               set t.status = com.example.pps.entity.Transaction.Status.PENDING,
+                   t.pgTransactionRef = :pgTransactionRef,
+                   t.metadata = :metadata,
+                   t.updatedAt = :now
+             where t.id = :id
+               and t.createdAt = :createdAt
+               and t.status = com.example.pps.entity.Transaction.Status.INITIATING
+            """)
+    int completeInitiation(@Param("id") UUID id,
+                           @Param("createdAt") Instant createdAt,
+                           @Param("pgTransactionRef") String pgTransactionRef,
+                           @Param("metadata") String metadata,
+                           @Param("now") Instant now);
+
+    /**
+     * Marks a reserved transaction as FAILED when the gateway call errored out.
+     *
+     * @return number of rows updated (0 or 1)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Transaction t
+               set t.status = com.example.pps.entity.Transaction.Status.FAILED,
+                   t.updatedAt = :now
+             where t.id = :id
+               and t.createdAt = :createdAt
+               and t.status = com.example.pps.entity.Transaction.Status.INITIATING
+            """)
+    int failInitiation(@Param("id") UUID id, @Param("createdAt") Instant createdAt, @Param("now") Instant now);
+
+    /**
+     * Moves a transaction to {@code to} if, and only if, its current status is one of
+     * {@code from}; pass {@code to.predecessors()} to enforce the state machine on
+     * {@link Transaction.Status}. The check and the write are one statement, so
+     * concurrent webhooks cannot interleave and a settled transaction cannot be reopened.
+     *
+     * @return number of rows updated (0 or 1)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Transaction t
+               set t.status = :to,
+                   t.updatedAt = :now
+             where t.id = :id
+               and t.createdAt = :createdAt
+               and t.status in :from
+            """)
+    int transitionStatus(@Param("id") UUID id,
+                         @Param("createdAt") Instant createdAt,
+                         @Param("from") Collection<Transaction.Status> from,
+                         @Param("to") Transaction.Status to,
+                         @Param("now") Instant now);
+
+    /**
+     * Fails every transaction stuck in INITIATING since before the cutoff, i.e. rows
+     * whose initiating request crashed between the reserve and finalize phases.
+     *
+     * @return number of rows recovered
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Transaction t
+               set t.status = com.example.pps.entity.Transaction.Status.FAILED,
+                   t.updatedAt = :now
+             where t.status = com.example.pps.entity.Transaction.Status.INITIATING
+               and t.createdAt < :cutoff
+            """)
+    int failStaleInitiations(@Param("cutoff") Instant cutoff, @Param("now") Instant now);
+
+    interface StatusRef {
+        UUID getId();
+
+        Instant getCreatedAt();
+
+        UUID getMerchantId();
+
+        String getMerchantRef();
+
+        String getPgTransactionRef();
+
+        Transaction.PaymentGateway getPaymentGateway();
+
+        BigDecimal getAmount();
+
+        Transaction.Currency getCurrency();
+
+        Transaction.Status getStatus();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pps.security;
+
+import com.example.pps.entity.Merchant;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates {@code Authorization: Bearer <token>} requests with an access token from
+ * {@code /api/v1/auth/login}, unless an API key already did. The token is checked in
+ * memory by {@link AccessTokens}; the merchant principal comes from
+ * {@link MerchantApiKeyCache}, the same near-cache API keys use.
+ */
+public class AccessTokenAuthFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final AccessTokens accessTokens;
+    private final MerchantApiKeyCache merchantCache;
+
+    public AccessTokenAuthFilter(AccessTokens accessTokens, MerchantApiKeyCache merchantCache) {
+        this.accessTokens = accessTokens;
+        this.merchantCache = merchantCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        accessTokens.verify(header.substring(BEARER.length()).trim())
+                .flatMap(merchantCache::resolveById)
+                .ifPresent((Merchant merchant) -> {
+                    var auth = new UsernamePasswordAuthenticationToken(merchant, null, List.of());
+                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                });
+
+        filterChain.doFilter(request, response);
+    }
+}
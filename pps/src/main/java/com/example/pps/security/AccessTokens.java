@@ -0,0 +1,155 @@
+package com.example.pps.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues and verifies merchant access tokens without any I/O.
+ *
+ * A token is {@code <keyId>.<payload>.<signature>}, base64url without padding: the
+ * payload is the merchant id and expiry (24 bytes), the signature an HMAC-SHA256 of
+ * everything before it. New tokens are signed with the active key; any configured key
+ * verifies, so keys rotate by adding a new one, making it active, and removing the old
+ * one once its tokens have expired.
+ *
+ * The signature of each verified token keys a bounded LRU, so a client presenting the
+ * same token on every request pays for one HMAC rather than one per request.
+ */
+public class AccessTokens {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int PAYLOAD_BYTES = 24;
+    private static final int MAX_TOKEN_LENGTH = 128;
+
+    private final Map<String, SigningKey> keys = new HashMap<>();
+    private final SigningKey activeKey;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final Map<String, Verified> verified;
+
+    public AccessTokens(Map<String, String> secrets, String activeKeyId, Duration ttl, int verifiedCacheSize, Clock clock) {
+        secrets.forEach((keyId, secret) -> keys.put(keyId, new SigningKey(keyId, secret)));
+        this.activeKey = keys.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalArgumentException("No access token key with id " + activeKeyId);
+        }
+        this.ttlSeconds = ttl.toSeconds();
+        this.clock = clock;
+        this.verified = Collections.synchronizedMap(new LinkedHashMap<>(verifiedCacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        });
+    }
+
+    public String issue(UUID merchantId) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .putLong(merchantId.getMostSignificantBits())
+                .putLong(merchantId.getLeastSignificantBits())
+                .putLong(clock.instant().getEpochSecond() + ttlSeconds)
+                .array();
+        String signed = activeKey.id + "." + ENCODER.encodeToString(payload);
+        return signed + "." + ENCODER.encodeToString(activeKey.sign(signed));
+    }
+
+    public long ttlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @return the merchant the token was issued to, or empty if it is malformed,
+     *         forged, signed with an unknown key or expired
+     */
+    public Optional<UUID> verify(String token) {
+        if (token.length() > MAX_TOKEN_LENGTH) {
+            return Optional.empty();
+        }
+        int keyEnd = token.indexOf('.');
+        int payloadEnd = token.lastIndexOf('.');
+        if (keyEnd <= 0 || payloadEnd == keyEnd) {
+            return Optional.empty();
+        }
+        long now = clock.instant().getEpochSecond();
+        String signature = token.substring(payloadEnd + 1);
+
+        Verified hit = verified.get(signature);
+        if (hit != null && hit.token.equals(token)) {
+            return now < hit.expiresAt ? Optional.of(hit.merchantId) : Optional.empty();
+        }
+
+        SigningKey key = keys.get(token.substring(0, keyEnd));
+        if (key == null) {
+            return Optional.empty();
+        }
+        byte[] payload;
+        try {
+            if (!MessageDigest.isEqual(key.sign(token.substring(0, payloadEnd)), DECODER.decode(signature))) {
+                return Optional.empty();
+            }
+            payload = DECODER.decode(token.substring(keyEnd + 1, payloadEnd));
+        } catch (IllegalArgumentException e) {
+            // Not base64url
+            return Optional.empty();
+        }
+        if (payload.length != PAYLOAD_BYTES) {
+            return Optional.empty();
+        }
+        ByteBuffer claims = ByteBuffer.wrap(payload);
+        UUID merchantId = new UUID(claims.getLong(), claims.getLong());
+        long expiresAt = claims.getLong();
+        if (now >= expiresAt) {
+            return Optional.empty();
+        }
+        verified.put(signature, new Verified(token, merchantId, expiresAt));
+        return Optional.of(merchantId);
+    }
+
+    private record Verified(String token, UUID merchantId, long expiresAt) {
+    }
+
+    private static final class SigningKey {
+        private final String id;
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(String id, String secret) {
+            byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (id.isEmpty() || id.contains(".")) {
+                throw new IllegalArgumentException("Invalid access token key id: " + id);
+            }
+            if (bytes.length < 32) {
+                throw new IllegalArgumentException("Access token key " + id + " must be at least 32 bytes");
+            }
+            this.id = id;
+            SecretKeySpec spec = new SecretKeySpec(bytes, "HmacSHA256");
+            // Mac is not thread-safe and costly to initialise, so each thread keeps one
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance("HmacSHA256");
+                    instance.init(spec);
+                    return instance;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 not available", e);
+                }
+            });
+        }
+
+        byte[] sign(String data) {
+            return mac.get().doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
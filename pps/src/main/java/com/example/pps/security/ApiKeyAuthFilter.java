@@ -1,5 +1,6 @@
 package com.example.pps.security;
 
+import com.example.pps.entity.Merchant;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,13 +11,20 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Resolves the merchant behind the API key header once per request and exposes it
+ * as the authentication principal, so downstream code never looks the merchant up again.
+ */
 public class ApiKeyAuthFilter extends OncePerRequestFilter {
 
     private final String headerName;
+    private final MerchantApiKeyCache merchantApiKeyCache;
 
-    public ApiKeyAuthFilter(String headerName) {
+    public ApiKeyAuthFilter(String headerName, MerchantApiKeyCache merchantApiKeyCache) {
         this.headerName = headerName;
+        this.merchantApiKeyCache = merchantApiKeyCache;
     }
 
     @Override
@@ -32,13 +40,12 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        // ✅ Replace with DB lookup in MerchantRepository
-        if (apiKey.equals("test_api_key_123") || apiKey.equals("merchant123_api_secret")) {
-            var auth = new UsernamePasswordAuthenticationToken(apiKey, null, null);
+        merchantApiKeyCache.resolve(apiKey).ifPresent((Merchant merchant) -> {
+            var auth = new UsernamePasswordAuthenticationToken(merchant, null, List.of());
             auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(auth);
-        }
+        });
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
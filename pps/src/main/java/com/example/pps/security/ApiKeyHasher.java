@@ -0,0 +1,25 @@
+package com.example.pps.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashes merchant API keys for storage and lookup. Keys are high-entropy random
+ * secrets, so a fast unsalted SHA-256 is sufficient and keeps the lookup indexable.
+ */
+public final class ApiKeyHasher {
+
+    private ApiKeyHasher() {
+    }
+
+    public static String hash(String apiKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -6,24 +6,31 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Wrapper that caches the request body so it can be read multiple times
- * (useful for filters and downstream controllers).
+ * Wrapper that serves an already-read request body so it can be read again
+ * downstream (useful for filters and downstream controllers).
  */
 public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
 
     private final byte[] cachedBody;
+    private final int length;
 
-    public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+    /**
+     * @param body   buffer holding the body; only the first {@code length} bytes are served
+     * @param length number of valid bytes in {@code body}
+     */
+    public CachedBodyHttpServletRequest(HttpServletRequest request, byte[] body, int length) {
         super(request);
-        InputStream requestInputStream = request.getInputStream();
-        this.cachedBody = requestInputStream.readAllBytes();
+        this.cachedBody = body;
+        this.length = length;
     }
 
     @Override
     public ServletInputStream getInputStream() {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(this.cachedBody);
+        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(this.cachedBody, 0, this.length);
         return new ServletInputStream() {
             @Override
             public boolean isFinished() {
@@ -44,15 +51,38 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
             public int read() {
                 return byteArrayInputStream.read();
             }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return byteArrayInputStream.read(b, off, len);
+            }
+
+            @Override
+            public byte[] readAllBytes() {
+                return byteArrayInputStream.readAllBytes();
+            }
+
+            @Override
+            public int available() {
+                return byteArrayInputStream.available();
+            }
         };
     }
 
     @Override
     public BufferedReader getReader() {
-        return new BufferedReader(new InputStreamReader(this.getInputStream()));
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(this.getInputStream(), charset));
+    }
+
+    @Override
+    public int getContentLength() {
+        return this.length;
     }
 
-    public byte[] getCachedBody() {
-        return this.cachedBody;
+    @Override
+    public long getContentLengthLong() {
+        return this.length;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.example.pps.security;
+
+import com.example.pps.entity.Merchant;
+import com.example.pps.repository.MerchantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded near-cache of API-key hash -> merchant, and of merchant id -> merchant for
+ * requests authenticated with an access token.
+ *
+ * Unknown keys are cached too (for a shorter TTL) so a client hammering with a bad
+ * key cannot turn every request into a database query. Concurrent misses for the
+ * same key share one load. Entries are dropped early when {@link MerchantCacheInvalidator}
+ * receives a change notification from any instance.
+ */
+@Component
+public class MerchantApiKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantApiKeyCache.class);
+
+    private final MerchantRepository merchantRepository;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Map<String, Entry> entries;
+
+    public MerchantApiKeyCache(MerchantRepository merchantRepository,
+                               @Value("${pps.merchant-cache.ttl:PT5M}") Duration ttl,
+                               @Value("${pps.merchant-cache.negative-ttl:PT30S}") Duration negativeTtl,
+                               @Value("${pps.merchant-cache.max-size:10000}") int maxSize) {
+        this.merchantRepository = merchantRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(maxSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public Optional<Merchant> resolve(String apiKey) {
+        String apiKeyHash = ApiKeyHasher.hash(apiKey);
+        return resolve(apiKeyHash, () -> merchantRepository.findByApiKeyHash(apiKeyHash));
+    }
+
+    public Optional<Merchant> resolveById(UUID merchantId) {
+        // API-key hashes are hex, so this can never collide with one
+        return resolve("id:" + merchantId, () -> merchantRepository.findById(merchantId));
+    }
+
+    private Optional<Merchant> resolve(String cacheKey, Supplier<Optional<Merchant>> loader) {
+        long now = System.currentTimeMillis();
+
+        Entry mine = new Entry(new CompletableFuture<>());
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+            if (entry == null || entry.isExpired(now)) {
+                entry = mine;
+                entries.put(cacheKey, mine);
+            }
+        }
+
+        if (entry == mine) {
+            load(cacheKey, mine, loader);
+        }
+        return entry.merchant.join();
+    }
+
+    private void load(String cacheKey, Entry entry, Supplier<Optional<Merchant>> loader) {
+        try {
+            Optional<Merchant> merchant = loader.get();
+            entry.expiresAtMillis = System.currentTimeMillis() + (merchant.isPresent() ? ttlMillis : negativeTtlMillis);
+            entry.merchant.complete(merchant);
+        } catch (RuntimeException e) {
+            // Don't cache failures; waiters see the error and the next request retries
+            entries.remove(cacheKey, entry);
+            entry.merchant.completeExceptionally(e);
+            log.warn("Merchant lookup failed | Error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every entry for the merchant plus any (possibly negative) entry for its current key hash.
+     *
+     * Loads still in flight are dropped too, whoever they are for: one that read the
+     * merchant before the change must not be cached once it finishes, and which merchant
+     * a pending key lookup belongs to is not known yet. Its waiters still get its result.
+     */
+    public void invalidate(UUID merchantId, String apiKeyHash) {
+        synchronized (entries) {
+            if (apiKeyHash != null) {
+                entries.remove(apiKeyHash);
+            }
+            if (merchantId != null) {
+                entries.remove("id:" + merchantId);
+            }
+            entries.values().removeIf(entry -> !entry.merchant.isDone()
+                    || merchantId != null
+                    && !entry.merchant.isCompletedExceptionally()
+                    && entry.merchant.join().map(m -> merchantId.equals(m.getId())).orElse(false));
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Optional<Merchant>> merchant;
+        private volatile long expiresAtMillis = Long.MAX_VALUE;
+
+        private Entry(CompletableFuture<Optional<Merchant>> merchant) {
+            this.merchant = merchant;
+        }
+
+        private boolean isExpired(long now) {
+            return merchant.isDone() && now >= expiresAtMillis;
+        }
+    }
+}
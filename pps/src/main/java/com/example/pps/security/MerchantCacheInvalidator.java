@@ -0,0 +1,73 @@
+package com.example.pps.security;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Fans merchant changes out to every instance over Redis pub/sub so their
+ * {@link MerchantApiKeyCache}s do not serve a rotated or disabled key until TTL.
+ */
+@Component
+public class MerchantCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantCacheInvalidator.class);
+    static final String CHANNEL = "pps:merchant-invalidations";
+
+    private final StatefulRedisConnection<String, String> redis;
+    private final StatefulRedisPubSubConnection<String, String> subscription;
+    private final MerchantApiKeyCache cache;
+
+    public MerchantCacheInvalidator(RedisClient redisClient,
+                                    StatefulRedisConnection<String, String> redis,
+                                    MerchantApiKeyCache cache) {
+        this.redis = redis;
+        this.cache = cache;
+        this.subscription = redisClient.connectPubSub();
+        this.subscription.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String channel, String message) {
+                onMessage(message);
+            }
+        });
+        this.subscription.sync().subscribe(CHANNEL);
+    }
+
+    public void publish(UUID merchantId, String apiKeyHash) {
+        // Apply locally first so this instance is consistent even if Redis is down
+        cache.invalidate(merchantId, apiKeyHash);
+        try {
+            redis.async().publish(CHANNEL, merchantId + ":" + (apiKeyHash != null ? apiKeyHash : ""));
+        } catch (RedisException e) {
+            log.warn("Failed to publish merchant invalidation, peers will expire it by TTL | MerchantID={} | Error={}",
+                    merchantId, e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        int separator = message.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+        try {
+            UUID merchantId = UUID.fromString(message.substring(0, separator));
+            String apiKeyHash = message.substring(separator + 1);
+            cache.invalidate(merchantId, apiKeyHash.isEmpty() ? null : apiKeyHash);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed merchant invalidation message: {}", message);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        subscription.close();
+    }
+}
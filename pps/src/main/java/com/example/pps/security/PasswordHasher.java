@@ -0,0 +1,45 @@
+package com.example.pps.security;
+
+import com.example.pps.config.AuthProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Argon2id password hashing on {@code passwordHashExecutor}. Every hash holds its
+ * memory cost for tens of milliseconds, so running them on a small pool with a bounded
+ * queue caps both the memory and the CPU that sign-ins can take; beyond that the
+ * executor rejects and the caller gets a 503.
+ */
+@Component
+public class PasswordHasher {
+
+    private final Argon2PasswordEncoder encoder;
+    private final ThreadPoolTaskExecutor executor;
+    // Checked against when there is no such merchant, so a miss costs as much as a wrong password
+    private final String dummyHash;
+
+    public PasswordHasher(AuthProperties properties,
+                          @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor) {
+        AuthProperties.Password password = properties.getPassword();
+        this.encoder = new Argon2PasswordEncoder(16, 32,
+                password.getParallelism(), password.getMemoryKib(), password.getIterations());
+        this.executor = executor;
+        this.dummyHash = encoder.encode("not-a-real-password");
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return CompletableFuture.supplyAsync(() -> encoder.encode(password), executor);
+    }
+
+    /**
+     * @param hash the stored hash, or null to spend the same time and fail
+     */
+    public CompletableFuture<Boolean> matches(String password, String hash) {
+        return CompletableFuture.supplyAsync(
+                () -> encoder.matches(password, hash != null ? hash : dummyHash) && hash != null, executor);
+    }
+}
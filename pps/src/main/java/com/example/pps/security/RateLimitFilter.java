@@ -1,57 +1,52 @@
 package com.example.pps.security;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.Refill;
-import io.github.bucket4j.distributed.proxy.ProxyManager;
-import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
-import io.lettuce.core.RedisClient;
-import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.codec.ByteArrayCodec;
-import io.lettuce.core.codec.RedisCodec;
-import io.lettuce.core.codec.StringCodec;
+import com.example.pps.entity.Merchant;
+import com.example.pps.ratelimit.HybridRateLimiter;
+import com.example.pps.ratelimit.RateLimitPolicies;
+import com.example.pps.ratelimit.RateLimitPolicy;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
-
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Limits each request under the policy for its route class ({@code initiate},
+ * {@code read}, {@code webhook} or {@code auth}) and, for authenticated merchants,
+ * their rate-limit tier. Merchants are limited by id; everything else by client IP.
+ * Runs after {@link ApiKeyAuthFilter} and {@link AccessTokenAuthFilter}, whose
+ * merchant lookups are cached.
+ */
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private final ProxyManager<String> proxyManager;
-    private final RedisClient redisClient;
-
-    public RateLimitFilter(String redisUrl) {
-        // ✅ Create Redis client and connection
-        RedisURI redisURI = RedisURI.create(redisUrl);
-        this.redisClient = RedisClient.create(redisURI);
-
-        // ✅ Create a Redis codec manually — no CompositeCodec needed
-        RedisCodec<String, byte[]> codec = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
-
-        // ✅ Connect using the codec
-        StatefulRedisConnection<String, byte[]> connection = redisClient.connect(codec);
-
-        // ✅ Create a distributed Bucket4j ProxyManager
-        this.proxyManager = LettuceBasedProxyManager.builderFor(connection).build();
-    }
-
-    /**
-     * Resolves or creates a new bucket for a given key based on a standard configuration.
-     */
-    private io.github.bucket4j.Bucket resolveBucket(String key) {
-        Bandwidth limit = Bandwidth.classic(10, Refill.greedy(10, Duration.ofMinutes(1)));
-
-        BucketConfiguration configuration = BucketConfiguration.builder()
-                .addLimit(limit)
-                .build();
-
-        // ✅ Supplier form (required for newer Bucket4j versions)
-        return proxyManager.builder().build(key, () -> configuration);
+    private static final String INITIATE = "initiate";
+    private static final String READ = "read";
+    private static final String WEBHOOK = "webhook";
+    private static final String AUTH = "auth";
+
+    // Identical for every rejection, so it is encoded once
+    private static final byte[] TOO_MANY_REQUESTS = """
+            {"error":"Too Many Requests","message":"Rate limit exceeded. Try again later."}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HybridRateLimiter rateLimiter;
+    private final RateLimitPolicies policies;
+
+    public RateLimitFilter(HybridRateLimiter rateLimiter, RateLimitPolicies policies) {
+        this.rateLimiter = rateLimiter;
+        this.policies = policies;
+        // Fail at startup rather than on the first request to a route without a policy
+        for (String route : new String[]{INITIATE, READ, WEBHOOK, AUTH}) {
+            policies.resolve(route, RateLimitPolicies.DEFAULT_TIER);
+        }
     }
 
     @Override
@@ -60,32 +55,42 @@ public class RateLimitFilter extends OncePerRequestFilter {
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
-        String apiKey = request.getHeader("x-api-key");
-        String key = (apiKey != null && !apiKey.isBlank())
-                ? "apiKey:" + apiKey
-                : "ip:" + request.getRemoteAddr();
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Merchant merchant = auth != null && auth.getPrincipal() instanceof Merchant m ? m : null;
 
-        io.github.bucket4j.Bucket bucket = resolveBucket(key);
+        String key;
+        RateLimitPolicy policy;
+        if (merchant != null) {
+            key = "merchant:" + merchant.getId();
+            policy = policies.resolve(route(request), merchant.getRateLimitTier());
+        } else {
+            key = "ip:" + request.getRemoteAddr();
+            policy = policies.resolve(route(request), RateLimitPolicies.DEFAULT_TIER);
+        }
 
-        if (bucket.tryConsume(1)) {
+        long retryAfterMillis = rateLimiter.tryAcquire(key, policy);
+        if (retryAfterMillis == 0) {
             filterChain.doFilter(request, response);
         } else {
             response.setStatus(429);
-            response.setContentType("application/json");
-            response.getWriter().write("""
-                {
-                  "error": "Too Many Requests",
-                  "message": "Rate limit exceeded. Try again later."
-                }
-            """);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMillis + 999) / 1000));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(TOO_MANY_REQUESTS.length);
+            response.getOutputStream().write(TOO_MANY_REQUESTS);
         }
     }
 
-    @Override
-    public void destroy() {
-        if (redisClient != null) {
-            redisClient.shutdown();
+    private static String route(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/v1/webhooks/")) {
+            return WEBHOOK;
+        }
+        if (path.startsWith("/api/v1/auth/")) {
+            return AUTH;
+        }
+        if (path.startsWith("/api/v1/transactions") && !HttpMethod.GET.matches(request.getMethod())) {
+            return INITIATE;
         }
-        super.destroy();
+        return READ;
     }
-}
\ No newline at end of file
+}
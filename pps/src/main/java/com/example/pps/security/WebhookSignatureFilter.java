@@ -2,32 +2,44 @@ package com.example.pps.security;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
+import java.util.Arrays;
+import java.util.Map;
 
 /**
- * Validates webhook signatures from payment gateways (e.g., Paystack)
- * to prevent webhook spoofing and replay attacks.
+ * Validates webhook signatures from payment gateways to prevent webhook spoofing.
+ *
+ * The body is read once, in chunks, into a buffer bounded by {@code maxBodySize} while
+ * each chunk is fed to the gateway's {@link WebhookSignatureScheme}; the same buffer is
+ * then served to the controller. Bodies over the limit are rejected with 413 before
+ * they are fully read.
  */
 public class WebhookSignatureFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(WebhookSignatureFilter.class);
-    private static final String PAYSTACK_SIGNATURE_HEADER = "x-paystack-signature";
-    private static final String HMAC_SHA512 = "HmacSHA512";
-    private final String secretKey;
+    private static final String WEBHOOK_PATH_PREFIX = "/api/v1/webhooks/";
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    private final Map<String, WebhookSignatureScheme> schemesByGateway;
+    private final int maxBodySize;
+
+    /**
+     * @param schemesByGateway signature scheme per path segment after {@code /api/v1/webhooks/}
+     */
+    public WebhookSignatureFilter(Map<String, WebhookSignatureScheme> schemesByGateway, int maxBodySize) {
+        this.schemesByGateway = Map.copyOf(schemesByGateway);
+        this.maxBodySize = maxBodySize;
+    }
 
-    public WebhookSignatureFilter(String secretKey) {
-        this.secretKey = secretKey;
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(WEBHOOK_PATH_PREFIX);
     }
 
     @Override
@@ -36,75 +48,83 @@ public class WebhookSignatureFilter extends OncePerRequestFilter {
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
-        // Only validate webhook endpoints
-        if (!request.getRequestURI().startsWith("/api/v1/webhooks/")) {
-            filterChain.doFilter(request, response);
+        String gateway = request.getRequestURI().substring(WEBHOOK_PATH_PREFIX.length());
+        WebhookSignatureScheme scheme = schemesByGateway.get(gateway);
+        if (scheme == null) {
+            logger.warn("Webhook received for unknown gateway: {}", request.getRequestURI());
+            sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Not Found", "Unknown webhook gateway");
             return;
         }
 
-        // Wrap request to cache body
-        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request);
-        byte[] requestBody = cachedRequest.getCachedBody();
-
-        if (requestBody.length == 0) {
-            logger.warn("Empty webhook body received for URI: {}", request.getRequestURI());
-            sendUnauthorizedResponse(response, "Empty webhook body");
+        String receivedSignature = request.getHeader(scheme.header());
+        if (receivedSignature == null || receivedSignature.isBlank()) {
+            logger.warn("Webhook signature missing from request: {}", request.getRequestURI());
+            sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", "Missing webhook signature");
             return;
         }
 
-        logger.debug("Webhook raw body: {}", new String(requestBody, StandardCharsets.UTF_8));
-
-        // Extract signature from header
-        String receivedSignature = cachedRequest.getHeader(PAYSTACK_SIGNATURE_HEADER);
-        if (receivedSignature == null || receivedSignature.isBlank()) {
-            logger.warn("Webhook signature missing from request: {}", request.getRequestURI());
-            sendUnauthorizedResponse(response, "Missing webhook signature");
+        long declaredLength = request.getContentLengthLong();
+        if (declaredLength > maxBodySize) {
+            logger.warn("Webhook body of {} bytes exceeds limit of {} | URI={}", declaredLength, maxBodySize, request.getRequestURI());
+            sendErrorResponse(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Payload Too Large", "Webhook body too large");
             return;
         }
 
-        // Compute HMAC
-        String computedSignature = computeHmacSha512(requestBody, secretKey);
+        // Read the body once, verifying as it streams in
+        WebhookSignatureScheme.Verification verification = scheme.begin();
+        byte[] buffer = new byte[declaredLength >= 0 ? (int) declaredLength : Math.min(INITIAL_BUFFER_SIZE, maxBodySize)];
+        int length = 0;
+        ServletInputStream in = request.getInputStream();
+        while (true) {
+            if (length == buffer.length) {
+                // Buffer is full: only grow it if there is actually more body to come
+                int next = in.read();
+                if (next == -1) {
+                    break;
+                }
+                if (length >= maxBodySize) {
+                    logger.warn("Webhook body exceeds limit of {} bytes | URI={}", maxBodySize, request.getRequestURI());
+                    sendErrorResponse(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Payload Too Large", "Webhook body too large");
+                    return;
+                }
+                buffer = Arrays.copyOf(buffer, Math.min(Math.max(buffer.length * 2, INITIAL_BUFFER_SIZE), maxBodySize));
+                buffer[length] = (byte) next;
+                verification.update(buffer, length, 1);
+                length++;
+                continue;
+            }
+            int read = in.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+            verification.update(buffer, length, read);
+            length += read;
+        }
 
-        if (!constantTimeEquals(receivedSignature, computedSignature)) {
-            logger.warn("Invalid webhook signature. Expected: {}, Received: {}", computedSignature, receivedSignature);
-            sendUnauthorizedResponse(response, "Invalid webhook signature");
+        if (length == 0) {
+            logger.warn("Empty webhook body received for URI: {}", request.getRequestURI());
+            sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", "Empty webhook body");
             return;
         }
 
-        logger.info("✅ Webhook signature validated successfully");
-        filterChain.doFilter(cachedRequest, response);
-    }
-
-    private String computeHmacSha512(byte[] data, String key) {
-        try {
-            Mac mac = Mac.getInstance(HMAC_SHA512);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), HMAC_SHA512);
-            mac.init(secretKeySpec);
-            byte[] hmacBytes = mac.doFinal(data);
-            return HexFormat.of().formatHex(hmacBytes).toLowerCase();
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("Failed to compute webhook signature", e);
+        if (!verification.matches(receivedSignature.trim())) {
+            logger.warn("Invalid webhook signature | URI={}", request.getRequestURI());
+            sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", "Invalid webhook signature");
+            return;
         }
-    }
 
-    private boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        byte[] aBytes = a.getBytes(StandardCharsets.UTF_8);
-        byte[] bBytes = b.getBytes(StandardCharsets.UTF_8);
-        if (aBytes.length != bBytes.length) return false;
-        int result = 0;
-        for (int i = 0; i < aBytes.length; i++) result |= aBytes[i] ^ bBytes[i];
-        return result == 0;
+        logger.debug("Webhook signature validated | URI={}", request.getRequestURI());
+        filterChain.doFilter(new CachedBodyHttpServletRequest(request, buffer, length), response);
     }
 
-    private void sendUnauthorizedResponse(HttpServletResponse response, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    private void sendErrorResponse(HttpServletResponse response, int status, String error, String message) throws IOException {
+        response.setStatus(status);
         response.setContentType("application/json");
         response.getWriter().write(String.format("""
             {
-                "error": "Unauthorized",
+                "error": "%s",
                 "message": "%s"
             }
-        """, message));
+        """, error, message));
     }
-}
\ No newline at end of file
+}
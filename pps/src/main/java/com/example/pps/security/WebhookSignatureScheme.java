@@ -0,0 +1,110 @@
+package com.example.pps.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * How a gateway signs its webhooks: which header carries the signature and how it is
+ * checked against the body. The body is fed to a {@link Verification} in chunks as it
+ * is read, so verification never needs a second pass over it.
+ */
+public interface WebhookSignatureScheme {
+
+    String header();
+
+    /**
+     * Starts verifying one request. The returned verification is bound to the calling
+     * thread and must be completed on it.
+     */
+    Verification begin();
+
+    interface Verification {
+        void update(byte[] chunk, int offset, int length);
+
+        boolean matches(String signature);
+    }
+
+    /**
+     * Hex-encoded HMAC of the raw body, as sent by Paystack ({@code HmacSHA512}).
+     * Each thread keeps its own {@link Mac}, keyed once and reset after every use.
+     */
+    static WebhookSignatureScheme hmacHex(String header, String algorithm, String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm);
+        ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(algorithm);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialise " + algorithm + " for webhook verification", e);
+            }
+        });
+        // Fail at startup rather than on the first webhook if the algorithm is unavailable
+        macs.get();
+
+        return new WebhookSignatureScheme() {
+            @Override
+            public String header() {
+                return header;
+            }
+
+            @Override
+            public Verification begin() {
+                Mac mac = macs.get();
+                mac.reset();
+                return new Verification() {
+                    @Override
+                    public void update(byte[] chunk, int offset, int length) {
+                        mac.update(chunk, offset, length);
+                    }
+
+                    @Override
+                    public boolean matches(String signature) {
+                        byte[] expected = mac.doFinal();
+                        byte[] received;
+                        try {
+                            received = HexFormat.of().parseHex(signature);
+                        } catch (IllegalArgumentException e) {
+                            return false;
+                        }
+                        return MessageDigest.isEqual(expected, received);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * A shared secret echoed back in a header, as Flutterwave does with {@code verif-hash}.
+     * The body is not part of the check.
+     */
+    static WebhookSignatureScheme sharedSecret(String header, String secret) {
+        byte[] expected = secret.getBytes(StandardCharsets.UTF_8);
+        Verification verification = new Verification() {
+            @Override
+            public void update(byte[] chunk, int offset, int length) {
+            }
+
+            @Override
+            public boolean matches(String signature) {
+                return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+
+        return new WebhookSignatureScheme() {
+            @Override
+            public String header() {
+                return header;
+            }
+
+            @Override
+            public Verification begin() {
+                return verification;
+            }
+        };
+    }
+}
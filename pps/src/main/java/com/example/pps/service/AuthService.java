@@ -3,22 +3,25 @@ package com.example.pps.service;
 import com.example.pps.dto.AuthResponse;
 import com.example.pps.dto.LoginRequest;
 import com.example.pps.dto.RegisterRequest;
+import com.example.pps.dto.RegisterResponse;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for the Authentication Service.
  */
 public interface AuthService {
     /**
-     * Registers a new merchant.
+     * Registers a new merchant with login credentials and a fresh API key.
      * @param request the registration details
-     * @return The registered merchant's name (for mock purposes)
+     * @return the new merchant, including its API key
      */
-    String register(RegisterRequest request);
+    CompletableFuture<RegisterResponse> register(RegisterRequest request);
 
     /**
      * Authenticates a merchant.
      * @param request the login credentials
-     * @return The AuthResponse containing the token and merchant ID
+     * @return The AuthResponse containing the access token and merchant ID
      */
-    AuthResponse login(LoginRequest request);
+    CompletableFuture<AuthResponse> login(LoginRequest request);
 }
@@ -0,0 +1,42 @@
+package com.example.pps.service;
+
+import com.example.pps.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Recovers transactions left in INITIATING by a crash between the reserve and
+ * finalize phases of {@link TransactionService#initiatePayment}.
+ *
+ * The merchant only ever receives the authorization URL after the finalize update
+ * succeeds, so a stale INITIATING row was never handed out and is safe to fail.
+ */
+@Component
+public class InitiationRecoveryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(InitiationRecoveryJob.class);
+
+    private final TransactionRepository transactionRepository;
+    private final Duration staleAfter;
+
+    public InitiationRecoveryJob(TransactionRepository transactionRepository,
+                                 @Value("${pps.initiation.stale-after:PT5M}") Duration staleAfter) {
+        this.transactionRepository = transactionRepository;
+        this.staleAfter = staleAfter;
+    }
+
+    @Scheduled(fixedDelayString = "${pps.initiation.recovery-interval:PT1M}")
+    public void recoverStaleInitiations() {
+        Instant now = Instant.now();
+        int recovered = transactionRepository.failStaleInitiations(now.minus(staleAfter), now);
+        if (recovered > 0) {
+            log.warn("Failed {} transaction(s) stuck in INITIATING for more than {}", recovered, staleAfter);
+        }
+    }
+}
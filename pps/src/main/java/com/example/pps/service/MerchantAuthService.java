@@ -0,0 +1,106 @@
+package com.example.pps.service;
+
+import com.example.pps.delivery.MerchantWebhookSigner;
+import com.example.pps.dto.AuthResponse;
+import com.example.pps.dto.LoginRequest;
+import com.example.pps.dto.RegisterRequest;
+import com.example.pps.dto.RegisterResponse;
+import com.example.pps.entity.Merchant;
+import com.example.pps.exception.InvalidCredentialsException;
+import com.example.pps.repository.MerchantRepository;
+import com.example.pps.security.AccessTokens;
+import com.example.pps.security.ApiKeyHasher;
+import com.example.pps.security.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Merchant registration and login against {@link MerchantRepository}. Passwords are
+ * hashed off the request thread by {@link PasswordHasher}; a successful login returns
+ * an access token from {@link AccessTokens}. Registration also returns the merchant's
+ * webhook signing secret from {@link MerchantWebhookSigner}.
+ */
+@Service
+public class MerchantAuthService implements AuthService {
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantAuthService.class);
+    private static final int MIN_PASSWORD_LENGTH = 8;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final MerchantRepository merchantRepository;
+    private final PasswordHasher passwordHasher;
+    private final AccessTokens accessTokens;
+    private final MerchantWebhookSigner webhookSigner;
+
+    public MerchantAuthService(MerchantRepository merchantRepository,
+                               PasswordHasher passwordHasher,
+                               AccessTokens accessTokens,
+                               MerchantWebhookSigner webhookSigner) {
+        this.merchantRepository = merchantRepository;
+        this.passwordHasher = passwordHasher;
+        this.accessTokens = accessTokens;
+        this.webhookSigner = webhookSigner;
+    }
+
+    @Override
+    public CompletableFuture<RegisterResponse> register(RegisterRequest request) {
+        if (request.name() == null || request.name().isBlank()) {
+            throw new IllegalArgumentException("Name is required.");
+        }
+        String email = normalize(request.email());
+        if (email == null || !email.contains("@")) {
+            throw new IllegalArgumentException("A valid email is required.");
+        }
+        if (request.password() == null || request.password().length() < MIN_PASSWORD_LENGTH) {
+            throw new IllegalArgumentException("Password must be at least " + MIN_PASSWORD_LENGTH + " characters.");
+        }
+        if (merchantRepository.existsByEmail(email)) {
+            throw new IllegalArgumentException("Email is already registered.");
+        }
+
+        return passwordHasher.hash(request.password()).thenApply(passwordHash -> {
+            String apiKey = newApiKey();
+            Merchant merchant = new Merchant();
+            merchant.setName(request.name().trim());
+            merchant.setEmail(email);
+            merchant.setPasswordHash(passwordHash);
+            merchant.setApiKeyHash(ApiKeyHasher.hash(apiKey));
+            Merchant saved = merchantRepository.save(merchant);
+            log.info("Merchant registered | MerchantId={}", saved.getId());
+            return new RegisterResponse(saved.getId().toString(), saved.getName(), email, apiKey,
+                    webhookSigner.secretFor(saved.getId()));
+        });
+    }
+
+    @Override
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
+        String email = normalize(request.email());
+        String password = request.password() != null ? request.password() : "";
+        Merchant merchant = email != null ? merchantRepository.findByEmail(email).orElse(null) : null;
+
+        // Unknown emails are hashed too, so response time does not reveal which emails exist
+        return passwordHasher.matches(password, merchant != null ? merchant.getPasswordHash() : null)
+                .thenApply(matches -> {
+                    if (!matches) {
+                        throw new InvalidCredentialsException("Invalid email or password.");
+                    }
+                    return new AuthResponse(accessTokens.issue(merchant.getId()), merchant.getId().toString());
+                });
+    }
+
+    private static String normalize(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String newApiKey() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return "pps_" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
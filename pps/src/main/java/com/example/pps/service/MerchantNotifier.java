@@ -0,0 +1,39 @@
+package com.example.pps.service;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.entity.UuidV7Generator;
+import com.example.pps.event.PaymentEvent;
+import com.example.pps.event.PaymentEventCodec;
+import com.example.pps.outbox.Outbox;
+import com.example.pps.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Announces transaction status changes on the merchant notifications topic.
+ */
+@Component
+public class MerchantNotifier {
+    private final Outbox outbox;
+    private final String topic;
+
+    public MerchantNotifier(Outbox outbox,
+                            @Value("${pps.notifications.topic:merchant-notifications}") String topic) {
+        this.outbox = outbox;
+        this.topic = topic;
+    }
+
+    /**
+     * Queues the notification in the outbox, so it is published only if the caller's
+     * transaction commits and the caller never waits on the broker.
+     */
+    public void statusChanged(TransactionRepository.StatusRef transaction, Transaction.Status previousStatus, Transaction.Status status) {
+        PaymentEvent event = new PaymentEvent(UuidV7Generator.generate(), transaction.getId(), transaction.getCreatedAt(),
+                transaction.getMerchantId(), transaction.getMerchantRef(), transaction.getPgTransactionRef(),
+                transaction.getPaymentGateway(), transaction.getAmount(), transaction.getCurrency(),
+                previousStatus, status, Instant.now());
+        outbox.enqueue(topic, transaction.getMerchantId().toString(), PaymentEventCodec.encode(event));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.pps.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} and {@code webhook_events}
+ * (see V1__partitioned_schema.sql) ahead of the clock and within retention.
+ *
+ * Each run creates any missing partition for the current month and the next
+ * {@code pps.partitions.premake-months}, then detaches and drops partitions whose
+ * whole month is older than the table's retention. Runs are serialized across
+ * instances with a Postgres advisory lock.
+ */
+@Component
+public class PartitionMaintenanceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+
+    private static final String TRANSACTIONS = "transactions";
+    private static final String WEBHOOK_EVENTS = "webhook_events";
+    private static final long ADVISORY_LOCK_KEY = 0x7070_735F_7061_7274L; // "pps_part"
+    private static final Pattern PARTITION_SUFFIX = Pattern.compile("_y(\\d{4})m(\\d{2})$");
+    private static final int KEY_CLEANUP_BATCH = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int premakeMonths;
+    private final Map<String, Integer> retentionMonths;
+
+    public PartitionMaintenanceJob(JdbcTemplate jdbcTemplate,
+                                   @Value("${pps.partitions.premake-months:3}") int premakeMonths,
+                                   @Value("${pps.partitions.transactions-retention-months:24}") int transactionsRetentionMonths,
+                                   @Value("${pps.partitions.webhook-events-retention-months:6}") int webhookEventsRetentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = Map.of(
+                TRANSACTIONS, transactionsRetentionMonths,
+                WEBHOOK_EVENTS, webhookEventsRetentionMonths);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${pps.partitions.maintenance-interval:PT6H}")
+    public void maintainPartitions() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!tryLock(connection)) {
+                log.debug("Partition maintenance already running on another instance");
+                return null;
+            }
+            try {
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                for (Map.Entry<String, Integer> table : retentionMonths.entrySet()) {
+                    createUpcoming(connection, table.getKey(), current);
+                    dropExpired(connection, table.getKey(), current.minusMonths(table.getValue()));
+                }
+            } finally {
+                unlock(connection);
+            }
+            return null;
+        });
+    }
+
+    private void createUpcoming(Connection connection, String table, YearMonth current) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT create_monthly_partition(?, ?)")) {
+            for (int i = 0; i <= premakeMonths; i++) {
+                statement.setString(1, table);
+                statement.setObject(2, current.plusMonths(i).atDay(1));
+                statement.execute();
+            }
+        }
+    }
+
+    // Drops every partition whose month ends on or before the start of oldestKept
+    private void dropExpired(Connection connection, String table, YearMonth oldestKept) throws SQLException {
+        for (String partition : partitionsOf(connection, table)) {
+            Matcher matcher = PARTITION_SUFFIX.matcher(partition);
+            if (!matcher.find()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            try (Statement statement = connection.createStatement()) {
+                // CONCURRENTLY only takes a SHARE UPDATE EXCLUSIVE lock, so writers are not blocked
+                statement.execute("ALTER TABLE " + quote(table) + " DETACH PARTITION " + quote(partition) + " CONCURRENTLY");
+                statement.execute("DROP TABLE " + quote(partition));
+            } catch (SQLException e) {
+                log.error("Failed to drop expired partition {} of {}: {}", partition, table, e.getMessage());
+                continue;
+            }
+            log.info("Dropped expired partition {} of {} (retention {} months)", partition, table, retentionMonths.get(table));
+            if (TRANSACTIONS.equals(table)) {
+                releaseIdempotencyKeys(connection, month.plusMonths(1).atDay(1));
+            }
+        }
+    }
+
+    // Keys of dropped transactions live in the unpartitioned side table; delete them in small batches
+    private void releaseIdempotencyKeys(Connection connection, LocalDate before) throws SQLException {
+        String sql = """
+                DELETE FROM transaction_idempotency_keys
+                 WHERE (merchant_id, idempotency_key) IN (
+                       SELECT merchant_id, idempotency_key
+                         FROM transaction_idempotency_keys
+                        WHERE created_at < ?
+                        LIMIT ?)
+                """;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setTimestamp(1, Timestamp.from(before.atStartOfDay(ZoneOffset.UTC).toInstant()));
+            statement.setInt(2, KEY_CLEANUP_BATCH);
+            int deleted;
+            do {
+                deleted = statement.executeUpdate();
+            } while (deleted == KEY_CLEANUP_BATCH);
+        }
+    }
+
+    private List<String> partitionsOf(Connection connection, String table) throws SQLException {
+        String sql = """
+                SELECT c.relname
+                  FROM pg_inherits i
+                  JOIN pg_class c ON c.oid = i.inhrelid
+                 WHERE i.inhparent = ?::regclass
+                """;
+        List<String> partitions = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, table);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    partitions.add(rows.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() && rows.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            statement.execute();
+        }
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
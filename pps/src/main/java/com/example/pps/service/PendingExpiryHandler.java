@@ -0,0 +1,59 @@
+package com.example.pps.service;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.repository.TransactionRepository;
+import com.example.pps.timer.TimerHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fails transactions that are still PENDING when their expiry timer fires and notifies
+ * the merchant. The timer is scheduled when a transaction becomes PENDING (see
+ * {@link TransactionService}) and cancelled when a webhook settles it; a timer that
+ * fires anyway after settlement updates nothing.
+ *
+ * Timer key: the transaction id. Payload: its {@code createdAt}, which pins the partition.
+ */
+@Component
+public class PendingExpiryHandler implements TimerHandler {
+
+    public static final String KIND = "transaction-expiry";
+
+    private static final Logger log = LoggerFactory.getLogger(PendingExpiryHandler.class);
+    private static final Set<Transaction.Status> EXPIRABLE = EnumSet.of(Transaction.Status.PENDING);
+
+    private final TransactionRepository transactionRepository;
+    private final MerchantNotifier merchantNotifier;
+
+    public PendingExpiryHandler(TransactionRepository transactionRepository, MerchantNotifier merchantNotifier) {
+        this.transactionRepository = transactionRepository;
+        this.merchantNotifier = merchantNotifier;
+    }
+
+    @Override
+    public String kind() {
+        return KIND;
+    }
+
+    @Override
+    public void onTimer(String key, String payload) {
+        UUID id = UUID.fromString(key);
+        Instant createdAt = Instant.parse(payload);
+        TransactionRepository.StatusRef transaction = transactionRepository.findStatusRefByIdAndCreatedAt(id, createdAt).orElse(null);
+        if (transaction == null || !EXPIRABLE.contains(transaction.getStatus())) {
+            return;
+        }
+        int updated = transactionRepository.transitionStatus(id, createdAt, EXPIRABLE, Transaction.Status.FAILED, Instant.now());
+        if (updated == 0) {
+            return;
+        }
+        log.info("PENDING transaction expired | TxnID={} | {} -> {}", id, transaction.getStatus(), Transaction.Status.FAILED);
+        merchantNotifier.statusChanged(transaction, transaction.getStatus(), Transaction.Status.FAILED);
+    }
+}
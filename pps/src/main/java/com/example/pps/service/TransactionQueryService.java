@@ -0,0 +1,87 @@
+package com.example.pps.service;
+
+import com.example.pps.dto.TransactionPage;
+import com.example.pps.dto.TransactionQuery;
+import com.example.pps.dto.TransactionView;
+import com.example.pps.entity.Transaction;
+import com.example.pps.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.pps.repository.TransactionSpecifications.*;
+
+/**
+ * Lists a merchant's transactions newest first with keyset pagination.
+ *
+ * The cursor encodes the (created_at, id) of the last row returned, so every page is
+ * an index range scan from that position instead of an OFFSET that has to walk and
+ * discard all earlier rows; page 10,000 costs the same as page 1.
+ */
+@Service
+public class TransactionQueryService {
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final TransactionRepository transactionRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public TransactionQueryService(TransactionRepository transactionRepository,
+                                   @Value("${pps.query.default-page-size:50}") int defaultPageSize,
+                                   @Value("${pps.query.max-page-size:200}") int maxPageSize) {
+        this.transactionRepository = transactionRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionPage list(UUID merchantId, TransactionQuery query, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+
+        Specification<Transaction> spec = forMerchant(merchantId);
+        if (query.status() != null) spec = spec.and(hasStatus(query.status()));
+        if (query.gateway() != null) spec = spec.and(viaGateway(query.gateway()));
+        if (query.from() != null) spec = spec.and(createdAtOrAfter(query.from()));
+        if (query.to() != null) spec = spec.and(createdBefore(query.to()));
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = decode(cursor);
+            spec = spec.and(before(position.createdAt(), position.id()));
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT
+        List<Transaction> rows = transactionRepository.findBy(spec, q -> q.sortBy(NEWEST_FIRST).limit(pageSize + 1).all());
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Transaction> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encode(page.get(page.size() - 1)) : null;
+        return new TransactionPage(page.stream().map(TransactionView::from).toList(), nextCursor);
+    }
+
+    private String encode(Transaction last) {
+        String raw = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Cursor(Instant.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(Instant createdAt, UUID id) {
+    }
+}
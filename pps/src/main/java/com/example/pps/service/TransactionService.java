@@ -1,23 +1,47 @@
 package com.example.pps.service;
 
 import com.example.pps.context.RequestContext;
+import com.example.pps.dto.BatchPaymentItem;
+import com.example.pps.dto.BatchPaymentResult;
 import com.example.pps.dto.InitiatePaymentRequest;
 import com.example.pps.dto.InitiatePaymentResponse;
 import com.example.pps.entity.Merchant;
 import com.example.pps.entity.Transaction;
-import com.example.pps.exception.InvalidMerchantKeyException;
+import com.example.pps.exception.IdempotencyKeyMismatchException;
 import com.example.pps.gateway.GatewayFactory;
-import com.example.pps.repository.MerchantRepository;
+import com.example.pps.gateway.GatewayRoute;
+import com.example.pps.idempotency.IdempotencyKey;
+import com.example.pps.idempotency.IdempotencyService;
 import com.example.pps.repository.TransactionRepository;
+import com.example.pps.timer.DurableTimers;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @Service
 public class TransactionService {
@@ -25,101 +49,371 @@ public class TransactionService {
     private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
 
     private final TransactionRepository transactionRepository;
-    private final MerchantRepository merchantRepository;
     private final GatewayFactory gatewayFactory;
     private final ObjectMapper objectMapper;
+    private final Executor gatewayCompletionExecutor;
+    private final IdempotencyService idempotencyService;
+    private final int batchMaxItems;
+    private final int batchGatewayConcurrency;
+    private final TransactionTemplate transactionTemplate;
+    private final DurableTimers durableTimers;
+    private final Duration pendingTtl;
 
     public TransactionService(TransactionRepository transactionRepository,
-                              MerchantRepository merchantRepository,
                               GatewayFactory gatewayFactory,
-                              ObjectMapper objectMapper) {
+                              ObjectMapper objectMapper,
+                              @Qualifier("gatewayCompletionExecutor") Executor gatewayCompletionExecutor,
+                              IdempotencyService idempotencyService,
+                              @Value("${pps.batch.max-items:1000}") int batchMaxItems,
+                              @Value("${pps.batch.gateway-concurrency:32}") int batchGatewayConcurrency,
+                              TransactionTemplate transactionTemplate,
+                              DurableTimers durableTimers,
+                              @Value("${pps.initiation.pending-ttl:PT24H}") Duration pendingTtl) {
         this.transactionRepository = transactionRepository;
-        this.merchantRepository = merchantRepository;
         this.gatewayFactory = gatewayFactory;
         this.objectMapper = objectMapper;
+        this.gatewayCompletionExecutor = gatewayCompletionExecutor;
+        this.idempotencyService = idempotencyService;
+        this.batchMaxItems = batchMaxItems;
+        this.batchGatewayConcurrency = batchGatewayConcurrency;
+        this.transactionTemplate = transactionTemplate;
+        this.durableTimers = durableTimers;
+        this.pendingTtl = pendingTtl;
     }
 
-    @Transactional
-    public InitiatePaymentResponse initiatePayment(InitiatePaymentRequest request,
-                                                   String idempotencyKey,
-                                                   String merchantApiKey) {
+    /**
+     * Initiates a payment in three phases so that no JDBC connection is held while the
+     * gateway is being called:
+     * <ol>
+     *   <li>reserve - a short transaction inserts the row as INITIATING</li>
+     *   <li>call the gateway with no transaction or connection open</li>
+     *   <li>finalize - a conditional update moves the row INITIATING -> PENDING
+     *       (or FAILED if the gateway call failed) and, in the same transaction, schedules
+     *       its expiry after {@code pps.initiation.pending-ttl} ({@link PendingExpiryHandler})</li>
+     * </ol>
+     * A crash between phases leaves the row INITIATING; {@link InitiationRecoveryJob} fails it.
+     *
+     * The gateway call is non-blocking: the calling thread returns as soon as the row is
+     * reserved and the finalize phase runs on {@code gatewayCompletionExecutor}.
+     */
+    public CompletableFuture<InitiatePaymentResponse> initiatePayment(InitiatePaymentRequest request,
+                                                                      String idempotencyKey,
+                                                                      Merchant merchant) {
 
         String correlationId = RequestContext.getCorrelationId();
 
-        log.info("[correlationId={}] Initiating payment | MerchantRef={} | IdempotencyKey={} | Amount={} {} | Gateway={}",
-                correlationId, request.getMerchantRef(), idempotencyKey, request.getAmount(), request.getCurrency(), request.getPaymentGateway());
+        log.info("[correlationId={}] Initiating payment | MerchantID={} | MerchantRef={} | IdempotencyKey={} | Amount={} {} | Gateway={}",
+                correlationId, merchant.getId(), request.getMerchantRef(), idempotencyKey, request.getAmount(), request.getCurrency(), request.getPaymentGateway());
 
-        // ✅ Authenticate Merchant
-        Merchant merchant = merchantRepository.findByApiKey(merchantApiKey)
-                .orElseThrow(() -> {
-                    log.warn("[correlationId={}] Invalid merchant API key: {}", correlationId, merchantApiKey);
-                    return new InvalidMerchantKeyException("Invalid Merchant API key.");
-                });
+        // ✅ Run at most once per (merchant, Idempotency-Key); replays are served from the idempotency store
+        IdempotencyKey key = new IdempotencyKey(merchant.getId(), idempotencyKey);
+        String fingerprint = IdempotencyService.fingerprint(request);
+        return idempotencyService.execute(key, fingerprint,
+                () -> initiateNewPayment(request, key, fingerprint, merchant, correlationId));
+    }
+
+    private CompletableFuture<InitiatePaymentResponse> initiateNewPayment(InitiatePaymentRequest request,
+                                                                          IdempotencyKey key,
+                                                                          String fingerprint,
+                                                                          Merchant merchant,
+                                                                          String correlationId) {
+        // ✅ Phase 1: reserve the transaction (short transaction, commits immediately)
+        GatewayRoute route = selectGateway(request, merchant, correlationId);
+        Transaction.PaymentGateway gateway = route.gateway();
+        Transaction transaction = newTransaction(request, key, fingerprint, merchant, gateway);
+
+        try {
+            transaction = transactionRepository.save(transaction);
+        } catch (DataIntegrityViolationException e) {
+            // The store forgot this key (TTL, Redis outage) but the unique constraint did not
+            return CompletableFuture.completedFuture(replayFromDatabase(key, fingerprint, correlationId));
+        }
 
-        log.debug("[correlationId={}] Merchant authenticated | MerchantID={} | Name={}",
-                correlationId, merchant.getId(), merchant.getName());
+        log.debug("[correlationId={}] Transaction reserved | TxnID={} | Status={}",
+                correlationId, transaction.getId(), transaction.getStatus());
 
-        // ✅ Check for existing (idempotent) transaction
-        Optional<Transaction> existingOpt = transactionRepository.findByIdempotencyKey(idempotencyKey);
+        // ✅ Phase 2: send request to gateway (no DB connection held)
+        var gatewayProvider = route.provider();
+
+        log.debug("[correlationId={}] Sending request to gateway={} | Amount={} | Customer={}",
+                correlationId, gateway, request.getAmount(), request.getCustomerEmail());
+
+        UUID transactionId = transaction.getId();
+        Instant createdAt = transaction.getCreatedAt();
+        CompletableFuture<InitiatePaymentResponse> gatewayCall;
+        try {
+            gatewayCall = gatewayProvider.initiatePaymentAsync(request, transaction);
+        } catch (RuntimeException e) {
+            gatewayCall = CompletableFuture.failedFuture(e);
+        }
 
-        if (existingOpt.isPresent()) {
-            Transaction existing = existingOpt.get();
+        return gatewayCall
+                .handleAsync((gatewayResponse, error) -> {
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        transactionRepository.failInitiation(transactionId, createdAt, Instant.now());
+                        log.error("[correlationId={}] Gateway call failed | TxnID={} | Gateway={} | Error={}",
+                                correlationId, transactionId, gateway, cause.getMessage());
+                        throw cause instanceof RuntimeException re ? re : new CompletionException(cause);
+                    }
+                    return finalizeInitiation(correlationId, transactionId, createdAt, gateway, gatewayResponse);
+                }, gatewayCompletionExecutor);
+    }
 
-            if (existing.getStatus() == Transaction.Status.PENDING ||
-                    existing.getStatus() == Transaction.Status.COMPLETED) {
+    /**
+     * Initiates a batch of payments, each with its own Idempotency-Key, and streams one
+     * result per item as it completes.
+     *
+     * Every item is claimed through {@link IdempotencyService} like a single initiation, so
+     * a key already in flight on this instance is coalesced onto that request and a key in
+     * the idempotency store is replayed from it. Claimed items whose key already owns a
+     * transaction are replayed from the row. All new items are reserved with a single
+     * batched insert, then their gateway calls fan out with at most
+     * {@code pps.batch.gateway-concurrency} in flight; each is finalized and its response
+     * stored for replay exactly like a single initiation. If the batched insert hits a key
+     * claimed concurrently by another instance, the batch falls back to reserving item by
+     * item.
+     *
+     * A gateway call already started runs to completion if the client goes away; items
+     * whose call never started are failed and their keys released at once rather than
+     * left INITIATING for {@link InitiationRecoveryJob}.
+     */
+    public Flux<BatchPaymentResult> initiateBatch(List<BatchPaymentItem> items, Merchant merchant) {
+        if (items.size() > batchMaxItems) {
+            throw new IllegalArgumentException("A batch may contain at most " + batchMaxItems + " payments");
+        }
 
-                log.info("[correlationId={}] Duplicate request (idempotent hit) | TransactionID={} | Status={}",
-                        correlationId, existing.getId(), existing.getStatus());
+        String correlationId = RequestContext.getCorrelationId();
+        log.info("[correlationId={}] Initiating batch | MerchantID={} | Items={}", correlationId, merchant.getId(), items.size());
 
-                String authUrl = extractAuthorizationUrl(existing);
-                return new InitiatePaymentResponse(
-                        existing.getId(),
-                        existing.getStatus().name(),
-                        authUrl,
-                        existing.getAmount() // Add amount for the new constructor
-                );
+        List<Mono<BatchPaymentResult>> settled = new ArrayList<>();
+        List<ClaimedItem> claimed = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int index = 0; index < items.size(); index++) {
+            BatchPaymentItem item = items.get(index);
+            IdempotencyKey key = new IdempotencyKey(merchant.getId(), item.getIdempotencyKey());
+            String fingerprint = IdempotencyService.fingerprint(item);
+            try {
+                if (!seen.add(key.key())) {
+                    throw new IllegalArgumentException("Idempotency-Key '" + key.key() + "' appears more than once in the batch");
+                }
+                IdempotencyService.Claim claim = idempotencyService.claim(key, fingerprint);
+                if (claim.owned()) {
+                    claimed.add(new ClaimedItem(index, item, key, fingerprint, claim));
+                } else {
+                    settled.add(replayed(index, key.key(), claim));
+                }
+            } catch (RuntimeException e) {
+                settled.add(Mono.just(BatchPaymentResult.failed(index, key.key(), e.getMessage())));
             }
         }
 
-        // ✅ Create new Transaction
-        Transaction transaction = new Transaction();
-        transaction.setIdempotencyKey(idempotencyKey);
-        transaction.setMerchantRef(request.getMerchantRef());
-        transaction.setAmount(BigDecimal.valueOf(request.getAmount()));
-        transaction.setCurrency(parseEnumSafe(Transaction.Currency.class, request.getCurrency(), Transaction.Currency.NGN));
-        transaction.setCustomerEmail(request.getCustomerEmail());
-        transaction.setPaymentMethod(parseEnumSafe(Transaction.PaymentMethod.class, request.getPaymentMethod(), Transaction.PaymentMethod.CARD));
-        transaction.setStatus(Transaction.Status.PENDING);
-        transaction.setMerchant(merchant);
-        transaction.setMerchantId(merchant.getId());
+        Map<String, Transaction> existing = new HashMap<>();
+        if (!claimed.isEmpty()) {
+            Set<String> keys = new HashSet<>();
+            claimed.forEach(item -> keys.add(item.key().key()));
+            transactionRepository.findByMerchantIdAndIdempotencyKeyIn(merchant.getId(), keys)
+                    .forEach(transaction -> existing.put(transaction.getIdempotencyKey(), transaction));
+        }
 
-        // ✅ Select payment gateway (default to PAYSTACK)
-        Transaction.PaymentGateway gateway = parseEnumSafe(Transaction.PaymentGateway.class,
-                request.getPaymentGateway(), Transaction.PaymentGateway.PAYSTACK);
-        transaction.setPaymentGateway(gateway);
+        List<ReservedItem> reserved = new ArrayList<>();
+        for (ClaimedItem item : claimed) {
+            try {
+                // The store forgot this key (TTL, Redis outage) but the row did not
+                Transaction owner = existing.get(item.key().key());
+                if (owner != null) {
+                    InitiatePaymentResponse response = replay(owner, item.key(), item.fingerprint(), correlationId);
+                    idempotencyService.complete(item.claim(), response);
+                    settled.add(Mono.just(BatchPaymentResult.replayed(item.index(), item.key().key(), response)));
+                    continue;
+                }
+                GatewayRoute route = selectGateway(item.request(), merchant, correlationId);
+                reserved.add(new ReservedItem(item, route,
+                        newTransaction(item.request(), item.key(), item.fingerprint(), merchant, route.gateway())));
+            } catch (RuntimeException e) {
+                idempotencyService.fail(item.claim(), e);
+                settled.add(Mono.just(BatchPaymentResult.failed(item.index(), item.key().key(), e.getMessage())));
+            }
+        }
 
-        log.info("[correlationId={}] Selected payment gateway={} | MerchantRef={}", correlationId, gateway, request.getMerchantRef());
+        Flux<BatchPaymentResult> initiated;
+        try {
+            // ✅ Phase 1 for the whole batch: one transaction, flushed as JDBC batch inserts
+            transactionRepository.saveAll(reserved.stream().map(ReservedItem::transaction).toList());
+            initiated = Flux.fromIterable(reserved)
+                    .flatMap(item -> start(item, () -> callGateway(item, correlationId)), batchGatewayConcurrency);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("[correlationId={}] Batch reserve hit a concurrently claimed key, falling back to per-item initiation | MerchantID={}",
+                    correlationId, merchant.getId());
+            initiated = Flux.fromIterable(reserved)
+                    .flatMap(item -> start(item, () -> initiateNewPayment(item.request(), item.key(), item.fingerprint(),
+                            merchant, correlationId)), batchGatewayConcurrency);
+        }
 
-        // ✅ Send request to gateway
-        var gatewayProvider = gatewayFactory.getGateway(gateway);
+        return Flux.merge(Flux.fromIterable(settled).flatMap(result -> result), initiated)
+                .doOnCancel(() -> abandon(reserved, correlationId));
+    }
 
-        log.debug("[correlationId={}] Sending request to gateway={} | Amount={} | Customer={}",
-                correlationId, gateway, request.getAmount(), request.getCustomerEmail());
+    // A claim someone else holds or held: coalesced onto their in-flight request, or replayed from the store
+    private Mono<BatchPaymentResult> replayed(int index, String idempotencyKey, IdempotencyService.Claim claim) {
+        return Mono.fromFuture(claim::result)
+                .map(response -> BatchPaymentResult.replayed(index, idempotencyKey, response))
+                .onErrorResume(error -> Mono.just(BatchPaymentResult.failed(index, idempotencyKey, rootMessage(error))));
+    }
+
+    // Runs one reserved item to completion and settles its claim, even if the batch is cancelled meanwhile
+    private Mono<BatchPaymentResult> start(ReservedItem item, Supplier<CompletableFuture<InitiatePaymentResponse>> initiation) {
+        if (!item.started().compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        CompletableFuture<InitiatePaymentResponse> result;
+        try {
+            result = initiation.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((response, error) -> {
+            if (error == null) {
+                idempotencyService.complete(item.claim(), response);
+            } else {
+                idempotencyService.fail(item.claim(), error);
+            }
+        });
+        String idempotencyKey = item.key().key();
+        return Mono.fromFuture(result, true)
+                .map(response -> BatchPaymentResult.initiated(item.index(), idempotencyKey, response))
+                .onErrorResume(error -> Mono.just(BatchPaymentResult.failed(item.index(), idempotencyKey, rootMessage(error))));
+    }
+
+    // 🔹 The client went away: fail the items whose gateway call never started
+    private void abandon(List<ReservedItem> reserved, String correlationId) {
+        int abandoned = 0;
+        Instant now = Instant.now();
+        for (ReservedItem item : reserved) {
+            if (item.started().compareAndSet(false, true)) {
+                transactionRepository.failInitiation(item.transaction().getId(), item.transaction().getCreatedAt(), now);
+                idempotencyService.fail(item.claim(), new CancellationException("Batch cancelled before the payment was sent"));
+                abandoned++;
+            }
+        }
+        if (abandoned > 0) {
+            log.warn("[correlationId={}] Batch cancelled, failed {} unsent item(s)", correlationId, abandoned);
+        }
+    }
+
+    // ✅ Phases 2 and 3 for one reserved batch item
+    private CompletableFuture<InitiatePaymentResponse> callGateway(ReservedItem item, String correlationId) {
+        Transaction transaction = item.transaction();
+        CompletableFuture<InitiatePaymentResponse> gatewayCall;
+        try {
+            gatewayCall = item.route().provider().initiatePaymentAsync(item.request(), transaction);
+        } catch (RuntimeException e) {
+            gatewayCall = CompletableFuture.failedFuture(e);
+        }
+        return gatewayCall.handleAsync((response, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                transactionRepository.failInitiation(transaction.getId(), transaction.getCreatedAt(), Instant.now());
+                log.error("[correlationId={}] Gateway call failed | TxnID={} | Gateway={} | Error={}",
+                        correlationId, transaction.getId(), item.route().gateway(), cause.getMessage());
+                throw cause instanceof RuntimeException re ? re : new CompletionException(cause);
+            }
+            return finalizeInitiation(correlationId, transaction.getId(), transaction.getCreatedAt(), item.route().gateway(), response);
+        }, gatewayCompletionExecutor);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 
-        var gatewayResponse = gatewayProvider.initiatePayment(request, transaction);
+    private static String rootMessage(Throwable error) {
+        return unwrap(error).getMessage();
+    }
 
-        // ✅ Update transaction with gateway response
-        transaction.setPgTransactionRef(String.valueOf(gatewayResponse.getTransactionId()));
-        transaction.setMetadata(String.format("{\"authorizationUrl\": \"%s\"}", gatewayResponse.getAuthorizationUrl()));
+    // ✅ Phase 3: finalize with a conditional update (INITIATING -> PENDING)
+    private InitiatePaymentResponse finalizeInitiation(String correlationId,
+                                                       UUID transactionId,
+                                                       Instant createdAt,
+                                                       Transaction.PaymentGateway gateway,
+                                                       InitiatePaymentResponse gatewayResponse) {
+        String pgTransactionRef = String.valueOf(gatewayResponse.getTransactionId());
+        String metadata = String.format("{\"authorizationUrl\": \"%s\"}", gatewayResponse.getAuthorizationUrl());
 
-        transactionRepository.save(transaction);
+        Integer updated = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            int count = transactionRepository.completeInitiation(transactionId, createdAt, pgTransactionRef, metadata, now);
+            if (count > 0) {
+                durableTimers.schedule(PendingExpiryHandler.KIND, transactionId.toString(), now.plus(pendingTtl), createdAt.toString());
+            }
+            return count;
+        });
+        if (updated == null || updated == 0) {
+            log.warn("[correlationId={}] Transaction left INITIATING before finalize, response discarded | TxnID={}",
+                    correlationId, transactionId);
+            throw new IllegalStateException("Transaction " + transactionId + " is no longer initiating");
+        }
 
         log.info("[correlationId={}] Payment initiated | TxnID={} | PGRef={} | Gateway={} | Status={}",
-                correlationId, transaction.getId(), transaction.getPgTransactionRef(), gateway, transaction.getStatus());
+                correlationId, transactionId, pgTransactionRef, gateway, Transaction.Status.PENDING);
 
         return gatewayResponse;
     }
 
+    // 🔹 Rebuild the idempotent response from the row that already owns this key
+    private InitiatePaymentResponse replayFromDatabase(IdempotencyKey key, String fingerprint, String correlationId) {
+        Transaction existing = transactionRepository.findByMerchantIdAndIdempotencyKey(key.merchantId(), key.key())
+                .orElseThrow(() -> new IllegalStateException("Idempotency key conflict but no transaction found for " + key));
+        return replay(existing, key, fingerprint, correlationId);
+    }
+
+    private InitiatePaymentResponse replay(Transaction existing, IdempotencyKey key, String fingerprint, String correlationId) {
+        if (existing.getRequestFingerprint() != null && !existing.getRequestFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(
+                    "Idempotency-Key '" + key.key() + "' was already used with a different request body");
+        }
+
+        log.info("[correlationId={}] Duplicate request (idempotent hit) | TransactionID={} | Status={}",
+                correlationId, existing.getId(), existing.getStatus());
+
+        return new InitiatePaymentResponse(
+                existing.getId(),
+                existing.getStatus().name(),
+                extractAuthorizationUrl(existing),
+                existing.getAmount()
+        );
+    }
+
+    // ✅ Select payment gateway (default to PAYSTACK), failing over only if the merchant opted in
+    private GatewayRoute selectGateway(InitiatePaymentRequest request, Merchant merchant, String correlationId) {
+        Transaction.PaymentGateway requestedGateway = parseEnumSafe(Transaction.PaymentGateway.class,
+                request.getPaymentGateway(), Transaction.PaymentGateway.PAYSTACK);
+        GatewayRoute route = gatewayFactory.route(requestedGateway, merchant.isGatewayFailoverEnabled());
+
+        log.info("[correlationId={}] Selected payment gateway={} (requested={}) | MerchantRef={}",
+                correlationId, route.gateway(), requestedGateway, request.getMerchantRef());
+        return route;
+    }
+
+    // 🔹 Build the INITIATING row reserved before the gateway is called
+    private Transaction newTransaction(InitiatePaymentRequest request,
+                                       IdempotencyKey key,
+                                       String fingerprint,
+                                       Merchant merchant,
+                                       Transaction.PaymentGateway gateway) {
+        Transaction transaction = new Transaction();
+        transaction.setIdempotencyKey(key.key());
+        transaction.setRequestFingerprint(fingerprint);
+        transaction.setMerchantRef(request.getMerchantRef());
+        transaction.setAmount(BigDecimal.valueOf(request.getAmount()));
+        transaction.setCurrency(parseEnumSafe(Transaction.Currency.class, request.getCurrency(), Transaction.Currency.NGN));
+        transaction.setCustomerEmail(request.getCustomerEmail());
+        transaction.setPaymentMethod(parseEnumSafe(Transaction.PaymentMethod.class, request.getPaymentMethod(), Transaction.PaymentMethod.CARD));
+        transaction.setStatus(Transaction.Status.INITIATING);
+        transaction.setMerchantId(merchant.getId());
+        transaction.setPaymentGateway(gateway);
+        return transaction;
+    }
+
     // 🔹 Extract authorization URL safely
     private String extractAuthorizationUrl(Transaction transaction) {
         try {
@@ -131,6 +425,22 @@ public class TransactionService {
         }
     }
 
+    private record ClaimedItem(int index, InitiatePaymentRequest request, IdempotencyKey key, String fingerprint,
+                               IdempotencyService.Claim claim) {
+    }
+
+    private record ReservedItem(ClaimedItem claimed, GatewayRoute route, Transaction transaction, AtomicBoolean started) {
+        ReservedItem(ClaimedItem claimed, GatewayRoute route, Transaction transaction) {
+            this(claimed, route, transaction, new AtomicBoolean());
+        }
+
+        int index() { return claimed.index(); }
+        InitiatePaymentRequest request() { return claimed.request(); }
+        IdempotencyKey key() { return claimed.key(); }
+        String fingerprint() { return claimed.fingerprint(); }
+        IdempotencyService.Claim claim() { return claimed.claim(); }
+    }
+
     // 🔹 Safe Enum parsing with fallback
     private <E extends Enum<E>> E parseEnumSafe(Class<E> enumClass, String value, E defaultValue) {
         if (value == null || value.isBlank()) return defaultValue;
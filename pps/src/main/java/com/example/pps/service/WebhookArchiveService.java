@@ -0,0 +1,59 @@
+package com.example.pps.service;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.entity.WebhookEvent;
+import com.example.pps.repository.WebhookEventRepository;
+import com.example.pps.webhook.WebhookPayloadCodec;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read side of the webhook archive: decodes stored events for inspection and feeds
+ * them back through ingestion for replay.
+ */
+@Service
+public class WebhookArchiveService {
+    private final WebhookEventRepository webhookEventRepository;
+    private final WebhookIngestionService webhookIngestionService;
+
+    public WebhookArchiveService(WebhookEventRepository webhookEventRepository,
+                                 WebhookIngestionService webhookIngestionService) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.webhookIngestionService = webhookIngestionService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<WebhookEvent> findByReference(WebhookEvent.PaymentGateway gateway, String reference) {
+        return webhookEventRepository.findByReferenceAndPaymentGatewayOrderByReceivedAtAsc(reference, gateway);
+    }
+
+    /**
+     * @return the body as the gateway sent it (or the legacy text rendering for old rows)
+     */
+    @Transactional(readOnly = true)
+    public byte[] rawPayload(UUID eventId) {
+        return load(eventId).decodePayload();
+    }
+
+    /**
+     * Re-ingests a stored webhook exactly as it was received. Event deduplication still
+     * applies, so this only changes state for events whose earlier application was lost.
+     */
+    public CompletableFuture<Void> replay(UUID eventId) {
+        WebhookEvent event = load(eventId);
+        if (!WebhookPayloadCodec.isReplayable(event.getPayload())) {
+            throw new IllegalStateException("Webhook event " + eventId + " predates raw payload storage and cannot be replayed");
+        }
+        Transaction.PaymentGateway gateway = Transaction.PaymentGateway.valueOf(event.getPaymentGateway().name());
+        return webhookIngestionService.ingest(gateway, event.decodePayload(), null);
+    }
+
+    private WebhookEvent load(UUID eventId) {
+        return webhookEventRepository.findById(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Webhook event not found: " + eventId));
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.pps.service;
+
+import com.example.pps.dto.FlutterwaveWebhookPayload;
+import com.example.pps.dto.PaystackWebhookPayload;
+import com.example.pps.entity.Transaction;
+import com.example.pps.exception.WebhookIngestionException;
+import com.example.pps.journal.WebhookJournal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for verified gateway webhooks.
+ *
+ * In {@code async} mode (the default) the raw body is appended to the inbound topic,
+ * keyed by transaction reference, and the gateway is acknowledged as soon as the broker
+ * has it; {@link com.example.pps.consumer.InboundWebhookConsumer} applies it later.
+ * Keying by reference puts every webhook for a transaction on one partition, so they
+ * are applied in arrival order. {@code inline} mode applies the webhook on the request
+ * thread as before.
+ *
+ * If the broker (async) or the database (inline) is unavailable, the webhook is appended
+ * to the local {@link WebhookJournal} instead and acknowledged once that is on disk;
+ * {@link com.example.pps.journal.WebhookJournalDrainer} replays it later.
+ */
+@Service
+public class WebhookIngestionService {
+
+    public static final String GATEWAY_HEADER = "pps-gateway";
+    public static final String SIGNATURE_HEADER = "pps-signature";
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookIngestionService.class);
+
+    private final WebhookService webhookService;
+    private final KafkaTemplate<String, byte[]> webhookKafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final WebhookJournal webhookJournal;
+    private final String inboundTopic;
+    private final boolean async;
+    private final Duration publishTimeout;
+
+    public WebhookIngestionService(WebhookService webhookService,
+                                   @Qualifier("webhookKafkaTemplate") KafkaTemplate<String, byte[]> webhookKafkaTemplate,
+                                   ObjectMapper objectMapper,
+                                   WebhookJournal webhookJournal,
+                                   @Value("${pps.webhooks.inbound-topic:webhooks-inbound}") String inboundTopic,
+                                   @Value("${pps.webhooks.ingestion-mode:async}") String ingestionMode,
+                                   @Value("${pps.webhooks.publish-timeout:PT2S}") Duration publishTimeout) {
+        this.webhookService = webhookService;
+        this.webhookKafkaTemplate = webhookKafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.webhookJournal = webhookJournal;
+        this.inboundTopic = inboundTopic;
+        this.async = !"inline".equalsIgnoreCase(ingestionMode);
+        this.publishTimeout = publishTimeout;
+    }
+
+    /**
+     * Accepts a webhook whose signature has already been verified. The returned future
+     * completes once the webhook is durable (async mode) or applied (inline mode).
+     */
+    public CompletableFuture<Void> ingest(Transaction.PaymentGateway gateway, byte[] body, String signature) {
+        String reference = referenceOf(gateway, body);
+
+        if (webhookJournal.hasPending()) {
+            // Queue behind the journaled webhooks so none is applied out of order
+            return journal(gateway, body, signature, reference);
+        }
+
+        CompletableFuture<Void> delivered;
+        if (async) {
+            delivered = publish(gateway, body, signature, reference);
+        } else {
+            try {
+                apply(gateway, body);
+                delivered = CompletableFuture.completedFuture(null);
+            } catch (DataAccessException | TransactionException e) {
+                log.error("Failed to apply {} webhook | Reference={} | Error={}", gateway, reference, e.getMessage());
+                delivered = CompletableFuture.failedFuture(e);
+            }
+        }
+        return delivered.exceptionallyCompose(error -> journal(gateway, body, signature, reference));
+    }
+
+    /**
+     * Replays a journaled webhook through the same path {@link #ingest} would have taken.
+     * A webhook that can never be applied is dropped so it does not block the journal.
+     */
+    public void redeliver(Transaction.PaymentGateway gateway, byte[] body, String signature) {
+        try {
+            if (async) {
+                publish(gateway, body, signature, referenceOf(gateway, body)).join();
+            } else {
+                apply(gateway, body);
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Dropping journaled {} webhook that cannot be applied: {}", gateway, e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> journal(Transaction.PaymentGateway gateway, byte[] body, String signature, String reference) {
+        CompletableFuture<Void> appended;
+        try {
+            appended = webhookJournal.append(gateway, body, signature);
+        } catch (RuntimeException e) {
+            appended = CompletableFuture.failedFuture(e);
+        }
+        return appended.handle((ignored, error) -> {
+            if (error != null) {
+                log.error("Failed to journal {} webhook | Reference={} | Error={}", gateway, reference, error.getMessage());
+                throw new WebhookIngestionException("Webhook could not be accepted, retry later", error);
+            }
+            log.warn("Journaled {} webhook for later delivery | Reference={}", gateway, reference);
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> publish(Transaction.PaymentGateway gateway, byte[] body, String signature, String reference) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(inboundTopic, reference, body);
+        record.headers().add(GATEWAY_HEADER, gateway.name().getBytes(StandardCharsets.UTF_8));
+        if (signature != null) {
+            record.headers().add(SIGNATURE_HEADER, signature.getBytes(StandardCharsets.UTF_8));
+        }
+
+        CompletableFuture<SendResult<String, byte[]>> sent;
+        try {
+            sent = webhookKafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent
+                .orTimeout(publishTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    if (error != null) {
+                        log.error("Failed to enqueue {} webhook | Reference={} | Error={}", gateway, reference, error.getMessage());
+                        throw new WebhookIngestionException("Webhook could not be accepted, retry later", error);
+                    }
+                    log.debug("Enqueued {} webhook | Reference={} | Partition={} | Offset={}",
+                            gateway, reference, result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                    return null;
+                });
+    }
+
+    /**
+     * Applies a webhook to its transaction. Called inline or by the inbound consumer.
+     */
+    public void apply(Transaction.PaymentGateway gateway, byte[] body) {
+        switch (gateway) {
+            case PAYSTACK -> webhookService.processPaystackWebhook(read(body, PaystackWebhookPayload.class), body);
+            case FLUTTERWAVE -> webhookService.processFlutterwaveWebhook(read(body, FlutterwaveWebhookPayload.class), body);
+        }
+    }
+
+    private String referenceOf(Transaction.PaymentGateway gateway, byte[] body) {
+        String reference = switch (gateway) {
+            case PAYSTACK -> {
+                PaystackWebhookPayload payload = read(body, PaystackWebhookPayload.class);
+                yield payload.getData() == null ? null : payload.getData().getReference();
+            }
+            case FLUTTERWAVE -> read(body, FlutterwaveWebhookPayload.class).getTxRef();
+        };
+        if (reference == null || reference.isBlank()) {
+            throw new IllegalArgumentException("Webhook payload has no transaction reference");
+        }
+        return reference;
+    }
+
+    private <T> T read(byte[] body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed " + type.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -4,94 +4,141 @@ import com.example.pps.dto.FlutterwaveWebhookPayload;
 import com.example.pps.dto.PaystackWebhookPayload;
 import com.example.pps.entity.Transaction;
 import com.example.pps.entity.WebhookEvent;
-import com.example.pps.gateway.GatewayProvider;
 import com.example.pps.repository.TransactionRepository;
 import com.example.pps.repository.WebhookEventRepository;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.kafka.core.KafkaTemplate;
+import com.example.pps.timer.DurableTimers;
+import com.example.pps.webhook.WebhookDeduplicator;
+import com.example.pps.webhook.WebhookEventKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
 @Service
 public class WebhookService {
+    private static final Logger log = LoggerFactory.getLogger(WebhookService.class);
+    private static final Set<Transaction.Status> SETTLEABLE = EnumSet.of(Transaction.Status.PENDING);
+
     private final TransactionRepository transactionRepository;
     private final WebhookEventRepository webhookEventRepository;
-    private final GatewayProvider paystackGateway;
-    private final GatewayProvider flutterwaveGateway;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MerchantNotifier merchantNotifier;
+    private final DurableTimers durableTimers;
+    private final WebhookDeduplicator webhookDeduplicator;
 
     public WebhookService(TransactionRepository transactionRepository,
                           WebhookEventRepository webhookEventRepository,
-                          GatewayProvider paystackGateway,
-                          GatewayProvider flutterwaveGateway,
-                          KafkaTemplate<String, Object> kafkaTemplate) {
+                          MerchantNotifier merchantNotifier,
+                          DurableTimers durableTimers,
+                          WebhookDeduplicator webhookDeduplicator) {
         this.transactionRepository = transactionRepository;
         this.webhookEventRepository = webhookEventRepository;
-        this.paystackGateway = paystackGateway;
-        this.flutterwaveGateway = flutterwaveGateway;
-        this.kafkaTemplate = kafkaTemplate;
+        this.merchantNotifier = merchantNotifier;
+        this.durableTimers = durableTimers;
+        this.webhookDeduplicator = webhookDeduplicator;
     }
 
     // ==========================
     // PAYSTACK WEBHOOK HANDLER
     // ==========================
     @Transactional
-    public void processPaystackWebhook(PaystackWebhookPayload payload, String signature) {
-        // Optional signature verification
-        // paystackGateway.verifyWebhookSignature(payload.toString(), signature);
-
-        // 1️⃣ Find transaction
-        Transaction transaction = transactionRepository.findByMerchantRef(payload.getData().getReference())
+    public void processPaystackWebhook(PaystackWebhookPayload payload, byte[] rawBody) {
+        // 1️⃣ Find transaction (id, partition key and status only)
+        TransactionRepository.StatusRef transaction = transactionRepository.findStatusRefByMerchantRef(payload.getData().getReference())
                 .orElseThrow(() -> new IllegalArgumentException(
                         "Transaction not found for reference: " + payload.getData().getReference()));
 
-        // 2️⃣ Check if we’ve already processed this webhook
-        if (webhookEventRepository.existsByTransactionAndPaymentGateway(transaction, WebhookEvent.PaymentGateway.PAYSTACK)) {
-            System.out.println("⚠️ Duplicate Paystack webhook ignored for transaction: " + transaction.getId());
+        // 2️⃣ Check if we’ve already processed this event (same type, reference and status)
+        WebhookEventKey eventKey = new WebhookEventKey(Transaction.PaymentGateway.PAYSTACK, payload.getEvent(),
+                payload.getData().getReference(), payload.getData().getStatus());
+        if (!webhookDeduplicator.claim(eventKey)) {
+            log.info("⚠️ Duplicate Paystack webhook ignored | TxnID={} | Event={}", transaction.getId(), eventKey);
             return;
         }
 
-        // 3️⃣ Update transaction status FIRST
-        transaction.setStatus(mapPaystackStatus(payload.getData().getStatus()));
-        transactionRepository.saveAndFlush(transaction); // flush ensures the change is visible to the next save
+        // 3️⃣ Apply the status transition, if it is a legal one
+        Transaction.Status target = mapPaystackStatus(payload.getData().getStatus());
+        boolean transitioned = transition(transaction, target, eventKey);
 
-        // 4️⃣ Then persist webhook event
+        // 4️⃣ Persist webhook event, keeping the exact body that was signed
         WebhookEvent event = new WebhookEvent();
         event.setPaymentGateway(WebhookEvent.PaymentGateway.PAYSTACK);
-        event.setPayload(payload.toString());
-        event.setTransaction(transaction);
+        event.setRawPayload(rawBody);
+        event.setEventType(payload.getEvent());
+        event.setReference(payload.getData().getReference());
+        event.setStatus(payload.getData().getStatus());
+        event.setTransaction(transactionRepository.getReferenceById(transaction.getId()));
         webhookEventRepository.saveAndFlush(event);
 
-        // 5️⃣ Publish to Kafka (outside DB transaction, optional)
-        kafkaTemplate.send("merchant-notifications", transaction.getMerchantId().toString(), transaction);
+        // 5️⃣ Notify the merchant of the new status
+        if (transitioned) {
+            // Webhooks only settle PENDING transactions (see SETTLEABLE)
+            merchantNotifier.statusChanged(transaction, Transaction.Status.PENDING, target);
+        }
     }
 
     // ==========================
     // FLUTTERWAVE WEBHOOK HANDLER
     // ==========================
     @Transactional
-    public void processFlutterwaveWebhook(FlutterwaveWebhookPayload payload, String signature) {
-        // flutterwaveGateway.verifyWebhookSignature(payload.toString(), signature);
-
-        Transaction transaction = transactionRepository.findByMerchantRef(payload.getTxRef())
+    public void processFlutterwaveWebhook(FlutterwaveWebhookPayload payload, byte[] rawBody) {
+        TransactionRepository.StatusRef transaction = transactionRepository.findStatusRefByMerchantRef(payload.getTxRef())
                 .orElseThrow(() -> new IllegalArgumentException(
                         "Transaction not found for txRef: " + payload.getTxRef()));
 
-        if (webhookEventRepository.existsByTransactionAndPaymentGateway(transaction, WebhookEvent.PaymentGateway.FLUTTERWAVE)) {
-            System.out.println("⚠️ Duplicate Flutterwave webhook ignored for transaction: " + transaction.getId());
+        WebhookEventKey eventKey = new WebhookEventKey(Transaction.PaymentGateway.FLUTTERWAVE, null,
+                payload.getTxRef(), payload.getStatus());
+        if (!webhookDeduplicator.claim(eventKey)) {
+            log.info("⚠️ Duplicate Flutterwave webhook ignored | TxnID={} | Event={}", transaction.getId(), eventKey);
             return;
         }
 
-        transaction.setStatus(mapFlutterwaveStatus(payload.getStatus()));
-        transactionRepository.saveAndFlush(transaction);
+        Transaction.Status target = mapFlutterwaveStatus(payload.getStatus());
+        boolean transitioned = transition(transaction, target, eventKey);
 
         WebhookEvent event = new WebhookEvent();
         event.setPaymentGateway(WebhookEvent.PaymentGateway.FLUTTERWAVE);
-        event.setPayload(payload.toString());
-        event.setTransaction(transaction);
+        event.setRawPayload(rawBody);
+        event.setReference(payload.getTxRef());
+        event.setStatus(payload.getStatus());
+        event.setTransaction(transactionRepository.getReferenceById(transaction.getId()));
         webhookEventRepository.saveAndFlush(event);
 
-        kafkaTemplate.send("merchant-notifications", transaction.getMerchantId().toString(), transaction);
+        if (transitioned) {
+            // Webhooks only settle PENDING transactions (see SETTLEABLE)
+            merchantNotifier.statusChanged(transaction, Transaction.Status.PENDING, target);
+        }
+    }
+
+    /**
+     * Settles a PENDING transaction with a single conditional update. Webhooks only ever
+     * settle: a non-terminal status is informational, and INITIATING belongs to the
+     * initiating request. Stale or out-of-order webhooks and lost races update nothing; if
+     * the transaction has not settled yet, the event's dedup claim is released so that a
+     * redelivery is not discarded.
+     */
+    private boolean transition(TransactionRepository.StatusRef transaction, Transaction.Status target, WebhookEventKey eventKey) {
+        if (!target.isTerminal()) {
+            log.debug("Webhook does not settle transaction | TxnID={} | Event={}", transaction.getId(), eventKey);
+            return false;
+        }
+        int updated = transactionRepository.transitionStatus(
+                transaction.getId(), transaction.getCreatedAt(), SETTLEABLE, target, Instant.now());
+        if (updated == 0) {
+            log.info("Webhook did not change transaction status | TxnID={} | Status={} | Target={} | Event={}",
+                    transaction.getId(), transaction.getStatus(), target, eventKey);
+            if (!transaction.getStatus().isTerminal()) {
+                // Not settleable yet (e.g. still INITIATING): let the provider's redelivery apply it
+                webhookDeduplicator.release(eventKey);
+            }
+            return false;
+        }
+        log.info("Transaction status updated | TxnID={} | {} -> {}", transaction.getId(), transaction.getStatus(), target);
+        durableTimers.cancel(PendingExpiryHandler.KIND, transaction.getId().toString());
+        return true;
     }
 
     // ==========================
@@ -0,0 +1,215 @@
+package com.example.pps.timer;
+
+import com.example.pps.entity.ScheduledTimer;
+import com.example.pps.entity.UuidV7Generator;
+import com.example.pps.repository.ScheduledTimerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Timers that survive restarts and are shared out between instances.
+ *
+ * Timers are rows in {@code scheduled_timers}, written in the caller's transaction.
+ * Every {@code pps.timers.poll-interval} each instance claims up to
+ * {@code pps.timers.claim-batch-size} unowned timers due within {@code pps.timers.horizon}
+ * with {@code FOR UPDATE SKIP LOCKED}, leases them for {@code pps.timers.lease} and loads
+ * them into the {@link HierarchicalTimingWheel}; it renews the leases of what it holds on
+ * every poll. When a timer fires, the row is deleted and its {@link TimerHandler} runs in
+ * one transaction, so a timer fires once on whichever instance holds it; if that instance
+ * dies, its leases lapse and the timers are claimed elsewhere. A handler that throws puts
+ * its timer back, due again after {@code pps.timers.retry-delay}.
+ *
+ * Timers due sooner than the next poll fire up to one poll interval late.
+ *
+ * Metrics: {@code pps.timers.loaded}, {@code pps.timers.overdue},
+ * {@code pps.timers.fired}, {@code pps.timers.failures}.
+ */
+@Component
+public class DurableTimers {
+
+    private static final Logger log = LoggerFactory.getLogger(DurableTimers.class);
+
+    private final ScheduledTimerRepository repository;
+    private final HierarchicalTimingWheel timingWheel;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, TimerHandler> handlers;
+    private final Duration horizon;
+    private final Duration lease;
+    private final Duration retryDelay;
+    private final int claimBatchSize;
+
+    // Unique per process, so a restarted instance never mistakes its predecessor's leases for its own
+    private final String owner = UuidV7Generator.generate().toString();
+    private final Map<TimerKey, Loaded> loaded = new ConcurrentHashMap<>();
+    private final AtomicLong overdue = new AtomicLong();
+    private final Counter fired;
+    private final Counter failures;
+
+    public DurableTimers(ScheduledTimerRepository repository,
+                         HierarchicalTimingWheel timingWheel,
+                         TransactionTemplate transactionTemplate,
+                         List<TimerHandler> handlers,
+                         MeterRegistry meterRegistry,
+                         @Value("${pps.timers.horizon:PT1M}") Duration horizon,
+                         @Value("${pps.timers.lease:PT30S}") Duration lease,
+                         @Value("${pps.timers.retry-delay:PT30S}") Duration retryDelay,
+                         @Value("${pps.timers.claim-batch-size:1000}") int claimBatchSize) {
+        this.repository = repository;
+        this.timingWheel = timingWheel;
+        this.transactionTemplate = transactionTemplate;
+        this.handlers = handlers.stream().collect(Collectors.toMap(TimerHandler::kind, Function.identity()));
+        this.horizon = horizon;
+        this.lease = lease;
+        this.retryDelay = retryDelay;
+        this.claimBatchSize = claimBatchSize;
+        this.fired = meterRegistry.counter("pps.timers.fired");
+        this.failures = meterRegistry.counter("pps.timers.failures");
+        meterRegistry.gauge("pps.timers.loaded", loaded, Map::size);
+        meterRegistry.gauge("pps.timers.overdue", overdue);
+    }
+
+    /**
+     * Schedules the {@code kind} timer for {@code key} at {@code dueAt}, replacing any
+     * existing one. Takes effect when the caller's transaction commits.
+     */
+    @Transactional
+    public void schedule(String kind, String key, Instant dueAt, String payload) {
+        if (!handlers.containsKey(kind)) {
+            throw new IllegalArgumentException("No timer handler for kind " + kind);
+        }
+        repository.upsert(UuidV7Generator.generate(), kind, key, payload, dueAt, Instant.now());
+    }
+
+    /**
+     * Cancels the {@code kind} timer for {@code key}, if there is one.
+     */
+    @Transactional
+    public void cancel(String kind, String key) {
+        if (repository.deleteByKindAndKey(kind, key) == 0) {
+            return;
+        }
+        TimerKey timerKey = new TimerKey(kind, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    unload(timerKey);
+                }
+            });
+        } else {
+            unload(timerKey);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pps.timers.poll-interval:PT1S}")
+    public void poll() {
+        try {
+            renewLeases();
+            int claimed;
+            do {
+                claimed = claimBatch();
+            } while (claimed == claimBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Timer poll failed | Error={}", e.getMessage());
+        }
+        try {
+            overdue.set(repository.countOverdue(Instant.now().minus(lease)));
+        } catch (RuntimeException e) {
+            log.debug("Could not count overdue timers | Error={}", e.getMessage());
+        }
+    }
+
+    private void renewLeases() {
+        List<UUID> ids = loaded.values().stream().map(Loaded::id).toList();
+        Instant leaseUntil = Instant.now().plus(lease);
+        for (int from = 0; from < ids.size(); from += claimBatchSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + claimBatchSize));
+            transactionTemplate.executeWithoutResult(status -> repository.renewLeases(chunk, owner, leaseUntil));
+        }
+    }
+
+    private int claimBatch() {
+        Instant now = Instant.now();
+        List<ScheduledTimer> claimed = transactionTemplate.execute(status -> {
+            List<ScheduledTimer> timers = repository.lockClaimable(now.plus(horizon), now, claimBatchSize);
+            if (!timers.isEmpty()) {
+                repository.lease(timers.stream().map(ScheduledTimer::getId).toList(), owner, now.plus(lease));
+            }
+            return timers;
+        });
+        if (claimed == null) {
+            return 0;
+        }
+        for (ScheduledTimer timer : claimed) {
+            TimerKey key = new TimerKey(timer.getKind(), timer.getTimerKey());
+            UUID id = timer.getId();
+            Loaded previous = loaded.put(key, new Loaded(id, timingWheel.schedule(
+                    () -> fire(key, id, timer.getPayload()), Duration.between(Instant.now(), timer.getDueAt()))));
+            if (previous != null) {
+                // The timer was moved after we loaded it; the old copy would not fire anyway
+                previous.timeout().cancel();
+            }
+        }
+        if (!claimed.isEmpty()) {
+            log.debug("Claimed {} timer(s)", claimed.size());
+        }
+        return claimed.size();
+    }
+
+    private void fire(TimerKey key, UUID id, String payload) {
+        loaded.computeIfPresent(key, (ignored, current) -> current.id().equals(id) ? null : current);
+        try {
+            Boolean handled = transactionTemplate.execute(status -> {
+                if (repository.deleteOwned(id, owner) == 0) {
+                    return false;
+                }
+                handlers.get(key.kind()).onTimer(key.key(), payload);
+                return true;
+            });
+            if (Boolean.TRUE.equals(handled)) {
+                fired.increment();
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Timer handler failed, retrying in {} | Kind={} | Key={} | Error={}", retryDelay, key.kind(), key.key(), e.getMessage());
+            try {
+                transactionTemplate.executeWithoutResult(status -> repository.release(id, owner, Instant.now().plus(retryDelay)));
+            } catch (RuntimeException releaseError) {
+                // The lease lapses and another poll picks the timer up
+                log.warn("Could not release failed timer | Kind={} | Key={} | Error={}", key.kind(), key.key(), releaseError.getMessage());
+            }
+        }
+    }
+
+    private void unload(TimerKey key) {
+        Loaded removed = loaded.remove(key);
+        if (removed != null) {
+            removed.timeout().cancel();
+        }
+    }
+
+    private record TimerKey(String kind, String key) {
+    }
+
+    private record Loaded(UUID id, HierarchicalTimingWheel.Timeout timeout) {
+    }
+}
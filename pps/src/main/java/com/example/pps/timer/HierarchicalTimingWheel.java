@@ -0,0 +1,266 @@
+package com.example.pps.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-memory hierarchical timing wheel (Varghese and Lauck) for large numbers of timers.
+ *
+ * There are {@code levels} wheels of {@code 2^wheelBits} slots. A slot on level
+ * {@code k} covers {@code 2^(wheelBits * k)} ticks, so four levels of 256 slots at a
+ * 10 ms tick reach about 497 days; longer delays wait on the top level and are placed
+ * again each time it turns. Each slot is a doubly linked list, and when a lower wheel
+ * wraps the next slot of the wheel above is cascaded down into it.
+ *
+ * {@link #schedule} and {@link Timeout#cancel} are O(1) and never block: both only
+ * append to a queue that the single worker thread drains at the next tick, and the
+ * worker is the only thread that touches the wheels. Expired tasks run on the supplied
+ * executor, never on the worker. Timers fire at tick granularity and never early.
+ */
+public class HierarchicalTimingWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HierarchicalTimingWheel.class);
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int levels;
+    private final long mask;
+    private final long maxTicks;
+    private final Executor executor;
+    private final Bucket[][] wheels;
+
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+    // Last tick the worker has processed; only written by the worker
+    private long currentTick;
+
+    public HierarchicalTimingWheel(String name, Duration tick, int wheelBits, int levels, Executor executor) {
+        if (tick.isNegative() || tick.isZero() || wheelBits < 1 || levels < 1 || (long) wheelBits * levels > 62) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry: tick=" + tick + ", bits=" + wheelBits + ", levels=" + levels);
+        }
+        this.tickNanos = tick.toNanos();
+        this.wheelBits = wheelBits;
+        this.levels = levels;
+        this.mask = (1L << wheelBits) - 1;
+        this.maxTicks = 1L << (wheelBits * levels);
+        this.executor = executor;
+        this.wheels = new Bucket[levels][1 << wheelBits];
+        for (Bucket[] wheel : wheels) {
+            for (int slot = 0; slot < wheel.length; slot++) {
+                wheel[slot] = new Bucket();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Runs {@code task} on the executor once {@code delay} has elapsed.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (!running) {
+            throw new RejectedExecutionException("Timing wheel is stopped");
+        }
+        long delayNanos = Math.max(0, delay.toNanos());
+        long elapsed = System.nanoTime() - startNanos;
+        // Round up so a timer never fires before its delay
+        Timeout timeout = new Timeout(task, (elapsed + delayNanos + tickNanos - 1) / tickNanos);
+        pending.incrementAndGet();
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return timers scheduled and neither expired nor cancelled yet
+     */
+    public long size() {
+        return pending.get();
+    }
+
+    private void run() {
+        while (running) {
+            long tick = currentTick + 1;
+            long sleepNanos = startNanos + tick * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            try {
+                advance(tick);
+            } catch (RuntimeException e) {
+                log.error("Timing wheel tick {} failed | Error={}", tick, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void advance(long tick) {
+        currentTick = tick;
+        for (Timeout timeout; (timeout = additions.poll()) != null; ) {
+            if (timeout.state.get() == Timeout.PENDING) {
+                place(timeout);
+            }
+        }
+        for (Timeout timeout; (timeout = cancellations.poll()) != null; ) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+        // Cascade from the top so timers falling from level k + 1 land in level k before
+        // level k itself is cascaded
+        for (int level = levels - 1; level > 0; level--) {
+            if ((tick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                Bucket bucket = wheels[level][slot(tick, level)];
+                for (Timeout timeout; (timeout = bucket.poll()) != null; ) {
+                    place(timeout);
+                }
+            }
+        }
+        Bucket due = wheels[0][slot(tick, 0)];
+        for (Timeout timeout; (timeout = due.poll()) != null; ) {
+            expire(timeout);
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire(timeout);
+            return;
+        }
+        // Timers beyond the top wheel park in its furthest slot and are placed again when it comes round
+        long target = delta < maxTicks ? timeout.deadlineTick : currentTick + maxTicks - 1;
+        int level = 0;
+        while (level < levels - 1 && (target - currentTick) >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+        wheels[level][slot(target, level)].add(timeout);
+    }
+
+    private int slot(long tick, int level) {
+        return (int) ((tick >>> (wheelBits * level)) & mask);
+    }
+
+    private void expire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+            return;
+        }
+        pending.decrementAndGet();
+        try {
+            executor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            log.error("Timer task rejected by executor, dropped | Error={}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(tickNanos / 1_000_000 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (pending.get() > 0) {
+            log.info("Timing wheel stopped with {} pending timer(s)", pending.get());
+        }
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Bucket links; only touched by the worker thread
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return {@code false} if the task has already been handed to the executor
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancellations.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        Timeout poll() {
+            Timeout timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.pps.timer;
+
+/**
+ * Fires durable timers of one {@link #kind()}. Called inside the transaction that deletes
+ * the timer, so a handler that throws leaves it in place to be retried.
+ */
+public interface TimerHandler {
+
+    String kind();
+
+    void onTimer(String key, String payload);
+}
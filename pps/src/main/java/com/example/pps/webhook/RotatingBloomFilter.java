@@ -0,0 +1,101 @@
+package com.example.pps.webhook;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free Bloom filter over two generations. Keys are added to the current
+ * generation and looked up in both; once the current generation is older than the
+ * rotation interval it becomes the previous one and a fresh generation starts, so
+ * the filter remembers keys for between one and two intervals and never fills up.
+ *
+ * Uses double hashing (Kirsch-Mitzenmacher) of a 64-bit FNV-1a hash to derive the
+ * k bit positions.
+ */
+public class RotatingBloomFilter {
+
+    private final int bits;
+    private final int hashes;
+    private final long rotationMillis;
+    private final Clock clock;
+    private final AtomicReference<Generations> generations;
+
+    public RotatingBloomFilter(long expectedInsertionsPerGeneration, double falsePositiveRate, Duration rotationInterval, Clock clock) {
+        double optimalBits = -expectedInsertionsPerGeneration * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(optimalBits)));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertionsPerGeneration * Math.log(2)));
+        this.rotationMillis = rotationInterval.toMillis();
+        this.clock = clock;
+        this.generations = new AtomicReference<>(new Generations(newGeneration(), newGeneration(), clock.millis()));
+    }
+
+    public boolean mightContain(String key) {
+        Generations current = current();
+        long hash = hash(key);
+        return contains(current.active(), hash) || contains(current.previous(), hash);
+    }
+
+    public void put(String key) {
+        long hash = hash(key);
+        AtomicLongArray words = current().active();
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long value;
+            while (((value = words.get(word)) & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                // retry: another bit in the same word changed concurrently
+            }
+        }
+    }
+
+    int hashFunctions() {
+        return hashes;
+    }
+
+    private boolean contains(AtomicLongArray words, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Generations current() {
+        Generations current = generations.get();
+        long now = clock.millis();
+        if (now - current.startedAtMillis() < rotationMillis) {
+            return current;
+        }
+        Generations rotated = new Generations(newGeneration(), current.active(), now);
+        return generations.compareAndSet(current, rotated) ? rotated : generations.get();
+    }
+
+    private AtomicLongArray newGeneration() {
+        return new AtomicLongArray((bits + 63) >>> 6);
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        // splitmix64 finalizer spreads FNV's weak low bits across both halves
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private record Generations(AtomicLongArray active, AtomicLongArray previous, long startedAtMillis) {
+    }
+}
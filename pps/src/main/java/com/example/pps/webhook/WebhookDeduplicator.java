@@ -0,0 +1,152 @@
+package com.example.pps.webhook;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Deduplicates provider webhooks by {@link WebhookEventKey}.
+ *
+ * Redis is authoritative: every event is claimed with {@code SET NX PX} and the claim is
+ * released if the applying transaction rolls back or the caller {@link #release releases}
+ * it, so a failed or premature attempt can be retried. A {@link RotatingBloomFilter} of
+ * events this instance has seen applied or rejected is consulted first, but only to
+ * classify the outcome: a Bloom hit is still settled by Redis, so a false positive never
+ * drops an event, and every hit is counted as confirmed or false positive to validate the
+ * configured rate.
+ *
+ * Metrics: {@code pps.webhook.dedup{result=new|duplicate|bloom_hit|redis_unavailable}}
+ * and {@code pps.webhook.dedup.bloom.verified{result=confirmed|false_positive}}.
+ */
+@Component
+public class WebhookDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookDeduplicator.class);
+
+    private final StatefulRedisConnection<String, String> redis;
+    private final RotatingBloomFilter bloomFilter;
+    private final Duration ttl;
+
+    private final Counter newEvents;
+    private final Counter duplicates;
+    private final Counter bloomHits;
+    private final Counter redisUnavailable;
+    private final Counter bloomConfirmed;
+    private final Counter bloomFalsePositives;
+
+    public WebhookDeduplicator(StatefulRedisConnection<String, String> redis,
+                               MeterRegistry meterRegistry,
+                               @Value("${pps.webhooks.dedup.ttl:P7D}") Duration ttl,
+                               @Value("${pps.webhooks.dedup.bloom-expected-events:1000000}") long bloomExpectedEvents,
+                               @Value("${pps.webhooks.dedup.bloom-false-positive-rate:0.000001}") double bloomFalsePositiveRate,
+                               @Value("${pps.webhooks.dedup.bloom-rotation:PT10M}") Duration bloomRotation) {
+        this.redis = redis;
+        this.bloomFilter = new RotatingBloomFilter(bloomExpectedEvents, bloomFalsePositiveRate, bloomRotation, Clock.systemUTC());
+        this.ttl = ttl;
+        this.newEvents = meterRegistry.counter("pps.webhook.dedup", "result", "new");
+        this.duplicates = meterRegistry.counter("pps.webhook.dedup", "result", "duplicate");
+        this.bloomHits = meterRegistry.counter("pps.webhook.dedup", "result", "bloom_hit");
+        this.redisUnavailable = meterRegistry.counter("pps.webhook.dedup", "result", "redis_unavailable");
+        this.bloomConfirmed = meterRegistry.counter("pps.webhook.dedup.bloom.verified", "result", "confirmed");
+        this.bloomFalsePositives = meterRegistry.counter("pps.webhook.dedup.bloom.verified", "result", "false_positive");
+    }
+
+    /**
+     * Claims the event for this delivery.
+     *
+     * @return true if the event has not been applied before and should be applied now
+     */
+    public boolean claim(WebhookEventKey key) {
+        String redisKey = key.redisKey();
+        boolean bloomHit = bloomFilter.mightContain(redisKey);
+        if (bloomHit) {
+            bloomHits.increment();
+        }
+
+        String result;
+        try {
+            result = redis.sync().set(redisKey, "1", SetArgs.Builder.nx().px(ttl.toMillis()));
+        } catch (RedisException e) {
+            // Fail open: applying a webhook twice is idempotent, losing one is not
+            redisUnavailable.increment();
+            log.warn("Webhook dedup check in Redis failed, applying event | Event={} | Error={}", key, e.getMessage());
+            return true;
+        }
+
+        if (!"OK".equals(result)) {
+            if (bloomHit) {
+                bloomConfirmed.increment();
+            }
+            duplicates.increment();
+            bloomFilter.put(redisKey);
+            return false;
+        }
+
+        if (bloomHit) {
+            bloomFalsePositives.increment();
+            log.info("Bloom filter false positive, event applied | Key={}", redisKey);
+        }
+        newEvents.increment();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new ClaimSynchronization(redisKey));
+        } else {
+            bloomFilter.put(redisKey);
+        }
+        return true;
+    }
+
+    /**
+     * Gives up a claim whose event was not applied, so a redelivery is processed again.
+     * Inside a transaction the claim is dropped when it completes, whatever the outcome.
+     */
+    public void release(WebhookEventKey key) {
+        String redisKey = key.redisKey();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (synchronization instanceof ClaimSynchronization claim && claim.redisKey.equals(redisKey)) {
+                    claim.released = true;
+                    return;
+                }
+            }
+        }
+        release(redisKey);
+    }
+
+    private void release(String redisKey) {
+        try {
+            redis.sync().del(redisKey);
+        } catch (RedisException e) {
+            log.warn("Failed to release webhook event claim, it will expire in {} | Key={} | Error={}", ttl, redisKey, e.getMessage());
+        }
+    }
+
+    // Remembers an applied event once its transaction commits; drops the claim otherwise
+    private final class ClaimSynchronization implements TransactionSynchronization {
+        private final String redisKey;
+        private boolean released;
+
+        ClaimSynchronization(String redisKey) {
+            this.redisKey = redisKey;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED && !released) {
+                bloomFilter.put(redisKey);
+            } else {
+                release(redisKey);
+            }
+        }
+    }
+}
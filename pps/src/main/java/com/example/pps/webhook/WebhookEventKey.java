@@ -0,0 +1,19 @@
+package com.example.pps.webhook;
+
+import com.example.pps.entity.Transaction;
+
+/**
+ * Identity of a provider event: the same event type, reference and status from the same
+ * gateway is one event however many times it is delivered, while a later status for the
+ * same reference is a new event.
+ */
+public record WebhookEventKey(Transaction.PaymentGateway gateway, String eventType, String reference, String status) {
+
+    String redisKey() {
+        return "webhook:event:" + gateway + ":" + nullToEmpty(eventType) + ":" + reference + ":" + nullToEmpty(status).toLowerCase();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
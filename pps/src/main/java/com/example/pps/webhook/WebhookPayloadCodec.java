@@ -0,0 +1,113 @@
+package com.example.pps.webhook;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes raw webhook bodies for the {@code webhook_events.payload} column.
+ *
+ * The first byte names the format so old rows stay readable when it changes:
+ * <ul>
+ *   <li>{@link #LEGACY_TEXT}: UTF-8 text migrated from the old TEXT column. These are
+ *       DTO {@code toString()} renderings, not the signed body, and cannot be replayed.</li>
+ *   <li>{@link #DEFLATE_DICTIONARY_V1}: the exact bytes received, raw-deflated with the
+ *       preset dictionary below. Webhooks are small and share most of their keys, so a
+ *       dictionary does far more for them than per-message compression alone.</li>
+ * </ul>
+ * The dictionary is part of the format: changing it requires a new format byte.
+ */
+public final class WebhookPayloadCodec {
+
+    public static final byte LEGACY_TEXT = 0;
+    public static final byte DEFLATE_DICTIONARY_V1 = 1;
+
+    // Deflate favours the end of the dictionary, so the most common fragments come last
+    private static final byte[] DICTIONARY_V1 = ("""
+            {"event":"charge.completed","data":{"id":,"tx_ref":"","flw_ref":"","device_fingerprint":"","amount":,\
+            "currency":"NGN","charged_amount":,"app_fee":,"merchant_fee":,"processor_response":"Approved by Financial Institution",\
+            "auth_model":"PIN","ip":"","narration":"","status":"successful","payment_type":"card","created_at":"",\
+            "account_id":,"customer":{"id":,"name":"","phone_number":null,"email":"","created_at":""},\
+            "card":{"first_6digits":"","last_4digits":"","issuer":"","country":"NG","type":"VISA","expiry":""}},\
+            "event.type":"CARD_TRANSACTION"}\
+            {"status":"successful","txRef":"","flwRef":"","amount":"","currency":"NGN","customerEmail":""}\
+            {"event":"charge.success","data":{"id":,"domain":"live","status":"success","reference":"","amount":,\
+            "message":null,"gateway_response":"Successful","paid_at":"","created_at":"","channel":"card",\
+            "currency":"NGN","ip_address":"","metadata":{},"fees_breakdown":null,"log":null,"fees":,\
+            "authorization":{"authorization_code":"AUTH_","bin":"","last4":"","exp_month":"","exp_year":"",\
+            "channel":"card","card_type":"visa ","bank":"","country_code":"NG","brand":"visa","reusable":true,\
+            "signature":"SIG_","account_name":null},"customer":{"id":,"first_name":null,"last_name":null,\
+            "email":"","customer_code":"CUS_","phone":null,"metadata":null,"risk_action":"default"},\
+            "plan":{},"subaccount":{},"split":{},"order_id":null,"paidAt":"","requested_amount":,"pos_transaction_data":null}}\
+            {"event":"charge.success","data":{"reference":"","status":"success","amount":"","currency":"NGN","customerEmail":""}}\
+            """).getBytes(StandardCharsets.UTF_8);
+
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private WebhookPayloadCodec() {
+    }
+
+    public static byte[] encode(byte[] raw) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY_V1);
+        deflater.setInput(raw);
+        deflater.finish();
+
+        // Webhooks compress well, so the raw size is a comfortable first guess
+        byte[] out = new byte[Math.max(64, raw.length + 1)];
+        out[0] = DEFLATE_DICTIONARY_V1;
+        int length = 1;
+        while (!deflater.finished()) {
+            if (length == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    public static byte[] decode(byte[] stored) {
+        if (stored == null || stored.length == 0) {
+            throw new IllegalArgumentException("Empty webhook payload");
+        }
+        return switch (stored[0]) {
+            case LEGACY_TEXT -> Arrays.copyOfRange(stored, 1, stored.length);
+            case DEFLATE_DICTIONARY_V1 -> inflate(stored);
+            default -> throw new IllegalArgumentException("Unknown webhook payload format: " + stored[0]);
+        };
+    }
+
+    /**
+     * @return true if {@code stored} holds the exact body the gateway sent
+     */
+    public static boolean isReplayable(byte[] stored) {
+        return stored != null && stored.length > 0 && stored[0] != LEGACY_TEXT;
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        // Raw inflate takes the preset dictionary up front instead of signalling needsDictionary()
+        inflater.setDictionary(DICTIONARY_V1);
+        inflater.setInput(stored, 1, stored.length - 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+        byte[] chunk = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated webhook payload");
+                }
+                out.write(chunk, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt webhook payload: " + e.getMessage(), e);
+        }
+        return out.toByteArray();
+    }
+}
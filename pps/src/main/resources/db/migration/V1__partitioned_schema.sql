@@ -0,0 +1,107 @@
+-- Baseline schema, managed by Flyway instead of Hibernate ddl-auto.
+--
+-- transactions and webhook_events are range-partitioned by created_at into monthly
+-- partitions. PartitionMaintenanceJob creates partitions ahead of time and drops the
+-- ones past retention, so retention is a partition drop rather than a bulk DELETE.
+
+CREATE TABLE merchants (
+    id                       uuid         NOT NULL PRIMARY KEY,
+    api_key_hash             varchar(64)  NOT NULL,
+    name                     varchar(255) NOT NULL,
+    webhook_url              varchar(255),
+    gateway_failover_enabled boolean      NOT NULL DEFAULT false,
+    created_at               timestamptz  NOT NULL,
+    updated_at               timestamptz  NOT NULL,
+    CONSTRAINT uk_merchants_api_key_hash UNIQUE (api_key_hash)
+);
+
+-- A partitioned table's primary key must contain the partition key, hence (id, created_at).
+CREATE TABLE transactions (
+    id                  uuid          NOT NULL,
+    merchant_id         uuid          NOT NULL REFERENCES merchants (id),
+    merchant_ref        varchar(255)  NOT NULL,
+    idempotency_key     varchar(255)  NOT NULL,
+    request_fingerprint varchar(64),
+    pg_transaction_ref  varchar(255),
+    amount              numeric(38, 2) NOT NULL,
+    currency            varchar(255)  NOT NULL CHECK (currency IN ('NGN', 'USD', 'EUR')),
+    customer_email      varchar(255)  NOT NULL,
+    payment_method      varchar(255)  NOT NULL CHECK (payment_method IN ('CARD', 'BANK_TRANSFER')),
+    payment_gateway     varchar(255)  NOT NULL CHECK (payment_gateway IN ('PAYSTACK', 'FLUTTERWAVE')),
+    status              varchar(255)  NOT NULL CHECK (status IN ('INITIATING', 'PENDING', 'COMPLETED', 'FAILED')),
+    metadata            text,
+    created_at          timestamptz   NOT NULL,
+    updated_at          timestamptz   NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_transactions_merchant_created ON transactions (merchant_id, created_at, id);
+CREATE INDEX idx_transactions_merchant_status_created ON transactions (merchant_id, status, created_at, id);
+CREATE INDEX idx_transactions_merchant_ref ON transactions (merchant_ref);
+CREATE INDEX idx_transactions_pg_ref ON transactions (pg_transaction_ref, payment_gateway);
+-- Tiny: only rows between reserve and finalize, scanned by InitiationRecoveryJob
+CREATE INDEX idx_transactions_initiating ON transactions (created_at) WHERE status = 'INITIATING';
+
+-- (merchant_id, idempotency_key) cannot be unique on the partitioned table without also
+-- including created_at, so uniqueness is enforced through this unpartitioned side table.
+-- The trigger claims the key in the same statement as the insert, so a duplicate still
+-- fails the insert with a unique violation, exactly as the old table constraint did.
+CREATE TABLE transaction_idempotency_keys (
+    merchant_id     uuid         NOT NULL,
+    idempotency_key varchar(255) NOT NULL,
+    transaction_id  uuid         NOT NULL,
+    created_at      timestamptz  NOT NULL,
+    CONSTRAINT uk_transactions_merchant_idempotency_key PRIMARY KEY (merchant_id, idempotency_key)
+);
+
+CREATE INDEX idx_transaction_idempotency_keys_created ON transaction_idempotency_keys (created_at);
+
+CREATE FUNCTION claim_transaction_idempotency_key() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO transaction_idempotency_keys (merchant_id, idempotency_key, transaction_id, created_at)
+    VALUES (NEW.merchant_id, NEW.idempotency_key, NEW.id, NEW.created_at);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_claim_idempotency_key
+    BEFORE INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION claim_transaction_idempotency_key();
+
+-- No foreign key to transactions: it would have to reference (id, created_at).
+CREATE TABLE webhook_events (
+    id              uuid         NOT NULL,
+    transaction_id  uuid,
+    payment_gateway varchar(255) NOT NULL CHECK (payment_gateway IN ('PAYSTACK', 'FLUTTERWAVE')),
+    payload         text         NOT NULL,
+    received_at     timestamptz  NOT NULL,
+    created_at      timestamptz  NOT NULL,
+    updated_at      timestamptz  NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_webhook_events_transaction_gateway ON webhook_events (transaction_id, payment_gateway);
+
+-- Creates the monthly partition of parent starting at month_start (UTC), if missing.
+-- Partitions are named <parent>_yYYYYmMM, which PartitionMaintenanceJob relies on.
+CREATE FUNCTION create_monthly_partition(parent text, month_start date) RETURNS void AS $$
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   parent || '_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM'),
+                   parent,
+                   month_start::timestamp AT TIME ZONE 'UTC',
+                   (month_start + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+END;
+$$ LANGUAGE plpgsql;
+
+-- Enough partitions to accept writes until the maintenance job first runs
+DO $$
+DECLARE
+    month_start date := date_trunc('month', now() AT TIME ZONE 'UTC')::date;
+BEGIN
+    FOR i IN 0..3 LOOP
+        PERFORM create_monthly_partition('transactions', (month_start + make_interval(months => i))::date);
+        PERFORM create_monthly_partition('webhook_events', (month_start + make_interval(months => i))::date);
+    END LOOP;
+END;
+$$;
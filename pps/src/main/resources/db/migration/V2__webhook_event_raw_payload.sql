@@ -0,0 +1,15 @@
+-- webhook_events.payload becomes the raw body as received, compressed by
+-- WebhookPayloadCodec. The first byte of each value names its format; existing
+-- rows are DTO toString() renderings and are kept as format 0 (legacy text).
+
+ALTER TABLE webhook_events
+    ALTER COLUMN payload TYPE bytea USING '\x00'::bytea || convert_to(payload, 'UTF8'),
+    ADD COLUMN payload_size integer,
+    ADD COLUMN event_type   varchar(64),
+    ADD COLUMN reference    varchar(255),
+    ADD COLUMN status       varchar(64);
+
+-- Payloads are already compressed; keep them out of line without a second pglz pass
+ALTER TABLE webhook_events ALTER COLUMN payload SET STORAGE EXTERNAL;
+
+CREATE INDEX idx_webhook_events_reference ON webhook_events (reference, payment_gateway);
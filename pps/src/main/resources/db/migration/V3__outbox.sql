@@ -0,0 +1,12 @@
+-- Transactional outbox: rows are written in the same transaction as the state change
+-- they announce and deleted by OutboxRelay once Kafka has acknowledged them, so the
+-- table only ever holds the unpublished backlog. Ids are UUIDv7, so id order is
+-- insertion order.
+
+CREATE TABLE outbox_events (
+    id          uuid         NOT NULL PRIMARY KEY,
+    topic       varchar(255) NOT NULL,
+    message_key varchar(255),
+    payload     bytea        NOT NULL,
+    created_at  timestamptz  NOT NULL
+);
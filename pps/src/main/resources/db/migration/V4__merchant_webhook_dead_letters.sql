@@ -0,0 +1,16 @@
+-- Merchant notifications that MerchantWebhookDispatcher gave up on: retries exhausted,
+-- rejected by the merchant, or dropped because the merchant's backlog was full.
+
+CREATE TABLE merchant_webhook_dead_letters (
+    id             uuid          NOT NULL PRIMARY KEY,
+    merchant_id    uuid          NOT NULL,
+    event_id       uuid,
+    transaction_id uuid,
+    url            varchar(2048) NOT NULL,
+    payload        bytea         NOT NULL,
+    attempts       integer       NOT NULL,
+    last_status    integer,
+    last_error     text,
+    created_at     timestamptz   NOT NULL
+);
+CREATE INDEX idx_merchant_webhook_dead_letters_merchant ON merchant_webhook_dead_letters (merchant_id, created_at);
@@ -0,0 +1,17 @@
+-- Durable timers fired by DurableTimers. An instance claims the timers due within its
+-- horizon by setting owner and lease_until, keeps them in its in-memory timing wheel
+-- while it renews the lease, and deletes the row when the timer fires. Rows whose lease
+-- has lapsed (the owner died) are claimed by another instance.
+
+CREATE TABLE scheduled_timers (
+    id          uuid         NOT NULL PRIMARY KEY,
+    kind        varchar(64)  NOT NULL,
+    timer_key   varchar(255) NOT NULL,
+    payload     text,
+    due_at      timestamptz  NOT NULL,
+    owner       varchar(64),
+    lease_until timestamptz,
+    created_at  timestamptz  NOT NULL,
+    CONSTRAINT uk_scheduled_timers_kind_key UNIQUE (kind, timer_key)
+);
+CREATE INDEX idx_scheduled_timers_due ON scheduled_timers (due_at);
@@ -0,0 +1,4 @@
+-- Keyset scan of PENDING transactions for ReconciliationSweeper; partial, so it only
+-- holds the (small) set of unsettled rows.
+
+CREATE INDEX idx_transactions_pending ON transactions (created_at, id) WHERE status = 'PENDING';
@@ -0,0 +1,3 @@
+-- Rate-limit tier of each merchant; selects its policies under pps.rate-limit.policies.
+
+ALTER TABLE merchants ADD COLUMN rate_limit_tier varchar(32) NOT NULL DEFAULT 'standard';
@@ -0,0 +1,7 @@
+-- Login credentials for merchants registered through /api/v1/auth/register.
+-- Merchants provisioned with only an API key have neither.
+
+ALTER TABLE merchants ADD COLUMN email varchar(255);
+ALTER TABLE merchants ADD COLUMN password_hash varchar(255);
+
+CREATE UNIQUE INDEX idx_merchants_email ON merchants (email);
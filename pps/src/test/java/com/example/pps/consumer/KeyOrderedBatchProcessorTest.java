@@ -0,0 +1,73 @@
+package com.example.pps.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeyOrderedBatchProcessorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final KeyOrderedBatchProcessor processor = new KeyOrderedBatchProcessor(8, executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void keepsOffsetOrderPerKeyWhileRunningKeysInParallel() {
+        List<ConsumerRecord<String, Integer>> records = new ArrayList<>();
+        for (int offset = 0; offset < 400; offset++) {
+            records.add(new ConsumerRecord<>("merchant-notifications", 0, offset, "merchant-" + (offset % 20), offset));
+        }
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        processor.process(records, record -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            seen.computeIfAbsent(record.key(), key -> new CopyOnWriteArrayList<>()).add(record.value());
+            inFlight.decrementAndGet();
+        });
+
+        assertThat(seen).hasSize(20);
+        seen.values().forEach(values -> assertThat(values).isSorted().hasSize(20));
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void holdsBackTheRestOfAFailedKeyAndRethrows() {
+        List<ConsumerRecord<String, Integer>> records = List.of(
+                new ConsumerRecord<>("t", 0, 0, "a", 1),
+                new ConsumerRecord<>("t", 0, 1, "b", 1),
+                new ConsumerRecord<>("t", 0, 2, "a", 2),
+                new ConsumerRecord<>("t", 0, 3, "b", 2));
+        List<String> handled = new CopyOnWriteArrayList<>();
+
+        assertThatThrownBy(() -> processor.process(records, record -> {
+            if (record.key().equals("a") && record.value() == 1) {
+                throw new IllegalStateException("merchant down");
+            }
+            handled.add(record.key() + record.value());
+        })).isInstanceOf(IllegalStateException.class).hasMessage("merchant down");
+
+        assertThat(handled).containsExactlyInAnyOrder("b1", "b2");
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.pps.delivery;
+
+import com.example.pps.entity.Merchant;
+import com.example.pps.entity.MerchantWebhookDeadLetter;
+import com.example.pps.entity.Transaction;
+import com.example.pps.event.PaymentEvent;
+import com.example.pps.repository.MerchantWebhookDeadLetterRepository;
+import com.example.pps.timer.HierarchicalTimingWheel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MerchantWebhookDispatcherTest {
+
+    private final MerchantWebhookDeadLetterRepository deadLetters = mock(MerchantWebhookDeadLetterRepository.class);
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+    private final Queue<HttpStatus> responses = new ConcurrentLinkedQueue<>();
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private final MerchantWebhookSigner signer = new MerchantWebhookSigner("test-key");
+    private final ExecutorService timerTasks = Executors.newFixedThreadPool(2);
+    private final HierarchicalTimingWheel timingWheel =
+            new HierarchicalTimingWheel("test-wheel", Duration.ofMillis(1), 8, 2, timerTasks);
+    private MerchantWebhookDispatcher dispatcher;
+
+    private static final int QUEUE_CAPACITY = 10;
+    private static final String STALLED_HOST = "stalled.example.com";
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+        timingWheel.close();
+        timerTasks.shutdownNow();
+    }
+
+    @Test
+    void retriesTransientFailuresAndDeliversInOrder() {
+        dispatcher = dispatcher(3);
+        responses.addAll(List.of(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK, HttpStatus.OK));
+        Merchant merchant = merchant();
+        PaymentEvent first = event(merchant);
+        PaymentEvent second = event(merchant);
+
+        dispatcher.enqueue(merchant, first);
+        dispatcher.enqueue(merchant, second);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> requests.size() == 3);
+        assertThat(requests).extracting(request -> request.headers().getFirst(MerchantWebhookDispatcher.EVENT_ID_HEADER))
+                .containsExactly(first.eventId().toString(), first.eventId().toString(), second.eventId().toString());
+        assertThat(requests.get(0).headers().getFirst(MerchantWebhookSigner.SIGNATURE_HEADER)).startsWith("t=").contains(",v1=");
+    }
+
+    @Test
+    void deadLettersClientErrorsWithoutRetrying() {
+        dispatcher = dispatcher(3);
+        responses.addAll(List.of(HttpStatus.BAD_REQUEST, HttpStatus.OK));
+        when(deadLetters.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        Merchant merchant = merchant();
+        PaymentEvent rejected = event(merchant);
+
+        dispatcher.enqueue(merchant, rejected);
+        dispatcher.enqueue(merchant, event(merchant));
+
+        verify(deadLetters, timeout(5000)).save(argThat((MerchantWebhookDeadLetter deadLetter) ->
+                deadLetter.getEventId().equals(rejected.eventId())
+                        && deadLetter.getAttempts() == 1
+                        && deadLetter.getLastStatus() == 400));
+        await().atMost(Duration.ofSeconds(5)).until(() -> requests.size() == 2);
+    }
+
+    @Test
+    void deadLettersQueuedAndRetryingDeliveriesOnShutdown() {
+        dispatcher = dispatcher(100);
+        for (int i = 0; i < 100; i++) {
+            responses.add(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        when(deadLetters.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        Merchant merchant = merchant();
+        PaymentEvent retrying = event(merchant);
+        PaymentEvent queued = event(merchant);
+
+        dispatcher.enqueue(merchant, retrying);
+        dispatcher.enqueue(merchant, queued);
+        await().atMost(Duration.ofSeconds(5)).until(() -> requests.size() >= 2);
+        dispatcher.destroy();
+        PaymentEvent late = event(merchant);
+        dispatcher.enqueue(merchant, late);
+
+        for (PaymentEvent event : List.of(retrying, queued, late)) {
+            verify(deadLetters).save(argThat((MerchantWebhookDeadLetter deadLetter) ->
+                    deadLetter.getEventId().equals(event.eventId())
+                            && deadLetter.getLastError().equals("Undelivered at shutdown")));
+        }
+        assertThat(requests).extracting(request -> request.headers().getFirst(MerchantWebhookDispatcher.EVENT_ID_HEADER))
+                .containsOnly(retrying.eventId().toString());
+    }
+
+    @Test
+    void fullQueueDeadLettersWithoutStallingOtherMerchantsOnTheLane() {
+        dispatcher = dispatcher(3);
+        when(deadLetters.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        Merchant stalled = merchant("https://" + STALLED_HOST + "/hooks");
+        Merchant healthy = merchant();
+        int overflow = 20;
+        // Warm up serialization and the client so the timing below measures only enqueue
+        dispatcher.enqueue(healthy, event(healthy));
+        await().atMost(Duration.ofSeconds(5)).until(() -> requests.size() == 1);
+        PaymentEvent delivered = event(healthy);
+
+        // One thread plays the consumer lane both merchants hash to
+        assertTimeout(Duration.ofSeconds(1), () -> {
+            for (int i = 0; i < QUEUE_CAPACITY + overflow; i++) {
+                dispatcher.enqueue(stalled, event(stalled));
+            }
+            dispatcher.enqueue(healthy, delivered);
+        });
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> requests.size() == 2);
+        assertThat(requests.get(1).headers().getFirst(MerchantWebhookDispatcher.EVENT_ID_HEADER))
+                .isEqualTo(delivered.eventId().toString());
+        verify(deadLetters, times(overflow)).save(argThat((MerchantWebhookDeadLetter deadLetter) ->
+                deadLetter.getMerchantId().equals(stalled.getId()) && deadLetter.getAttempts() == 0));
+    }
+
+    @Test
+    void merchantVerifiesDeliveredBodyWithItsSecret() throws Exception {
+        dispatcher = dispatcher(3);
+        Merchant merchant = merchant();
+        // What the merchant was given at registration
+        String secret = signer.secretFor(merchant.getId());
+
+        dispatcher.enqueue(merchant, event(merchant));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> bodies.size() == 1);
+        String header = requests.get(0).headers().getFirst(MerchantWebhookSigner.SIGNATURE_HEADER);
+        String timestamp = header.substring("t=".length(), header.indexOf(','));
+        String signature = header.substring(header.indexOf(",v1=") + ",v1=".length());
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.US_ASCII), "HmacSHA256"));
+        mac.update((timestamp + ".").getBytes(StandardCharsets.US_ASCII));
+        byte[] expected = mac.doFinal(bodies.get(0));
+
+        assertThat(MessageDigest.isEqual(expected, HexFormat.of().parseHex(signature))).isTrue();
+        assertThat(signer.secretFor(merchant().getId())).isNotEqualTo(secret);
+    }
+
+    private MerchantWebhookDispatcher dispatcher(int maxAttempts) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    if (request.url().getHost().equals(STALLED_HOST)) {
+                        return Mono.never();
+                    }
+                    requests.add(request);
+                    HttpStatus status = responses.poll();
+                    MockClientHttpRequest sent = new MockClientHttpRequest(request.method(), request.url());
+                    return request.body().insert(sent, new BodyInserterContext())
+                            .then(Mono.defer(sent::getBodyAsString))
+                            .doOnNext(body -> bodies.add(body.getBytes(StandardCharsets.UTF_8)))
+                            .thenReturn(ClientResponse.create(status == null ? HttpStatus.OK : status).build());
+                })
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new MerchantWebhookDispatcher(webClient, signer, deadLetters, objectMapper,
+                new SimpleMeterRegistry(), timingWheel, QUEUE_CAPACITY, 8, maxAttempts,
+                Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofSeconds(1));
+    }
+
+    private static Merchant merchant() {
+        return merchant("https://merchant.example.com/hooks");
+    }
+
+    private static Merchant merchant(String webhookUrl) {
+        Merchant merchant = new Merchant();
+        merchant.setId(UUID.randomUUID());
+        merchant.setWebhookUrl(webhookUrl);
+        return merchant;
+    }
+
+    private static final class BodyInserterContext implements BodyInserter.Context {
+        @Override
+        public List<HttpMessageWriter<?>> messageWriters() {
+            return ExchangeStrategies.withDefaults().messageWriters();
+        }
+
+        @Override
+        public Optional<ServerHttpRequest> serverRequest() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, Object> hints() {
+            return Map.of();
+        }
+    }
+
+    private static PaymentEvent event(Merchant merchant) {
+        Instant now = Instant.now();
+        return new PaymentEvent(UUID.randomUUID(), UUID.randomUUID(), now, merchant.getId(), "ref-" + UUID.randomUUID(),
+                "pg-1", Transaction.PaymentGateway.PAYSTACK, new BigDecimal("10.00"), Transaction.Currency.NGN,
+                Transaction.Status.PENDING, Transaction.Status.COMPLETED, now);
+    }
+}
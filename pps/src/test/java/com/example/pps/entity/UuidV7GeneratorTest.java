@@ -0,0 +1,59 @@
+package com.example.pps.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void layoutFollowsRfc9562() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.generate();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void idsAreStrictlyIncreasingAndUniqueAcrossThreads() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    long[] timestampsAndCounters = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        timestampsAndCounters[i] = UuidV7Generator.generate().getMostSignificantBits();
+                    }
+                    return timestampsAndCounters;
+                }));
+            }
+
+            Set<Long> seen = new HashSet<>();
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    if (i > 0) {
+                        assertThat(Long.compareUnsigned(ids[i], ids[i - 1])).isPositive();
+                    }
+                    assertThat(seen.add(ids[i])).isTrue();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
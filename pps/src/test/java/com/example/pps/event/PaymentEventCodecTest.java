@@ -0,0 +1,118 @@
+package com.example.pps.event;
+
+import com.example.pps.entity.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentEventCodecTest {
+
+    static final PaymentEvent EVENT = new PaymentEvent(
+            UUID.fromString("01928c5e-7a3b-7c1d-9e2f-3a4b5c6d7e8f"),
+            UUID.fromString("01928c5e-6f00-7000-8000-0123456789ab"),
+            Instant.parse("2026-10-17T09:12:31.123456Z"),
+            UUID.fromString("01928000-0000-7000-8000-00000000beef"),
+            "ord_01J9Z6N4T2",
+            "4099260516",
+            Transaction.PaymentGateway.PAYSTACK,
+            new BigDecimal("2500.00"),
+            Transaction.Currency.NGN,
+            Transaction.Status.PENDING,
+            Transaction.Status.COMPLETED,
+            Instant.parse("2026-10-17T09:12:44.654321Z"));
+
+    @Test
+    void roundTrips() {
+        byte[] bytes = PaymentEventCodec.encode(EVENT);
+
+        assertThat(bytes[0]).isEqualTo(PaymentEventCodec.VERSION);
+        assertThat(PaymentEventCodec.decode(bytes)).isEqualTo(EVENT);
+        assertThat(bytes.length).isLessThan(120);
+    }
+
+    @Test
+    void leavesAbsentFieldsNull() {
+        PaymentEvent sparse = new PaymentEvent(EVENT.eventId(), EVENT.transactionId(), EVENT.transactionCreatedAt(),
+                EVENT.merchantId(), EVENT.merchantRef(), null, EVENT.paymentGateway(), EVENT.amount(), EVENT.currency(),
+                null, EVENT.status(), EVENT.occurredAt());
+
+        assertThat(PaymentEventCodec.decode(PaymentEventCodec.encode(sparse))).isEqualTo(sparse);
+    }
+
+    @Test
+    void readsEventsFromNewerWritersBySkippingUnknownFieldsAndCodes() {
+        ByteArrayOutputStream newer = new ByteArrayOutputStream();
+        newer.writeBytes(PaymentEventCodec.encode(EVENT));
+        // field 14, varint
+        newer.write(14 << 3);
+        newer.write(0x96);
+        newer.write(0x01);
+        // field 15, length-delimited
+        byte[] note = "added in a later version".getBytes(StandardCharsets.UTF_8);
+        newer.write((15 << 3) | 2);
+        newer.write(note.length);
+        newer.writeBytes(note);
+        // previousStatus (field 11) with a status code this reader does not know
+        newer.write(11 << 3);
+        newer.write(99);
+
+        PaymentEvent decoded = PaymentEventCodec.decode(newer.toByteArray());
+
+        assertThat(decoded.transactionId()).isEqualTo(EVENT.transactionId());
+        assertThat(decoded.status()).isEqualTo(EVENT.status());
+        assertThat(decoded.amount()).isEqualByComparingTo(EVENT.amount());
+        assertThat(decoded.previousStatus()).isNull();
+    }
+
+    @Test
+    void readsEventsFromOlderWritersThatLackLaterFields() {
+        // An older writer that only knew transactionId (2) and status (12)
+        ByteArrayOutputStream older = new ByteArrayOutputStream();
+        older.write(PaymentEventCodec.VERSION);
+        older.write((2 << 3) | 2);
+        older.write(16);
+        byte[] full = PaymentEventCodec.encode(EVENT);
+        int transactionIdAt = indexOf(full, new byte[]{(2 << 3) | 2, 16}) + 2;
+        older.write(full, transactionIdAt, 16);
+        older.write(12 << 3);
+        older.write(3);
+
+        PaymentEvent decoded = PaymentEventCodec.decode(older.toByteArray());
+
+        assertThat(decoded.transactionId()).isEqualTo(EVENT.transactionId());
+        assertThat(decoded.status()).isEqualTo(Transaction.Status.COMPLETED);
+        assertThat(decoded.amount()).isNull();
+        assertThat(decoded.merchantRef()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndTruncatedEvents() {
+        byte[] bytes = PaymentEventCodec.encode(EVENT);
+        byte[] otherVersion = bytes.clone();
+        otherVersion[0] = 2;
+
+        assertThatThrownBy(() -> PaymentEventCodec.decode(otherVersion)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PaymentEventCodec.decode(Arrays.copyOf(bytes, 30))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("not found");
+    }
+}
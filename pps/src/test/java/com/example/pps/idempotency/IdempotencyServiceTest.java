@@ -0,0 +1,112 @@
+package com.example.pps.idempotency;
+
+import com.example.pps.dto.InitiatePaymentResponse;
+import com.example.pps.exception.IdempotencyKeyMismatchException;
+import com.example.pps.exception.IdempotentRequestInProgressException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyStore store = mock(IdempotencyStore.class);
+    private final IdempotencyService service = new IdempotencyService(store);
+    private final IdempotencyKey key = new IdempotencyKey(UUID.randomUUID(), "order-1");
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<InitiatePaymentResponse> gatewayCall = new CompletableFuture<>();
+
+        CompletableFuture<InitiatePaymentResponse> first = service.execute(key, "fp", () -> {
+            executions.incrementAndGet();
+            return gatewayCall;
+        });
+        CompletableFuture<InitiatePaymentResponse> duplicate = service.execute(key, "fp", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(response());
+        });
+
+        InitiatePaymentResponse response = response();
+        gatewayCall.complete(response);
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.join()).isSameAs(response);
+        assertThat(duplicate.join()).isSameAs(response);
+        verify(store).complete(eq(key), eq(IdempotencyRecord.completed("fp", response)));
+    }
+
+    @Test
+    void duplicateWithDifferentBodyIsRejectedWhileInFlight() {
+        service.execute(key, "fp", CompletableFuture::new);
+
+        assertThatThrownBy(() -> service.execute(key, "other-fp", () -> CompletableFuture.completedFuture(response())))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    @Test
+    void completedResponseIsReplayedFromTheStore() {
+        InitiatePaymentResponse stored = response();
+        when(store.find(key)).thenReturn(Optional.of(IdempotencyRecord.completed("fp", stored)));
+
+        InitiatePaymentResponse replayed = service.execute(key, "fp", () -> {
+            throw new AssertionError("must not execute");
+        }).join();
+
+        assertThat(replayed).isSameAs(stored);
+        verify(store, never()).claim(any(), any());
+    }
+
+    @Test
+    void claimHeldByAnotherInstanceIsReportedAsInProgress() {
+        when(store.find(key)).thenReturn(Optional.empty());
+        when(store.claim(key, "fp")).thenReturn(Optional.of(IdempotencyRecord.inProgress("fp")));
+
+        assertThatThrownBy(() -> service.execute(key, "fp", CompletableFuture::new).join())
+                .hasCauseInstanceOf(IdempotentRequestInProgressException.class);
+        verify(store, never()).release(any());
+    }
+
+    @Test
+    void failedExecutionReleasesTheClaim() {
+        CompletableFuture<InitiatePaymentResponse> result = service.execute(key, "fp",
+                () -> CompletableFuture.failedFuture(new RuntimeException("gateway down")));
+
+        assertThatThrownBy(result::join).hasRootCauseMessage("gateway down");
+        verify(store).release(key);
+    }
+
+    @Test
+    void claimIsSettledOnlyOnce() {
+        IdempotencyService.Claim claim = service.claim(key, "fp");
+        CompletableFuture<InitiatePaymentResponse> duplicate = service.execute(key, "fp", () -> {
+            throw new AssertionError("must not execute");
+        });
+        InitiatePaymentResponse response = response();
+
+        assertThat(claim.owned()).isTrue();
+        service.complete(claim, response);
+        service.fail(claim, new RuntimeException("too late"));
+
+        assertThat(duplicate.join()).isSameAs(response);
+        assertThat(claim.result().join()).isSameAs(response);
+        verify(store, never()).release(any());
+    }
+
+    private InitiatePaymentResponse response() {
+        return new InitiatePaymentResponse(UUID.randomUUID(), "PENDING", "https://checkout.example/1", BigDecimal.TEN);
+    }
+}
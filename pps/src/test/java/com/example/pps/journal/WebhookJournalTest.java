@@ -0,0 +1,175 @@
+package com.example.pps.journal;
+
+import com.example.pps.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversUndrainedEntriesInOrderAfterRestart() throws IOException {
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(Transaction.PaymentGateway.PAYSTACK, body(i), "sig-" + i).join();
+            }
+        }
+
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            assertThat(journal.hasPending()).isTrue();
+            List<JournalEntry> replayed = drainAll(journal);
+
+            assertThat(replayed).hasSize(100);
+            for (int i = 0; i < 100; i++) {
+                assertThat(new String(replayed.get(i).body(), StandardCharsets.UTF_8)).isEqualTo("{\"n\":" + i + "}");
+                assertThat(replayed.get(i).signature()).isEqualTo("sig-" + i);
+                assertThat(replayed.get(i).gateway()).isEqualTo(Transaction.PaymentGateway.PAYSTACK);
+            }
+            assertThat(journal.hasPending()).isFalse();
+        }
+    }
+
+    @Test
+    void discardsTornRecordLeftByCrashAndKeepsAppending() throws IOException {
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(Transaction.PaymentGateway.FLUTTERWAVE, body(i), null).join();
+            }
+        }
+
+        // A record whose length made it to disk but whose payload did not
+        Path segment = segments().get(0);
+        int end = endOfRecords(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(WebhookJournal.HEADER_SIZE + 16).putInt(16).putInt(0xDEADBEEF).flip(), end);
+        }
+
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            journal.append(Transaction.PaymentGateway.FLUTTERWAVE, body(3), null).join();
+
+            List<JournalEntry> replayed = drainAll(journal);
+            assertThat(replayed).extracting(entry -> new String(entry.body(), StandardCharsets.UTF_8))
+                    .containsExactly("{\"n\":0}", "{\"n\":1}", "{\"n\":2}", "{\"n\":3}");
+        }
+    }
+
+    @Test
+    void drainedEntriesAreNotReplayedAndSealedSegmentsAreDeleted() throws IOException {
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 500; i++) {
+                journal.append(Transaction.PaymentGateway.PAYSTACK, body(i), "sig").join();
+            }
+            assertThat(segments().size()).isGreaterThan(1);
+
+            assertThat(drainAll(journal)).hasSize(500);
+            assertThat(segments()).hasSize(1);
+        }
+
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            assertThat(journal.hasPending()).isFalse();
+            assertThat(drainAll(journal)).isEmpty();
+        }
+    }
+
+    @Test
+    void failedReplayStopsDrainAndResumesAtTheSameEntry() throws IOException {
+        try (WebhookJournal journal = new WebhookJournal(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(Transaction.PaymentGateway.PAYSTACK, body(i), null).join();
+            }
+
+            List<String> delivered = new ArrayList<>();
+            assertThatThrownBy(() -> journal.drain(entry -> {
+                String json = new String(entry.body(), StandardCharsets.UTF_8);
+                if (json.equals("{\"n\":2}")) {
+                    throw new IllegalStateException("broker down");
+                }
+                delivered.add(json);
+            })).isInstanceOf(IllegalStateException.class);
+            assertThat(delivered).containsExactly("{\"n\":0}", "{\"n\":1}");
+
+            assertThat(drainAll(journal)).extracting(entry -> new String(entry.body(), StandardCharsets.UTF_8))
+                    .containsExactly("{\"n\":2}", "{\"n\":3}", "{\"n\":4}");
+        }
+    }
+
+    @Test
+    void concurrentAppendsShareForcesAndSurviveReopen() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        byte[] payload = new byte[1024];
+
+        try (WebhookJournal journal = new WebhookJournal(directory, 16 * 1024 * 1024)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<CompletableFuture<Void>> appends = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    List<CompletableFuture<Void>> mine = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        mine.add(journal.append(Transaction.PaymentGateway.PAYSTACK, payload, "sig"));
+                    }
+                    synchronized (appends) {
+                        appends.addAll(mine);
+                    }
+                });
+            }
+            executor.shutdown();
+            assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+
+            // Appends that arrive while a force runs share the next one
+            assertThat(journal.groupSyncs()).isLessThan(threads * perThread);
+        }
+
+        try (WebhookJournal journal = new WebhookJournal(directory, 16 * 1024 * 1024)) {
+            assertThat(drainAll(journal)).hasSize(threads * perThread);
+        }
+    }
+
+    private static byte[] body(int n) {
+        return ("{\"n\":" + n + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<JournalEntry> drainAll(WebhookJournal journal) {
+        List<JournalEntry> entries = new ArrayList<>();
+        journal.drain(entries::add);
+        return entries;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static int endOfRecords(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int offset = 0;
+        while (buffer.getInt(offset) > 0) {
+            offset += WebhookJournal.HEADER_SIZE + buffer.getInt(offset);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.pps.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HybridRateLimiterTest {
+
+    private static final String KEY = "apiKey:test";
+
+    @Test
+    void leasingAdmitsAsManyRequestsAsStrictModeWithoutExceedingTheLimit() {
+        // 100 per minute, offered 1200 per minute across 4 instances for 10 minutes
+        Result strict = simulate(100, Duration.ofMinutes(1), 1, 4, Duration.ofMillis(50), Duration.ofMinutes(10));
+        Result hybrid = simulate(100, Duration.ofMinutes(1), 10, 4, Duration.ofMillis(50), Duration.ofMinutes(10));
+
+        long limit = 100 + 100 * 10;
+        assertThat(strict.allowed()).isBetween(limit - 2, limit);
+        assertThat(hybrid.allowed()).isLessThanOrEqualTo(limit);
+        assertThat(hybrid.allowed()).isGreaterThanOrEqualTo((long) (strict.allowed() * 0.95));
+    }
+
+    @Test
+    void leasingCutsStoreRoundTripsPerThousandRequests() {
+        // 100 per second, offered 80 per second across 4 instances: under the limit, so every request is allowed
+        Result strict = simulate(6000, Duration.ofMinutes(1), 1, 4, Duration.ofMillis(12), Duration.ofMinutes(1));
+        Result hybrid = simulate(6000, Duration.ofMinutes(1), 10, 4, Duration.ofMillis(12), Duration.ofMinutes(1));
+
+        assertThat(strict.allowed()).isEqualTo(strict.requests());
+        assertThat(hybrid.allowed()).isEqualTo(hybrid.requests());
+        assertThat(strict.storeCallsPerThousand()).isEqualTo(1000);
+        assertThat(hybrid.storeCallsPerThousand()).isLessThan(150);
+    }
+
+    @Test
+    void fallsBackToAShareOfTheLimitWhileTheStoreIsDown() {
+        AtomicLong now = new AtomicLong();
+        TokenStore down = (key, policy, wanted, returned) -> {
+            throw new IllegalStateException("connection refused");
+        };
+        HybridRateLimiter limiter = limiter(down, 10, 4, now::get);
+        RateLimitPolicy policy = policy(100, Duration.ofMinutes(1), 100);
+
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire(KEY, policy) == 0) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(25);
+    }
+
+    @Test
+    void admitsTheBurstThenOneRequestPerEmissionInterval() {
+        AtomicLong now = new AtomicLong();
+        InMemoryTokenStore store = new InMemoryTokenStore(now::get);
+        HybridRateLimiter limiter = limiter(store, 5, 4, now::get);
+        RateLimitPolicy initiate = new RateLimitPolicy("initiate.standard", 60, Duration.ofMinutes(1), 10);
+        RateLimitPolicy read = new RateLimitPolicy("read.standard", 60, Duration.ofMinutes(1), 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(KEY, initiate)).isZero();
+        }
+        long retryAfter = limiter.tryAcquire(KEY, initiate);
+        // Each policy keeps its own state for the key
+        long otherPolicy = limiter.tryAcquire(KEY, read);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        long afterOneInterval = limiter.tryAcquire(KEY, initiate);
+        long tooSoon = limiter.tryAcquire(KEY, initiate);
+
+        assertThat(retryAfter).isEqualTo(1000);
+        assertThat(otherPolicy).isZero();
+        assertThat(afterOneInterval).isZero();
+        assertThat(tooSoon).isEqualTo(1000);
+    }
+
+    @Test
+    void concurrentSpendingNeverExceedsWhatWasLeased() throws Exception {
+        InMemoryTokenStore store = new InMemoryTokenStore(System::nanoTime);
+        HybridRateLimiter limiter = limiter(store, 50, 4, System::nanoTime);
+        RateLimitPolicy policy = policy(1000, Duration.ofHours(1), 1000);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(threads.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (limiter.tryAcquire(KEY, policy) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(allowed).isBetween(1000, 1002);
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private static Result simulate(long limit, Duration period, long leaseSize, int instances,
+                                   Duration requestInterval, Duration duration) {
+        AtomicLong now = new AtomicLong();
+        InMemoryTokenStore store = new InMemoryTokenStore(now::get);
+        RateLimitPolicy policy = policy(limit, period, limit);
+        List<HybridRateLimiter> fleet = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+            fleet.add(limiter(store, leaseSize, 4, now::get));
+        }
+
+        long requests = 0;
+        long allowed = 0;
+        long nextHousekeeping = TimeUnit.SECONDS.toNanos(1);
+        for (long t = 0; t < duration.toNanos(); t += requestInterval.toNanos()) {
+            now.set(t);
+            if (t >= nextHousekeeping) {
+                fleet.forEach(HybridRateLimiter::returnExpiredLeases);
+                nextHousekeeping += TimeUnit.SECONDS.toNanos(1);
+            }
+            if (fleet.get((int) (requests % instances)).tryAcquire(KEY, policy) == 0) {
+                allowed++;
+            }
+            requests++;
+        }
+        return new Result(requests, allowed, store.calls);
+    }
+
+    private static RateLimitPolicy policy(long limit, Duration period, long burst) {
+        return new RateLimitPolicy("test", limit, period, burst);
+    }
+
+    private static HybridRateLimiter limiter(TokenStore store, long leaseSize, int fallbackInstances, LongSupplier clock) {
+        return new HybridRateLimiter(store, leaseSize, Duration.ofSeconds(1),
+                fallbackInstances, Duration.ofSeconds(5), new SimpleMeterRegistry(), clock);
+    }
+
+    private record Result(long requests, long allowed, long storeCalls) {
+        long storeCallsPerThousand() {
+            return storeCalls * 1000 / requests;
+        }
+    }
+
+    /**
+     * The Lua GCRA of {@link RedisTokenStore}, in memory and on a supplied clock.
+     */
+    private static final class InMemoryTokenStore implements TokenStore {
+        private final LongSupplier nanoClock;
+        private final Map<String, Long> tats = new HashMap<>();
+        private long calls;
+
+        InMemoryTokenStore(LongSupplier nanoClock) {
+            this.nanoClock = nanoClock;
+        }
+
+        @Override
+        public synchronized Lease lease(String key, RateLimitPolicy policy, long wanted, long returned) {
+            calls++;
+            long interval = policy.emissionIntervalMicros();
+            long tolerance = policy.burstToleranceMicros();
+            long now = TimeUnit.NANOSECONDS.toMicros(nanoClock.getAsLong());
+            String stateKey = policy.name() + ":" + key;
+            long tat = Math.max(tats.getOrDefault(stateKey, now) - returned * interval, now);
+            long granted = Math.max(0, Math.min(wanted, Math.floorDiv(now + tolerance - tat, interval) + 1));
+            tat += granted * interval;
+            tats.put(stateKey, tat);
+            long retryAfter = granted == 0 && wanted > 0 ? ceilDiv(tat - tolerance - now, 1000) : 0;
+            return new Lease(granted, retryAfter);
+        }
+
+        private static long ceilDiv(long x, long y) {
+            return -Math.floorDiv(-x, y);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.pps.reconciliation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CallBudgetTest {
+
+    @Test
+    void spacesCallsAtTheConfiguredRate() {
+        CallBudget budget = new CallBudget(100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 51; i++) {
+            budget.acquire();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 50 intervals of 10ms after the first, free, call
+        assertThat(elapsedMillis).isBetween(490L, 1500L);
+    }
+
+    @Test
+    void doesNotBankUnusedBudget() throws InterruptedException {
+        CallBudget budget = new CallBudget(10);
+        budget.acquire();
+        Thread.sleep(300);
+
+        long afterIdle = budget.acquire();
+        long next = budget.acquire();
+
+        assertThat(afterIdle).isZero();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(next)).isBetween(50L, 100L);
+    }
+
+    @Test
+    void rejectsNonPositiveRates() {
+        assertThatThrownBy(() -> new CallBudget(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
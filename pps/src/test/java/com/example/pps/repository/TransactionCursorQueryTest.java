@@ -0,0 +1,85 @@
+package com.example.pps.repository;
+
+import com.example.pps.entity.Transaction;
+import com.example.pps.security.MerchantCacheInvalidator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The cursor predicate must bound the (merchant_id, created_at, id) index scan at the
+ * cursor, or deep pages cost as much as scanning every newer row.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pps-cursor;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // V1 uses Postgres partitioning; H2 gets its schema from the entities instead
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.pps.repository.TransactionCursorQueryTest$LastStatement"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TransactionCursorQueryTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoBean
+    private MerchantCacheInvalidator merchantCacheInvalidator;
+
+    @Test
+    void cursorPageIsAnIndexRangeScanStartingAtTheCursor() throws Exception {
+        UUID merchantId = UUID.randomUUID();
+        Instant cursorCreatedAt = Instant.parse("2026-01-01T00:00:00Z");
+        UUID cursorId = UUID.randomUUID();
+
+        transactionRepository.findBy(
+                TransactionSpecifications.forMerchant(merchantId)
+                        .and(TransactionSpecifications.before(cursorCreatedAt, cursorId)),
+                q -> q.sortBy(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"))).limit(51).all());
+        String sql = LastStatement.sql;
+
+        String plan;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql);
+             ResultSet rows = explain.executeQuery()) {
+            rows.next();
+            plan = rows.getString(1);
+        }
+        // H2 prints the index and the conditions bounding its range scan as /* index: conditions */
+        String indexScan = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+
+        assertThat(sql).contains("created_at<=?");
+        assertThat(indexScan)
+                .contains("IDX_TRANSACTIONS_MERCHANT_CREATED")
+                .contains("MERCHANT_ID = ?1")
+                .contains("CREATED_AT <= ?2");
+    }
+
+    public static class LastStatement implements StatementInspector {
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+}
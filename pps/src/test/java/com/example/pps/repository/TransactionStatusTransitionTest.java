@@ -0,0 +1,108 @@
+package com.example.pps.repository;
+
+import com.example.pps.entity.Merchant;
+import com.example.pps.entity.Transaction;
+import com.example.pps.security.ApiKeyHasher;
+import com.example.pps.security.MerchantCacheInvalidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The transaction state machine is enforced by {@link TransactionRepository#transitionStatus}
+ * alone: concurrent settlements must apply exactly once and a settled transaction must
+ * never be reopened.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pps-transitions;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // V1 uses Postgres partitioning; H2 gets its schema from the entities instead
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionStatusTransitionTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @MockitoBean
+    private MerchantCacheInvalidator merchantCacheInvalidator;
+
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        Merchant merchant = new Merchant();
+        merchant.setName("Transition Test Merchant");
+        merchant.setApiKeyHash(ApiKeyHasher.hash("key-" + UUID.randomUUID()));
+        merchant = merchantRepository.save(merchant);
+
+        Transaction newTransaction = new Transaction();
+        newTransaction.setMerchantId(merchant.getId());
+        newTransaction.setMerchantRef("ref-" + UUID.randomUUID());
+        newTransaction.setIdempotencyKey(UUID.randomUUID().toString());
+        newTransaction.setAmount(new BigDecimal("2500.00"));
+        newTransaction.setCurrency(Transaction.Currency.NGN);
+        newTransaction.setCustomerEmail("ada@example.com");
+        newTransaction.setPaymentMethod(Transaction.PaymentMethod.CARD);
+        newTransaction.setPaymentGateway(Transaction.PaymentGateway.PAYSTACK);
+        newTransaction.setStatus(Transaction.Status.PENDING);
+        transaction = transactionRepository.save(newTransaction);
+    }
+
+    @Test
+    void settledTransactionCannotBeReopenedOrResettled() {
+        assertThat(transition(Transaction.Status.COMPLETED)).isEqualTo(1);
+
+        assertThat(transition(Transaction.Status.PENDING)).isZero();
+        assertThat(transition(Transaction.Status.FAILED)).isZero();
+        assertThat(transactionRepository.findStatusRefByMerchantRef(transaction.getMerchantRef()))
+                .hasValueSatisfying(ref -> assertThat(ref.getStatus()).isEqualTo(Transaction.Status.COMPLETED));
+    }
+
+    @Test
+    void concurrentSettlementsApplyExactlyOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                Transaction.Status target = i % 2 == 0 ? Transaction.Status.COMPLETED : Transaction.Status.FAILED;
+                results.add(pool.submit((Callable<Integer>) () -> transition(target)));
+            }
+            int applied = 0;
+            for (Future<Integer> result : results) {
+                applied += result.get();
+            }
+            assertThat(applied).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int transition(Transaction.Status target) {
+        return transactionRepository.transitionStatus(transaction.getId(), transaction.getCreatedAt(),
+                target.predecessors(), target, Instant.now());
+    }
+}
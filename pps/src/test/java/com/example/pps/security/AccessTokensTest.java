@@ -0,0 +1,88 @@
+package com.example.pps.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessTokensTest {
+
+    private static final String OLD_KEY = "old-access-token-signing-key-0123456789";
+    private static final String NEW_KEY = "new-access-token-signing-key-0123456789";
+    private static final UUID MERCHANT = UUID.fromString("0190f5a2-7c1e-7d3a-9b41-5f2e8c6a1d07");
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void verifiesItsOwnTokensUntilTheyExpire() {
+        AccessTokens tokens = tokens(Map.of("k1", OLD_KEY), "k1");
+        String token = tokens.issue(MERCHANT);
+
+        assertThat(tokens.verify(token)).contains(MERCHANT);
+        // Second check is served from the verified cache
+        assertThat(tokens.verify(token)).contains(MERCHANT);
+
+        clock.advance(Duration.ofMinutes(15));
+        assertThat(tokens.verify(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsTamperedAndMalformedTokens() {
+        AccessTokens tokens = tokens(Map.of("k1", OLD_KEY), "k1");
+        String token = tokens.issue(MERCHANT);
+        String[] parts = token.split("\\.");
+        String otherPayload = tokens.issue(UUID.randomUUID()).split("\\.")[1];
+
+        assertThat(tokens.verify(parts[0] + "." + otherPayload + "." + parts[2])).isEmpty();
+        assertThat(tokens.verify(token.substring(0, token.length() - 2) + "AA")).isEmpty();
+        assertThat(tokens.verify("k2." + parts[1] + "." + parts[2])).isEmpty();
+        assertThat(tokens.verify("not-a-token")).isEmpty();
+        assertThat(tokens.verify("k1.!!!.???")).isEmpty();
+    }
+
+    @Test
+    void keepsVerifyingTokensFromARotatedOutKeyWhileItIsConfigured() {
+        String oldToken = tokens(Map.of("k1", OLD_KEY), "k1").issue(MERCHANT);
+
+        AccessTokens rotated = tokens(Map.of("k1", OLD_KEY, "k2", NEW_KEY), "k2");
+        AccessTokens retired = tokens(Map.of("k2", NEW_KEY), "k2");
+
+        assertThat(rotated.issue(MERCHANT)).startsWith("k2.");
+        assertThat(rotated.verify(oldToken)).contains(MERCHANT);
+        assertThat(retired.verify(oldToken)).isEmpty();
+        assertThat(retired.verify(rotated.issue(MERCHANT))).contains(MERCHANT);
+    }
+
+    private AccessTokens tokens(Map<String, String> keys, String activeKeyId) {
+        return new AccessTokens(keys, activeKeyId, Duration.ofMinutes(15), 100, clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.pps.security;
+
+import com.example.pps.entity.Merchant;
+import com.example.pps.repository.MerchantRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MerchantApiKeyCacheTest {
+
+    private final MerchantRepository merchantRepository = mock(MerchantRepository.class);
+    private final MerchantApiKeyCache cache = new MerchantApiKeyCache(merchantRepository, Duration.ofMinutes(5), Duration.ofSeconds(30), 100);
+
+    @Test
+    void loadInFlightDuringInvalidationIsNotCached() throws Exception {
+        String apiKey = "pps_rotated";
+        String apiKeyHash = ApiKeyHasher.hash(apiKey);
+        Merchant merchant = new Merchant();
+        merchant.setId(UUID.randomUUID());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The first lookup reads the merchant before its key is rotated away; later ones see the rotation
+        when(merchantRepository.findByApiKeyHash(apiKeyHash)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(merchant);
+        }).thenReturn(Optional.empty());
+
+        CompletableFuture<Optional<Merchant>> stale = CompletableFuture.supplyAsync(() -> cache.resolve(apiKey));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidate(merchant.getId(), null);
+        release.countDown();
+
+        assertThat(stale.get(5, TimeUnit.SECONDS)).contains(merchant);
+        await().atMost(Duration.ofSeconds(5)).until(() -> cache.resolve(apiKey).isEmpty());
+        verify(merchantRepository, times(2)).findByApiKeyHash(apiKeyHash);
+    }
+}
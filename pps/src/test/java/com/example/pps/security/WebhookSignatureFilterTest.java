@@ -0,0 +1,110 @@
+package com.example.pps.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookSignatureFilterTest {
+
+    private static final String PAYSTACK_SECRET = "sk_test_secret";
+    private static final String FLUTTERWAVE_HASH = "flw-hash";
+
+    private final WebhookSignatureFilter filter = new WebhookSignatureFilter(Map.of(
+            "paystack", WebhookSignatureScheme.hmacHex("x-paystack-signature", "HmacSHA512", PAYSTACK_SECRET),
+            "flutterwave", WebhookSignatureScheme.sharedSecret("verif-hash", FLUTTERWAVE_HASH)),
+            64 * 1024);
+
+    @Test
+    void acceptsValidPaystackSignatureAndPassesTheBodyDownstream() throws Exception {
+        byte[] body = "{\"event\":\"charge.success\",\"data\":{\"reference\":\"ref-1\"}}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = webhook("paystack", body);
+        request.addHeader("x-paystack-signature", hmacSha512Hex(body));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(chain.getRequest().getInputStream().readAllBytes()).isEqualTo(body);
+    }
+
+    @Test
+    void verifiesBodiesLargerThanTheInitialBufferWhenLengthIsUnknown() throws Exception {
+        byte[] body = "x".repeat(40_000).getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/webhooks/paystack") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContent(body);
+        request.addHeader("x-paystack-signature", hmacSha512Hex(body));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest().getInputStream().readAllBytes()).isEqualTo(body);
+    }
+
+    @Test
+    void rejectsTamperedPaystackBody() throws Exception {
+        MockHttpServletRequest request = webhook("paystack", "{\"amount\":100}".getBytes(StandardCharsets.UTF_8));
+        request.addHeader("x-paystack-signature", hmacSha512Hex("{\"amount\":1}".getBytes(StandardCharsets.UTF_8)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void checksFlutterwaveVerifHash() throws Exception {
+        byte[] body = "{\"status\":\"successful\"}".getBytes(StandardCharsets.UTF_8);
+
+        MockHttpServletRequest valid = webhook("flutterwave", body);
+        valid.addHeader("verif-hash", FLUTTERWAVE_HASH);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(valid, new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isNotNull();
+
+        MockHttpServletRequest invalid = webhook("flutterwave", body);
+        invalid.addHeader("verif-hash", "wrong");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(invalid, response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void rejectsOversizedBody() throws Exception {
+        byte[] body = new byte[64 * 1024 + 1];
+        MockHttpServletRequest request = webhook("paystack", body);
+        request.addHeader("x-paystack-signature", hmacSha512Hex(body));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(413);
+    }
+
+    private static MockHttpServletRequest webhook(String gateway, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/webhooks/" + gateway);
+        request.setContent(body);
+        return request;
+    }
+
+    private static String hmacSha512Hex(byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(PAYSTACK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
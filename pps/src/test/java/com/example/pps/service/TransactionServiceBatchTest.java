@@ -0,0 +1,258 @@
+package com.example.pps.service;
+
+import com.example.pps.dto.BatchPaymentItem;
+import com.example.pps.dto.BatchPaymentResult;
+import com.example.pps.dto.InitiatePaymentResponse;
+import com.example.pps.entity.Merchant;
+import com.example.pps.entity.Transaction;
+import com.example.pps.gateway.GatewayFactory;
+import com.example.pps.gateway.GatewayProvider;
+import com.example.pps.gateway.GatewayRoute;
+import com.example.pps.idempotency.IdempotencyKey;
+import com.example.pps.idempotency.IdempotencyService;
+import com.example.pps.idempotency.IdempotencyStore;
+import com.example.pps.repository.MerchantRepository;
+import com.example.pps.repository.TransactionRepository;
+import com.example.pps.security.ApiKeyHasher;
+import com.example.pps.security.MerchantCacheInvalidator;
+import com.example.pps.timer.DurableTimers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch initiation: results stream per item, items share idempotency with single
+ * initiations, a concurrently claimed key falls back to per-item initiation, and
+ * cancelling the stream fails the items not yet sent.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pps-batch;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // V1 uses Postgres partitioning; H2 gets its schema from the entities instead
+        "spring.flyway.enabled=false",
+        "pps.batch.gateway-concurrency=" + TransactionServiceBatchTest.GATEWAY_CONCURRENCY
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({TransactionService.class, IdempotencyService.class, TransactionServiceBatchTest.CompletionExecutorConfig.class})
+class TransactionServiceBatchTest {
+
+    static final int GATEWAY_CONCURRENCY = 2;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @MockitoSpyBean
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @MockitoBean
+    private GatewayFactory gatewayFactory;
+
+    @MockitoBean
+    private IdempotencyStore idempotencyStore;
+
+    @MockitoBean
+    private MerchantCacheInvalidator merchantCacheInvalidator;
+
+    @MockitoBean
+    private DurableTimers durableTimers;
+
+    private final GatewayProvider gateway = mock(GatewayProvider.class);
+
+    @TestConfiguration
+    static class CompletionExecutorConfig {
+        @Bean
+        ThreadPoolTaskExecutor gatewayCompletionExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(2);
+            executor.setThreadNamePrefix("gateway-completion-");
+            executor.initialize();
+            return executor;
+        }
+    }
+
+    private Merchant merchant;
+
+    @BeforeEach
+    void setUp() {
+        Merchant newMerchant = new Merchant();
+        newMerchant.setName("Batch Merchant");
+        newMerchant.setApiKeyHash(ApiKeyHasher.hash("key-" + UUID.randomUUID()));
+        merchant = merchantRepository.save(newMerchant);
+        when(gatewayFactory.route(any(), anyBoolean()))
+                .thenAnswer(invocation -> new GatewayRoute(invocation.getArgument(0), gateway));
+    }
+
+    @Test
+    void streamsEachResultAsItsGatewayCallCompletes() {
+        BatchPaymentItem slow = item("idem-" + UUID.randomUUID());
+        BatchPaymentItem fast = item("idem-" + UUID.randomUUID());
+        Map<String, CompletableFuture<InitiatePaymentResponse>> calls = new ConcurrentHashMap<>();
+        when(gateway.initiatePaymentAsync(any(), any())).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(1);
+            CompletableFuture<InitiatePaymentResponse> call = new CompletableFuture<>();
+            calls.put(transaction.getIdempotencyKey(), call);
+            if (transaction.getIdempotencyKey().equals(fast.getIdempotencyKey())) {
+                call.complete(response(transaction));
+            }
+            return call;
+        });
+
+        Flux<BatchPaymentResult> results = transactionService.initiateBatch(List.of(slow, fast), merchant).cache();
+
+        // The fast item is streamed while the slow one is still at the gateway
+        BatchPaymentResult first = results.next().block(Duration.ofSeconds(5));
+        assertThat(first.index()).isEqualTo(1);
+        assertThat(first.outcome()).isEqualTo(BatchPaymentResult.Outcome.INITIATED);
+
+        Transaction reserved = transactionRepository.findByMerchantIdAndIdempotencyKey(merchant.getId(), slow.getIdempotencyKey()).orElseThrow();
+        calls.get(slow.getIdempotencyKey()).complete(response(reserved));
+        assertThat(results.collectList().block(Duration.ofSeconds(5)))
+                .extracting(BatchPaymentResult::index)
+                .containsExactly(1, 0);
+    }
+
+    @Test
+    void batchItemCoalescesWithConcurrentSingleInitiation() {
+        CompletableFuture<InitiatePaymentResponse> gatewayCall = new CompletableFuture<>();
+        when(gateway.initiatePaymentAsync(any(), any())).thenReturn(gatewayCall);
+        BatchPaymentItem item = item("idem-" + UUID.randomUUID());
+
+        CompletableFuture<InitiatePaymentResponse> single =
+                transactionService.initiatePayment(item, item.getIdempotencyKey(), merchant);
+        Mono<BatchPaymentResult> batched = transactionService.initiateBatch(List.of(item), merchant).single();
+        Transaction reserved = transactionRepository.findByMerchantIdAndIdempotencyKey(merchant.getId(), item.getIdempotencyKey()).orElseThrow();
+        gatewayCall.complete(response(reserved));
+
+        BatchPaymentResult result = batched.block(Duration.ofSeconds(5));
+        assertThat(result.outcome()).isEqualTo(BatchPaymentResult.Outcome.REPLAYED);
+        // The gateway's answer, not a snapshot of the row still INITIATING
+        assertThat(result.response().getStatus()).isEqualTo("PENDING");
+        assertThat(result.response().getTransactionId()).isEqualTo(single.join().getTransactionId());
+        verify(gateway, times(1)).initiatePaymentAsync(any(), any());
+        verify(idempotencyStore).complete(eq(new IdempotencyKey(merchant.getId(), item.getIdempotencyKey())), any());
+    }
+
+    @Test
+    void fallsBackToPerItemInitiationWhenAKeyWasClaimedConcurrently() {
+        when(gateway.initiatePaymentAsync(any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(response(invocation.getArgument(1))));
+        BatchPaymentItem claimed = item("idem-" + UUID.randomUUID());
+        BatchPaymentItem fresh = item("idem-" + UUID.randomUUID());
+        Transaction owner = transactionRepository.save(pending(claimed));
+        // The row lands after the batch looked for existing keys, as with another instance racing it
+        doReturn(List.of()).when(transactionRepository).findByMerchantIdAndIdempotencyKeyIn(any(), any());
+
+        List<BatchPaymentResult> results = transactionService.initiateBatch(List.of(claimed, fresh), merchant)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertThat(results).hasSize(2).allMatch(result -> result.outcome() != BatchPaymentResult.Outcome.FAILED);
+        assertThat(results).filteredOn(result -> result.index() == 0).singleElement()
+                .extracting(result -> result.response().getTransactionId())
+                .isEqualTo(owner.getId());
+        assertThat(transactionRepository.findByMerchantIdAndIdempotencyKey(merchant.getId(), fresh.getIdempotencyKey()))
+                .get()
+                .extracting(Transaction::getStatus)
+                .isEqualTo(Transaction.Status.PENDING);
+        verify(gateway, times(1)).initiatePaymentAsync(any(), any());
+    }
+
+    @Test
+    void cancelledBatchFailsItemsNotYetSent() {
+        AtomicInteger calls = new AtomicInteger();
+        // The first gateway call answers at once, the rest never do
+        when(gateway.initiatePaymentAsync(any(), any())).thenAnswer(invocation -> calls.getAndIncrement() == 0
+                ? CompletableFuture.completedFuture(response(invocation.getArgument(1)))
+                : new CompletableFuture<>());
+        List<BatchPaymentItem> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            items.add(item("idem-" + UUID.randomUUID()));
+        }
+
+        transactionService.initiateBatch(items, merchant).take(1).blockLast(Duration.ofSeconds(5));
+
+        List<Transaction.Status> statuses = items.stream()
+                .map(item -> transactionRepository.findByMerchantIdAndIdempotencyKey(merchant.getId(), item.getIdempotencyKey())
+                        .orElseThrow().getStatus())
+                .toList();
+        // Only calls already handed to the gateway are left to finish; nothing unsent stays INITIATING
+        assertThat(statuses).filteredOn(status -> status == Transaction.Status.INITIATING)
+                .hasSize(calls.get() - 1)
+                .hasSizeLessThanOrEqualTo(GATEWAY_CONCURRENCY);
+        assertThat(statuses).filteredOn(status -> status == Transaction.Status.FAILED)
+                .hasSize(items.size() - calls.get());
+        verify(idempotencyStore, times(1)).complete(any(), any());
+        verify(idempotencyStore, times(items.size() - calls.get())).release(any());
+    }
+
+    private Transaction pending(BatchPaymentItem item) {
+        Transaction transaction = new Transaction();
+        transaction.setIdempotencyKey(item.getIdempotencyKey());
+        transaction.setMerchantRef(item.getMerchantRef());
+        transaction.setMerchantId(merchant.getId());
+        transaction.setAmount(BigDecimal.valueOf(item.getAmount()));
+        transaction.setCurrency(Transaction.Currency.NGN);
+        transaction.setCustomerEmail(item.getCustomerEmail());
+        transaction.setPaymentMethod(Transaction.PaymentMethod.CARD);
+        transaction.setPaymentGateway(Transaction.PaymentGateway.PAYSTACK);
+        transaction.setStatus(Transaction.Status.PENDING);
+        transaction.setMetadata("{\"authorizationUrl\": \"https://checkout.example/existing\"}");
+        return transaction;
+    }
+
+    private static InitiatePaymentResponse response(Transaction transaction) {
+        return new InitiatePaymentResponse(transaction.getId(), "PENDING",
+                "https://checkout.example/" + transaction.getId(), transaction.getAmount());
+    }
+
+    private static BatchPaymentItem item(String idempotencyKey) {
+        BatchPaymentItem item = new BatchPaymentItem();
+        item.setIdempotencyKey(idempotencyKey);
+        item.setAmount(1500.0);
+        item.setCurrency("NGN");
+        item.setMerchantRef("REF-" + UUID.randomUUID());
+        item.setCustomerEmail("customer@example.com");
+        item.setPaymentMethod("CARD");
+        item.setPaymentGateway("PAYSTACK");
+        return item;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.pps.service;
+
+import com.example.pps.dto.InitiatePaymentRequest;
+import com.example.pps.dto.InitiatePaymentResponse;
+import com.example.pps.entity.Merchant;
+import com.example.pps.entity.Transaction;
+import com.example.pps.gateway.GatewayFactory;
+import com.example.pps.gateway.GatewayProvider;
+import com.example.pps.gateway.GatewayRoute;
+import com.example.pps.idempotency.IdempotencyService;
+import com.example.pps.idempotency.IdempotencyStore;
+import com.example.pps.repository.MerchantRepository;
+import com.example.pps.repository.TransactionRepository;
+import com.example.pps.security.ApiKeyHasher;
+import com.example.pps.security.MerchantCacheInvalidator;
+import com.example.pps.timer.DurableTimers;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Load test for the reserve -> gateway -> finalize flow: with a pool of {@value #POOL_SIZE}
+ * connections, {@value #REQUEST_THREADS} request threads and a slow gateway, many concurrent
+ * initiations must complete without any connection being leased or any request thread
+ * parked while the gateway call is in flight.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pps-initiation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.hikari.maximum-pool-size=" + TransactionServiceConnectionUsageTest.POOL_SIZE,
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // V1 uses Postgres partitioning; H2 gets its schema from the entities instead
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({TransactionService.class, IdempotencyService.class, TransactionServiceConnectionUsageTest.CompletionExecutorConfig.class})
+class TransactionServiceConnectionUsageTest {
+
+    static final int POOL_SIZE = 4;
+    private static final int REQUEST_THREADS = 4;
+    private static final int CONCURRENT_REQUESTS = 32;
+    private static final long GATEWAY_LATENCY_MS = 200;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MerchantRepository merchantRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoBean
+    private GatewayFactory gatewayFactory;
+
+    @MockitoBean
+    private IdempotencyStore idempotencyStore;
+
+    @MockitoBean
+    private MerchantCacheInvalidator merchantCacheInvalidator;
+
+    @MockitoBean
+    private DurableTimers durableTimers;
+
+    private final GatewayProvider gateway = mock(GatewayProvider.class);
+
+    private final ScheduledExecutorService gatewayIo = Executors.newSingleThreadScheduledExecutor();
+
+    @TestConfiguration
+    static class CompletionExecutorConfig {
+        @Bean
+        ThreadPoolTaskExecutor gatewayCompletionExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(POOL_SIZE);
+            executor.setThreadNamePrefix("gateway-completion-");
+            executor.initialize();
+            return executor;
+        }
+    }
+
+    private Merchant merchant;
+
+    @BeforeEach
+    void setUp() {
+        Merchant newMerchant = new Merchant();
+        newMerchant.setName("Load Test Merchant");
+        newMerchant.setApiKeyHash(ApiKeyHasher.hash("key-" + UUID.randomUUID()));
+        merchant = merchantRepository.save(newMerchant);
+        when(gatewayFactory.route(any(), anyBoolean()))
+                .thenAnswer(invocation -> new GatewayRoute(invocation.getArgument(0), gateway));
+    }
+
+    @Test
+    void gatewayLatencyDoesNotOccupyThePool() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger callsHoldingResources = new AtomicInteger();
+
+        // Simulates a non-blocking HTTP client: the response arrives on an I/O thread after the latency
+        when(gateway.initiatePaymentAsync(any(), any())).thenAnswer(invocation -> {
+            if (TransactionSynchronizationManager.isActualTransactionActive()
+                    || TransactionSynchronizationManager.hasResource(dataSource)) {
+                callsHoldingResources.incrementAndGet();
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Transaction transaction = invocation.getArgument(1);
+            CompletableFuture<InitiatePaymentResponse> response = new CompletableFuture<>();
+            gatewayIo.schedule(() -> {
+                inFlight.decrementAndGet();
+                response.complete(new InitiatePaymentResponse(UUID.randomUUID(), "PENDING",
+                        "https://checkout.example/" + transaction.getId(), transaction.getAmount()));
+            }, GATEWAY_LATENCY_MS, TimeUnit.MILLISECONDS);
+            return response;
+        });
+
+        ExecutorService requests = Executors.newFixedThreadPool(REQUEST_THREADS);
+        try {
+            List<Future<CompletableFuture<InitiatePaymentResponse>>> submitted = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                String idempotencyKey = "idem-" + UUID.randomUUID();
+                submitted.add(requests.submit(() ->
+                        transactionService.initiatePayment(request(), idempotencyKey, merchant)));
+            }
+            for (Future<CompletableFuture<InitiatePaymentResponse>> future : submitted) {
+                assertThat(future.get().get().getStatus()).isEqualTo("PENDING");
+            }
+            // Every initiation completed, so none timed out waiting for a connection; and the
+            // gateway calls overlapped far beyond what a connection per call would allow.
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            assertThat(pool.getActiveConnections()).isZero();
+            assertThat(pool.getThreadsAwaitingConnection()).isZero();
+            assertThat(callsHoldingResources.get()).isZero();
+            assertThat(maxInFlight.get()).isGreaterThan(Math.max(POOL_SIZE, REQUEST_THREADS));
+            assertThat(transactionRepository.findAll())
+                    .filteredOn(t -> t.getMerchantId() != null && t.getStatus() == Transaction.Status.PENDING)
+                    .hasSizeGreaterThanOrEqualTo(CONCURRENT_REQUESTS);
+        } finally {
+            requests.shutdownNow();
+            gatewayIo.shutdownNow();
+        }
+    }
+
+    @Test
+    void gatewayFailureFailsTheReservedTransaction() {
+        when(gateway.initiatePaymentAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("gateway down")));
+        String idempotencyKey = "idem-" + UUID.randomUUID();
+
+        assertThatThrownBy(() -> transactionService.initiatePayment(request(), idempotencyKey, merchant).join())
+                .hasRootCauseMessage("gateway down");
+
+        assertThat(transactionRepository.findByMerchantIdAndIdempotencyKey(merchant.getId(), idempotencyKey))
+                .get()
+                .extracting(Transaction::getStatus)
+                .isEqualTo(Transaction.Status.FAILED);
+    }
+
+    @Test
+    void recoveryJobFailsTransactionsStuckInInitiating() {
+        Transaction stuck = new Transaction();
+        stuck.setIdempotencyKey("idem-" + UUID.randomUUID());
+        stuck.setMerchantRef("REF-" + UUID.randomUUID());
+        stuck.setMerchantId(merchant.getId());
+        stuck.setAmount(java.math.BigDecimal.TEN);
+        stuck.setCurrency(Transaction.Currency.NGN);
+        stuck.setCustomerEmail("customer@example.com");
+        stuck.setPaymentMethod(Transaction.PaymentMethod.CARD);
+        stuck.setPaymentGateway(Transaction.PaymentGateway.PAYSTACK);
+        stuck.setStatus(Transaction.Status.INITIATING);
+        stuck = transactionRepository.save(stuck);
+
+        new InitiationRecoveryJob(transactionRepository, Duration.ZERO).recoverStaleInitiations();
+
+        assertThat(transactionRepository.findById(stuck.getId()))
+                .get()
+                .extracting(Transaction::getStatus)
+                .isEqualTo(Transaction.Status.FAILED);
+    }
+
+    private InitiatePaymentRequest request() {
+        InitiatePaymentRequest request = new InitiatePaymentRequest();
+        request.setAmount(1500.0);
+        request.setCurrency("NGN");
+        request.setMerchantRef("REF-" + UUID.randomUUID());
+        request.setCustomerEmail("customer@example.com");
+        request.setPaymentMethod("CARD");
+        request.setPaymentGateway("PAYSTACK");
+        return request;
+    }
+}
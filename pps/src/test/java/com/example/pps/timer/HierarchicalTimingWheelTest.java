@@ -0,0 +1,71 @@
+package com.example.pps.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    // 3 levels of 4 slots at 1ms: only 64ms fit, so most timers below cascade or wrap the top wheel
+    private final HierarchicalTimingWheel wheel = new HierarchicalTimingWheel("test-wheel", Duration.ofMillis(1), 2, 3, executor);
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void firesEveryTimerNoEarlierThanItsDelay() throws InterruptedException {
+        int timers = 500;
+        CountDownLatch done = new CountDownLatch(timers);
+        Map<Integer, Long> lateness = new ConcurrentHashMap<>();
+        for (int i = 0; i < timers; i++) {
+            int delayMillis = (i * 7) % 300;
+            long scheduledAt = System.nanoTime();
+            int id = i;
+            wheel.schedule(() -> {
+                lateness.put(id, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt) - delayMillis);
+                done.countDown();
+            }, Duration.ofMillis(delayMillis));
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(lateness.values()).allSatisfy(late -> assertThat(late).isBetween(0L, 200L));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledTimersNeverFire() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        List<HierarchicalTimingWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            timeouts.add(wheel.schedule(fired::incrementAndGet, Duration.ofMillis(20 + i)));
+        }
+        CountDownLatch kept = new CountDownLatch(1);
+        wheel.schedule(kept::countDown, Duration.ofMillis(150));
+
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            assertThat(timeouts.get(i).cancel()).isTrue();
+        }
+
+        assertThat(kept.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired).hasValue(50);
+        assertThat(timeouts.get(0).isCancelled()).isTrue();
+        assertThat(timeouts.get(1).isExpired()).isTrue();
+        assertThat(timeouts.get(1).cancel()).isFalse();
+    }
+}
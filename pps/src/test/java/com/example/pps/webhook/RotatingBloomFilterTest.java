@@ -0,0 +1,68 @@
+package com.example.pps.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAndStaysNearTheConfiguredFalsePositiveRate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100_000, 0.001, Duration.ofHours(1), Clock.systemUTC());
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("webhook:event:PAYSTACK:charge.success:ref-" + i + ":success");
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(filter.mightContain("webhook:event:PAYSTACK:charge.success:ref-" + i + ":success")).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("webhook:event:FLUTTERWAVE::ref-" + i + ":successful")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void forgetsKeysAfterTwoRotations() {
+        MutableClock clock = new MutableClock();
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.0001, Duration.ofMinutes(10), clock);
+        filter.put("event");
+
+        clock.advance(Duration.ofMinutes(11));
+        assertThat(filter.mightContain("event")).isTrue();
+
+        clock.advance(Duration.ofMinutes(11));
+        assertThat(filter.mightContain("event")).isFalse();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
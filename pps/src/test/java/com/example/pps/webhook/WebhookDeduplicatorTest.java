@@ -0,0 +1,83 @@
+package com.example.pps.webhook;
+
+import com.example.pps.entity.Transaction;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookDeduplicatorTest {
+
+    @SuppressWarnings("unchecked")
+    private final StatefulRedisConnection<String, String> connection = mock(StatefulRedisConnection.class);
+    @SuppressWarnings("unchecked")
+    private final RedisCommands<String, String> redis = mock(RedisCommands.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebhookEventKey key =
+            new WebhookEventKey(Transaction.PaymentGateway.PAYSTACK, "charge.success", "ref-1", "success");
+    private final WebhookDeduplicator deduplicator;
+
+    WebhookDeduplicatorTest() {
+        when(connection.sync()).thenReturn(redis);
+        deduplicator = new WebhookDeduplicator(connection, meterRegistry, Duration.ofDays(7),
+                1_000, 0.0001, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bloomHitIsSettledByRedis() {
+        when(redis.set(eq(key.redisKey()), anyString(), any(SetArgs.class))).thenReturn("OK", null, "OK");
+
+        assertThat(deduplicator.claim(key)).isTrue();
+        // Redis still holds the claim: a genuine duplicate
+        assertThat(deduplicator.claim(key)).isFalse();
+        // Redis no longer does (expired, flushed): the Bloom hit was a false positive and the event applies
+        assertThat(deduplicator.claim(key)).isTrue();
+
+        assertThat(verified("confirmed")).isEqualTo(1);
+        assertThat(verified("false_positive")).isEqualTo(1);
+    }
+
+    @Test
+    void releasedClaimIsDroppedEvenWhenTheTransactionCommits() {
+        when(redis.set(eq(key.redisKey()), anyString(), any(SetArgs.class))).thenReturn("OK");
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThat(deduplicator.claim(key)).isTrue();
+        deduplicator.release(key);
+        verify(redis, never()).del(key.redisKey());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        verify(redis).del(key.redisKey());
+        // Not remembered as applied, so the redelivery is not even a Bloom hit
+        assertThat(deduplicator.claim(key)).isTrue();
+        assertThat(meterRegistry.counter("pps.webhook.dedup", "result", "bloom_hit").count()).isZero();
+    }
+
+    private double verified(String result) {
+        return meterRegistry.counter("pps.webhook.dedup.bloom.verified", "result", result).count();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.pps.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookPayloadCodecTest {
+
+    static final String PAYSTACK_CHARGE_SUCCESS = """
+            {"event":"charge.success","data":{"id":4099260516,"domain":"live","status":"success",\
+            "reference":"ord_01J9Z6N4T2","amount":250000,"message":null,"gateway_response":"Successful",\
+            "paid_at":"2026-10-17T09:12:44.000Z","created_at":"2026-10-17T09:12:31.000Z","channel":"card",\
+            "currency":"NGN","ip_address":"102.89.34.17","metadata":{},"fees_breakdown":null,"log":null,"fees":3850,\
+            "authorization":{"authorization_code":"AUTH_8dfhjjdt","bin":"408408","last4":"4081","exp_month":"12",\
+            "exp_year":"2030","channel":"card","card_type":"visa ","bank":"TEST BANK","country_code":"NG",\
+            "brand":"visa","reusable":true,"signature":"SIG_yEXu7dLBeqG0kU7g95Ke","account_name":null},\
+            "customer":{"id":181873746,"first_name":null,"last_name":null,"email":"ada@example.com",\
+            "customer_code":"CUS_1rkzaqsv4rrhqo6","phone":null,"metadata":null,"risk_action":"default"},\
+            "plan":{},"subaccount":{},"split":{},"order_id":null,"paidAt":"2026-10-17T09:12:44.000Z",\
+            "requested_amount":250000,"pos_transaction_data":null}}""";
+
+    @Test
+    void roundTripsTheExactBytesAndCompressesThem() {
+        byte[] raw = PAYSTACK_CHARGE_SUCCESS.getBytes(StandardCharsets.UTF_8);
+
+        byte[] stored = WebhookPayloadCodec.encode(raw);
+
+        assertThat(stored[0]).isEqualTo(WebhookPayloadCodec.DEFLATE_DICTIONARY_V1);
+        assertThat(WebhookPayloadCodec.isReplayable(stored)).isTrue();
+        assertThat(WebhookPayloadCodec.decode(stored)).isEqualTo(raw);
+        assertThat(stored.length).isLessThan(raw.length / 3);
+    }
+
+    @Test
+    void roundTripsPayloadsLargerThanTheirCompressedGuess() {
+        byte[] raw = new byte[100_000];
+        new java.util.Random(7).nextBytes(raw);
+
+        assertThat(WebhookPayloadCodec.decode(WebhookPayloadCodec.encode(raw))).isEqualTo(raw);
+    }
+
+    @Test
+    void readsLegacyTextRowsButDoesNotReplayThem() {
+        byte[] legacy = "\0PaystackWebhookPayload(event=charge.success)".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(WebhookPayloadCodec.isReplayable(legacy)).isFalse();
+        assertThat(new String(WebhookPayloadCodec.decode(legacy), StandardCharsets.UTF_8))
+                .isEqualTo("PaystackWebhookPayload(event=charge.success)");
+    }
+
+    @Test
+    void rejectsUnknownFormatsAndTruncatedPayloads() {
+        byte[] stored = WebhookPayloadCodec.encode(PAYSTACK_CHARGE_SUCCESS.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> WebhookPayloadCodec.decode(new byte[]{9, 1, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> WebhookPayloadCodec.decode(java.util.Arrays.copyOf(stored, stored.length / 2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}